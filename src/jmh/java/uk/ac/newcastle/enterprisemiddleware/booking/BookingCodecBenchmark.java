@@ -0,0 +1,87 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Encoding and decoding a list of 100 {@link Booking}s (GET /bookings) as JSON, CBOR and Smile, with mappers set
+ * up like the application's.</p>
+ *
+ * <p>That the binary encodings are also smaller on the wire is checked by BinaryContentNegotiationTest.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingCodecBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String codec;
+
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private List<Booking> bookings;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper(factory(codec))
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        listWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Booking.class));
+        listReader = mapper.readerFor(mapper.getTypeFactory().constructCollectionType(List.class, Booking.class));
+
+        bookings = new ArrayList<>(100);
+        for (int i = 1; i <= 100; i++) {
+            bookings.add(BookingSerializationBenchmark.booking(i));
+        }
+        encoded = listWriter.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] encodeBookingList() throws IOException {
+        return listWriter.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public List<Booking> decodeBookingList() throws IOException {
+        return listReader.readValue(encoded);
+    }
+
+    private static JsonFactory factory(String codec) {
+        switch (codec) {
+            case "cbor":
+                return new CBORFactory();
+            case "smile":
+                return new SmileFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.newcastle.enterprisemiddleware.datasource.EntityManagerRouter;
+import uk.ac.newcastle.enterprisemiddleware.util.BenchmarkDatabase;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>{@link BookingRepository#findByCustomerId(long)} against an in-memory H2 database of 10k, 100k and 1M Bookings
+ * (see {@link BenchmarkDatabase}). Each Customer has around ten Bookings.</p>
+ *
+ * <p>The persistence context is cleared after every call, as it would be at the end of a request, so each call
+ * loads the Bookings and their Customer and Hotel from the database.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BookingRepositoryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private BookingRepository repository;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        database = BenchmarkDatabase.create("bookings", rows);
+        repository = new BookingRepository();
+        repository.em = database.createEntityManager();
+        repository.router = new EntityManagerRouter(repository.em, repository.em);
+        random = new SplittableRandom(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        repository.em.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<Booking> findByCustomerId() {
+        List<Booking> bookings = repository.findByCustomerId(random.nextInt(database.customers()) + 1);
+        repository.em.clear();
+        return bookings;
+    }
+}
@@ -0,0 +1,97 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Jackson serialization of a {@link Booking} with its nested {@link Customer} and {@link Hotel}, as a single
+ * entity (GET /bookings/{id}) and as a list of 100 (GET /bookings), plus reading a Booking request body.</p>
+ *
+ * <p>The ObjectMapper is configured the way Quarkus configures the one used by RESTEasy Reactive: modules found on
+ * the classpath (java.time) registered, dates written as ISO strings and unknown properties ignored.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingSerializationBenchmark {
+
+    private ObjectWriter bookingWriter;
+    private ObjectWriter listWriter;
+    private ObjectReader bookingReader;
+    private Booking booking;
+    private List<Booking> bookings;
+    private byte[] requestBody;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        bookingWriter = mapper.writerFor(Booking.class);
+        listWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Booking.class));
+        bookingReader = mapper.readerFor(Booking.class);
+
+        booking = booking(1);
+        bookings = new ArrayList<>(100);
+        for (int i = 1; i <= 100; i++) {
+            bookings.add(booking(i));
+        }
+        requestBody = bookingWriter.writeValueAsBytes(booking);
+    }
+
+    @Benchmark
+    public byte[] serializeBooking() throws IOException {
+        return bookingWriter.writeValueAsBytes(booking);
+    }
+
+    @Benchmark
+    public byte[] serializeBookingList() throws IOException {
+        return listWriter.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public Booking deserializeBooking() throws IOException {
+        return bookingReader.readValue(requestBody);
+    }
+
+    static Booking booking(long id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName("Smith");
+        customer.setEmail("customer" + id + "@example.com");
+        customer.setPhoneNumber(String.format("%011d", id));
+
+        Hotel hotel = new Hotel("Grand", "Newcastle", String.format("0%010d", id), "NE17RU");
+        hotel.setId(id);
+
+        Booking booking = new Booking(customer, hotel, LocalDate.of(2024, 1, 1).plusDays(id), LocalDate.of(2024, 1, 3).plusDays(id));
+        booking.setId(id);
+        return booking;
+    }
+}
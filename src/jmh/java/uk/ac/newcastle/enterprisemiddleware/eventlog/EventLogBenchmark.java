@@ -0,0 +1,86 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * <p>Appending to and tailing the {@link SegmentedLog}, with events the size of a serialised Booking.</p>
+ *
+ * <p>{@code append} writes one unit of work (an event and its commit marker) as a repository write does.
+ * {@code tail} reads {@value #EVENTS} committed events from the start of a log filled in the setup, in polls of
+ * 1024; its score is per event.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventLogBenchmark {
+
+    private static final int EVENTS = 100_000;
+    private static final byte[] EMPTY = new byte[0];
+
+    private Path directory;
+    private SegmentedLog log;
+    private byte[] payload;
+    private long filledFrom;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("event-log-bench");
+        log = SegmentedLog.open(directory, 64 * 1024 * 1024, 8);
+        payload = new byte[320];
+        Arrays.fill(payload, (byte) 'x');
+        filledFrom = log.end();
+        for (int i = 0; i < EVENTS; i++) {
+            append();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        long transaction = log.nextTransaction();
+        log.append(SegmentedLog.EVENT, transaction, "booking.created", payload);
+        return log.append(SegmentedLog.COMMIT, transaction, "", EMPTY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long tail() {
+        LogTail tail = log.tail(filledFrom);
+        long read = 0;
+        List<DomainEvent> events;
+        while (read < EVENTS && !(events = tail.poll(1024)).isEmpty()) {
+            read += events.size();
+        }
+        return read;
+    }
+}
@@ -0,0 +1,91 @@
+package uk.ac.newcastle.enterprisemiddleware.hotel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.newcastle.enterprisemiddleware.datasource.EntityManagerRouter;
+import uk.ac.newcastle.enterprisemiddleware.util.BenchmarkDatabase;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The Hotel lookups on the booking write path, against an in-memory H2 database of 10k, 100k and 1M Hotels and
+ * Bookings (see {@link BenchmarkDatabase}):</p>
+ * <ul>
+ *     <li>{@link HotelRepository#findByPhoneNumber(String)}, used by the unique phone number check;</li>
+ *     <li>{@link HotelRepository#countOverlappingBookings}, the availability check, both for a stay that clashes
+ *     with an existing Booking and for one that fits in the gap between two Bookings.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HotelRepositoryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private HotelRepository repository;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        database = BenchmarkDatabase.create("hotels", rows);
+        repository = new HotelRepository();
+        repository.em = database.createEntityManager();
+        repository.router = new EntityManagerRouter(repository.em, repository.em);
+        random = new SplittableRandom(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        repository.em.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Hotel findByPhoneNumber() {
+        Hotel hotel = repository.findByPhoneNumber(BenchmarkDatabase.hotelPhoneNumber(random.nextInt(database.hotels()) + 1));
+        repository.em.clear();
+        return hotel;
+    }
+
+    @Benchmark
+    public long availabilityConflict() {
+        // Starts on the second night of a booked slot
+        LocalDate checkIn = slotStart().plusDays(1);
+        return repository.countOverlappingBookings(bookedHotel(), checkIn, checkIn.plusDays(2), null);
+    }
+
+    @Benchmark
+    public long availabilityFree() {
+        // Each slot is booked for two of its three nights, leaving the last night free
+        LocalDate checkIn = slotStart().plusDays(BenchmarkDatabase.NIGHTS_PER_SLOT - 1);
+        return repository.countOverlappingBookings(bookedHotel(), checkIn, checkIn.plusDays(1), null);
+    }
+
+    private long bookedHotel() {
+        return random.nextInt(database.bookedHotels()) + 1;
+    }
+
+    private LocalDate slotStart() {
+        long slot = random.nextInt(database.slotsPerHotel());
+        return BenchmarkDatabase.FIRST_CHECK_IN.plusDays(slot * BenchmarkDatabase.NIGHTS_PER_SLOT);
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.newcastle.enterprisemiddleware.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The cost of the rate limit check on the request path, which should stay well under a microsecond.</p>
+ *
+ * <p>{@code hotClient} has every thread take tokens from one client's bucket, the worst case for contention on its
+ * compare-and-set. {@code manyClients} spreads the threads over {@value #CLIENTS} clients, as a busy route sees
+ * them, which mostly measures the bucket lookup. {@code newClients} keeps adding clients to a limiter bounded to
+ * {@value #MAX_CLIENTS}, so every call creates a bucket and evicts another.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+    private static final int MAX_CLIENTS = 1_000;
+
+    private RouteLimiter limiter;
+    private RouteLimiter bounded;
+    private String[] clients;
+
+    @Setup
+    public void setup() {
+        // High enough that the benchmark measures taken tokens as well as refusals
+        limiter = new RouteLimiter("bench", 1_000_000, 1_000, CLIENTS * 2, Duration.ofMinutes(10));
+        bounded = new RouteLimiter("bench-bounded", 1_000_000, 1_000, MAX_CLIENTS, Duration.ofMinutes(10));
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "ip:10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long hotClient() {
+        return limiter.acquire(clients[0]);
+    }
+
+    @Benchmark
+    public long manyClients() {
+        return limiter.acquire(clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+
+    @Benchmark
+    public long newClients() {
+        return bounded.acquire("key:" + ThreadLocalRandom.current().nextLong());
+    }
+}
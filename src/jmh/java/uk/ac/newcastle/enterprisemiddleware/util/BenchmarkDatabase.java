@@ -0,0 +1,166 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * <p>An in-memory H2 database with the application's schema, bootstrapped with plain Hibernate so that repository
+ * benchmarks can run outside Quarkus.</p>
+ *
+ * <p>{@link #create(String, int)} seeds it with {@code rows} Hotels and {@code rows} Bookings, plus one Customer for
+ * every ten Bookings. Bookings are spread over the first 1% of Hotels as back to back three night slots starting at
+ * {@link #FIRST_CHECK_IN}, so each booked Hotel has around a hundred Bookings. Rows are inserted with batched JDBC,
+ * which keeps the 1M row setup to seconds rather than minutes.</p>
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    public static final LocalDate FIRST_CHECK_IN = LocalDate.of(2024, 1, 1);
+    public static final int NIGHTS_PER_SLOT = 3;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final SessionFactory sessionFactory;
+    private final int customers;
+    private final int hotels;
+    private final int bookedHotels;
+    private final int bookings;
+
+    private BenchmarkDatabase(SessionFactory sessionFactory, int rows) {
+        this.sessionFactory = sessionFactory;
+        this.customers = Math.max(rows / 10, 1);
+        this.hotels = rows;
+        this.bookedHotels = Math.max(rows / 100, 1);
+        this.bookings = rows;
+    }
+
+    public static BenchmarkDatabase create(String name, int rows) {
+        return create(name, "jdbc:h2:mem:" + name + "-" + rows + ";DB_CLOSE_DELAY=-1", rows);
+    }
+
+    /**
+     * <p>Creates and seeds the schema in the database at the given JDBC URL, e.g. an H2 file or TCP URL.</p>
+     */
+    public static BenchmarkDatabase create(String name, String url, int rows) {
+        SessionFactory sessionFactory = new Configuration()
+                .addAnnotatedClass(Customer.class)
+                .addAnnotatedClass(Hotel.class)
+                .addAnnotatedClass(Booking.class)
+                .setProperty(AvailableSettings.DRIVER, "org.h2.Driver")
+                .setProperty(AvailableSettings.URL, url)
+                .setProperty(AvailableSettings.USER, "sa")
+                .setProperty(AvailableSettings.PASS, "sa")
+                .setProperty(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create")
+                .setProperty(AvailableSettings.POOL_SIZE, "4")
+                .buildSessionFactory();
+
+        BenchmarkDatabase database = new BenchmarkDatabase(sessionFactory, rows);
+        sessionFactory.openSession().doWork(database::seed);
+        return database;
+    }
+
+    public EntityManager createEntityManager() {
+        return sessionFactory.createEntityManager();
+    }
+
+    public int customers() {
+        return customers;
+    }
+
+    public int hotels() {
+        return hotels;
+    }
+
+    /**
+     * @return the number of Hotels (ids 1 to this value) that have Bookings
+     */
+    public int bookedHotels() {
+        return bookedHotels;
+    }
+
+    /**
+     * @return the number of booked slots each booked Hotel has, starting at {@link #FIRST_CHECK_IN}
+     */
+    public int slotsPerHotel() {
+        return bookings / bookedHotels;
+    }
+
+    public static String hotelPhoneNumber(long id) {
+        return String.format("0%010d", id);
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO customer (id, name, email, phone_number) VALUES (?, ?, ?, ?)")) {
+            for (long id = 1; id <= customers; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Customer");
+                insert.setString(3, "customer" + id + "@example.com");
+                insert.setString(4, String.format("%011d", id));
+                batch(insert, id);
+            }
+            insert.executeBatch();
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO hotels (id, name, location, phoneNumber, postalCode) VALUES (?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= hotels; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Hotel");
+                insert.setString(3, "Location" + (id % 100));
+                insert.setString(4, hotelPhoneNumber(id));
+                insert.setString(5, "NE17RU");
+                batch(insert, id);
+            }
+            insert.executeBatch();
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bookings (id, customer_id, hotel_id, check_in_date, check_out_date) VALUES (?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= bookings; id++) {
+                long slot = (id - 1) / bookedHotels;
+                LocalDate checkIn = FIRST_CHECK_IN.plusDays(slot * NIGHTS_PER_SLOT);
+                insert.setLong(1, id);
+                insert.setLong(2, (id - 1) % customers + 1);
+                insert.setLong(3, (id - 1) % bookedHotels + 1);
+                insert.setObject(4, checkIn);
+                insert.setObject(5, checkIn.plusDays(NIGHTS_PER_SLOT - 1));
+                batch(insert, id);
+            }
+            insert.executeBatch();
+        }
+
+        // Rows were inserted with explicit ids, so move the identity columns past them for later inserts
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE hotels ALTER COLUMN id RESTART WITH " + (hotels + 1));
+            statement.execute("ALTER TABLE bookings ALTER COLUMN id RESTART WITH " + (bookings + 1));
+        }
+
+        connection.commit();
+    }
+
+    private static void batch(PreparedStatement insert, long count) throws SQLException {
+        insert.addBatch();
+        if (count % BATCH_SIZE == 0) {
+            insert.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ValidationException;
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Throughput of a request that fails validation, from the validator throwing to the error body being built.</p>
+ *
+ * <p>The failure is thrown {@code depth} frames below the catch site, which is roughly what the REST, interceptor and
+ * service layers put between the two in the running application. {@code stackful} is how the error path used to
+ * work (a ValidationException capturing its stack, wrapped in a RestServiceException that captured another one,
+ * with a fresh reasons map); {@code stackless} is the current path through {@link DomainValidationException} and
+ * {@link ErrorReasons}.</p>
+ *
+ * <p>Run with {@code mvn -Pbenchmarks verify -Djmh.includes=ErrorPathBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ErrorPathBenchmark {
+
+    @Param({"20", "120"})
+    public int depth;
+
+    @Benchmark
+    public ErrorMessage stackful() {
+        try {
+            descend(depth, true);
+            return null;
+        } catch (ValidationException e) {
+            Map<String, String> reasons = new HashMap<>();
+            reasons.put("customer", "That Customer Not Exist,can not create ");
+            StackfulRestServiceException wrapped =
+                    new StackfulRestServiceException("Bad Request", reasons, Response.Status.CONFLICT, e);
+            return new ErrorMessage(wrapped.getMessage(), wrapped.reasons);
+        }
+    }
+
+    @Benchmark
+    public ErrorMessage stackless() {
+        try {
+            descend(depth, false);
+            return null;
+        } catch (CustomerNotExist e) {
+            RestServiceException wrapped =
+                    new RestServiceException("Bad Request", ErrorReasons.CUSTOMER_NOT_EXIST, Response.Status.CONFLICT, e);
+            return new ErrorMessage(wrapped.getMessage(), wrapped.getReasons());
+        }
+    }
+
+    private static void descend(int remaining, boolean stackful) {
+        if (remaining == 0) {
+            if (stackful) {
+                throw new ValidationException("Customer not Exist");
+            }
+            throw new CustomerNotExist("Customer not Exist");
+        }
+        descend(remaining - 1, stackful);
+    }
+
+    /**
+     * <p>Stand-in for the old RestServiceException, which captured its own stack trace.</p>
+     */
+    private static final class StackfulRestServiceException extends RuntimeException {
+
+        private final Map<String, String> reasons;
+
+        StackfulRestServiceException(String msg, Map<String, String> reasons, Response.Status status, Exception e) {
+            super(msg, e);
+            this.reasons = reasons;
+        }
+    }
+}
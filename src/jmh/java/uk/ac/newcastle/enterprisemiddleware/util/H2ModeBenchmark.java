@@ -0,0 +1,105 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * <p>Point lookup and insert latency of the two H2 deployment modes:</p>
+ * <ul>
+ *     <li>{@code tcp} - the default: an in-memory database behind the H2 TCP server, as started by
+ *     {@code Application}, so every statement is a round trip over the loopback interface;</li>
+ *     <li>{@code file} - the {@code embedded} profile: an in-process, file backed MVStore database with the same page
+ *     cache size as application.properties.</li>
+ * </ul>
+ *
+ * <p>Lookups clear the persistence context so that each one reaches the database. Inserts commit one Hotel per
+ * transaction, as POST /hotels does.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class H2ModeBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"tcp", "file"})
+    public String mode;
+
+    private Server server;
+    private Path directory;
+    private BenchmarkDatabase database;
+    private EntityManager em;
+    private SplittableRandom random;
+    private long nextPhoneNumber;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String url;
+        if (mode.equals("tcp")) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:bench;DB_CLOSE_DELAY=-1";
+        } else {
+            directory = Files.createTempDirectory("h2-bench");
+            url = "jdbc:h2:file:" + directory.resolve("bench") + ";CACHE_SIZE=65536";
+        }
+        database = BenchmarkDatabase.create("h2mode", url, ROWS);
+        em = database.createEntityManager();
+        random = new SplittableRandom(42);
+        nextPhoneNumber = ROWS + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        em.close();
+        database.close();
+        if (server != null) {
+            server.stop();
+        }
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public Hotel pointLookup() {
+        Hotel hotel = em.find(Hotel.class, (long) random.nextInt(ROWS) + 1);
+        em.clear();
+        return hotel;
+    }
+
+    @Benchmark
+    public Hotel insert() {
+        Hotel hotel = new Hotel("Hotel", "Location", BenchmarkDatabase.hotelPhoneNumber(nextPhoneNumber++), "NE17RU");
+        em.getTransaction().begin();
+        em.persist(hotel);
+        em.getTransaction().commit();
+        em.clear();
+        return hotel;
+    }
+}
@@ -0,0 +1,91 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.hibernate.validator.HibernateValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.customer.CustomerConstraints;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.hotel.HotelConstraints;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compares validating a Customer and a Hotel with Hibernate Validator against the precompiled
+ * {@link CustomerConstraints} and {@link HotelConstraints}, for valid entities and for entities that break several
+ * constraints.</p>
+ *
+ * <p>Run with {@code mvn -Pbenchmarks verify -Djmh.includes=ValidationBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean valid;
+
+    private ValidatorFactory factory;
+    private Validator validator;
+    private Customer customer;
+    private Hotel hotel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        factory = Validation.byProvider(HibernateValidator.class).configure().buildValidatorFactory();
+        validator = factory.getValidator();
+
+        customer = new Customer();
+        customer.setName(valid ? "Smith" : "Sm1th");
+        customer.setEmail(valid ? "jane@example.com" : "not-an-email");
+        customer.setPhoneNumber(valid ? "01234567890" : "0123");
+
+        hotel = valid
+                ? new Hotel("Grand", "Newcastle", "01234567890", "NE17RU")
+                : new Hotel("Grand", " ", "11234567890", "NE1 7R");
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Customer>> customerHibernateValidator() {
+        return validator.validate(customer);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Customer>> customerPrecompiled() {
+        return CustomerConstraints.validate(customer);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Hotel>> hotelHibernateValidator() {
+        return validator.validate(hotel);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Hotel>> hotelPrecompiled() {
+        return HotelConstraints.validate(hotel);
+    }
+}
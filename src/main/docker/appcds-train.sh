@@ -0,0 +1,71 @@
+#!/bin/sh
+####
+# Training run for the AppCDS archive, run inside the image by Dockerfile.jvm when built with
+# --build-arg APPCDS_TRAINING=true.
+#
+# Starts the application on an embedded H2 database in a scratch directory, creates Hotels, Customers and Bookings and
+# reads them back through /hotels, /customers and /bookings, then dumps the classes it loaded into
+# /deployments/app-cds.jsa, replacing the archive of the appcds profile if there is one. The archive must be dumped with
+# the class path the image runs with, which is why this runs in the image rather than in the build.
+#
+# -XX:DumpLoadedClassList only lists classes loaded by the JDK's own class loaders. The application and its libraries
+# are loaded by Quarkus' RunnerClassLoader, so they are NOT archived, by this script or by the appcds profile. What
+# the training adds over the appcds profile are the JDK classes first used while serving requests (networking, NIO,
+# java.time, text and the like), which startup alone does not load.
+###
+set -eu
+
+APP_JAR=${APP_JAR:-/deployments/quarkus-run.jar}
+ARCHIVE=${ARCHIVE:-/deployments/app-cds.jsa}
+ROUNDS=${TRAINING_ROUNDS:-50}
+PORT=${TRAINING_PORT:-8089}
+BASE="http://localhost:$PORT"
+WORK=$(mktemp -d)
+
+java -XX:DumpLoadedClassList="$WORK/classes.lst" \
+    -Djava.util.logging.manager=org.jboss.logmanager.LogManager \
+    -Dquarkus.profile=embedded \
+    -Dquarkus.http.port="$PORT" \
+    -DH2_DATA_DIR="$WORK/data" \
+    -Devent-log.directory="$WORK/event-log" \
+    -Dbooking-archive.enabled=false \
+    -Drate-limit.enabled=false \
+    -Dwarmup.enabled=false \
+    -jar "$APP_JAR" > "$WORK/app.log" 2>&1 &
+APP=$!
+
+waited=0
+until curl -sf "$BASE/q/health/ready" > /dev/null; do
+    if [ "$waited" -ge 120 ] || ! kill -0 "$APP" 2> /dev/null; then
+        echo "The application did not start for training" >&2
+        cat "$WORK/app.log" >&2
+        kill "$APP" 2> /dev/null || true
+        exit 1
+    fi
+    sleep 1
+    waited=$((waited + 1))
+done
+
+post() {
+    curl -sf -H 'Content-Type: application/json' -d "$2" "$BASE$1" | sed -n 's/.*"id":\([0-9]*\).*/\1/p'
+}
+
+i=1
+while [ "$i" -le "$ROUNDS" ]; do
+    n=$(printf '%010d' "$i")
+    hotel=$(post /hotels "{\"name\":\"Training\",\"location\":\"Buildtown\",\"phoneNumber\":\"0$n\",\"postalCode\":\"TR12AB\"}")
+    customer=$(post /customers "{\"name\":\"Trainee\",\"email\":\"trainee$n@example.com\",\"phoneNumber\":\"1$n\"}")
+    booking=$(post /bookings "{\"customer\":{\"id\":$customer},\"hotel\":{\"id\":$hotel},\"checkInDate\":\"2040-01-01\",\"checkOutDate\":\"2040-01-03\"}")
+    for path in /hotels "/hotels/$hotel" "/hotels/$hotel/availability?checkInDate=2040-01-01&checkOutDate=2040-01-05" \
+            /customers "/customers/email/trainee$n@example.com" "/customers/$customer/profile" \
+            /bookings "/bookings/$booking"; do
+        curl -s -o /dev/null -H 'Accept-Encoding: gzip' "$BASE$path"
+    done
+    i=$((i + 1))
+done
+
+kill "$APP"
+wait "$APP" || true
+
+java -Xshare:dump -XX:SharedClassListFile="$WORK/classes.lst" -XX:SharedArchiveFile="$ARCHIVE" -cp "$APP_JAR"
+rm -rf "$WORK"
@@ -2,6 +2,7 @@ package uk.ac.newcastle.enterprisemiddleware;
 
 import io.quarkus.runtime.Quarkus;
 import io.quarkus.runtime.annotations.QuarkusMain;
+import io.quarkus.runtime.configuration.ProfileManager;
 import org.h2.tools.Server;
 
 import java.sql.SQLException;
@@ -9,13 +10,21 @@ import java.sql.SQLException;
 @QuarkusMain
 public class Application {
 
+    /**
+     * The profile that runs H2 in-process against a local file instead of behind the TCP server.
+     */
+    static final String EMBEDDED_PROFILE = "embedded";
+
     private static Server server;
     public static void main(String[] args) {
-        // Start H2 in server mode to allow remote connections (DBeaver)
-        try {
-            server = Server.createTcpServer("-tcpPort", "9092", "-tcpAllowOthers", "-ifNotExists").start();
-        } catch (SQLException e) {
-            throw new RuntimeException("Could not start H2 server", e);
+        // Start H2 in server mode to allow remote connections (DBeaver). The embedded profile opens the
+        // database file in-process, so no server is needed.
+        if (!EMBEDDED_PROFILE.equals(ProfileManager.getActiveProfile())) {
+            try {
+                server = Server.createTcpServer("-tcpPort", "9092", "-tcpAllowOthers", "-ifNotExists").start();
+            } catch (SQLException e) {
+                throw new RuntimeException("Could not start H2 server", e);
+            }
         }
 
         // Start the Quarkus app
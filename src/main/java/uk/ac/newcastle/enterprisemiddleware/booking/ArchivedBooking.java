@@ -0,0 +1,85 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * <p>A Booking whose stay is over, moved out of {@code bookings} by the {@link BookingArchiver}.</p>
+ *
+ * <p>It keeps the Booking's id, attributes and last version, so it reads back as the same Booking when a caller asks
+ * for history. The attribute names match {@link Booking}'s, so {@link Booking#FIELDS} selects from either. Archived
+ * Bookings are read only: they can no longer be updated or deleted through the API.</p>
+ */
+@Entity
+@Table(name = "bookings_archive", indexes = @Index(name = "idx_bookings_archive_customer", columnList = "customer_id"))
+public class ArchivedBooking implements Serializable {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "hotel_id")
+    private Hotel hotel;
+
+    @Column(name = "check_in_date", nullable = false)
+    private LocalDate checkInDate;
+
+    @Column(name = "check_out_date", nullable = false)
+    private LocalDate checkOutDate;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    public ArchivedBooking() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    /**
+     * @return The Booking as it was when it was archived
+     */
+    public Booking toBooking() {
+        Booking booking = new Booking(customer, hotel, checkInDate, checkOutDate);
+        booking.setId(id);
+        booking.setVersion(version);
+        return booking;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ArchivedBooking)) return false;
+        ArchivedBooking archived = (ArchivedBooking) o;
+        return Objects.equals(id, archived.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
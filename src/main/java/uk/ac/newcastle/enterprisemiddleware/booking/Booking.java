@@ -1,7 +1,11 @@
 package uk.ac.newcastle.enterprisemiddleware.booking;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.ColumnDefault;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSchema;
 import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.util.Versioned;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -11,20 +15,32 @@ import java.util.Objects;
 @Entity
 @NamedQueries({
         @NamedQuery(name = Booking.FIND_BY_CUSTOMERID, query = "SELECT b FROM Booking b WHERE b.customer.id = :customerId"),
+        @NamedQuery(name = Booking.COUNT_OVERLAPPING, query = "SELECT COUNT(b) FROM Booking b WHERE b.hotel.id = :hotelId"
+                + " AND b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate AND b.id <> :excludedId"),
 })
-@Table(name = "bookings")
-public class Booking implements Serializable {
+@Table(name = "bookings", indexes = @Index(name = "idx_bookings_hotel_check_in", columnList = "hotel_id, check_in_date"))
+public class Booking implements Serializable, Versioned {
     public static final String FIND_BY_CUSTOMERID = "booking.findAll";
+    public static final String COUNT_OVERLAPPING = "booking.countOverlapping";
+
+    /**
+     * The attributes a {@code fields} query parameter may select; {@code customer} and {@code hotel} can be selected
+     * whole or attribute by attribute ({@code customer.name}).
+     */
+    public static final FieldSchema FIELDS = FieldSchema.of("b", "id", "customer", "hotel", "checkInDate", "checkOutDate", "version")
+            .with("customer", Customer.FIELDS)
+            .with("hotel", Hotel.FIELDS);
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false, cascade = CascadeType.ALL)
+    // Every cascade but REMOVE: deleting a Booking must not delete its Customer and Hotel
+    @ManyToOne(optional = false, cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH, CascadeType.DETACH})
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
-    @ManyToOne(optional = false, cascade = CascadeType.ALL)
+    @ManyToOne(optional = false, cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH, CascadeType.DETACH})
     @JoinColumn(name = "hotel_id")
     private Hotel hotel;
 
@@ -34,6 +50,12 @@ public class Booking implements Serializable {
     @Column(name = "check_out_date", nullable = false)
     private LocalDate checkOutDate;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     // Constructors
 
     public Booking() {
@@ -89,6 +111,15 @@ public class Booking implements Serializable {
         this.checkOutDate = checkOutDate;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // Equals and HashCode
 
     @Override
@@ -0,0 +1,81 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.customer.CustomerProfiles;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Moves Bookings whose stay is over out of {@code bookings} into {@code bookings_archive}, every
+ * {@code booking-archive.every}.</p>
+ *
+ * <p>A Booking is archived once its check out date is more than {@code booking-archive.retain-days} days in the past.
+ * Bookings are moved {@code booking-archive.batch-size} at a time, each batch in a transaction of its own, so a run
+ * never holds locks on many rows and a failure only loses the batch it happened in. Keeping past stays out of
+ * {@code bookings} keeps its indexes, and so the availability checks and the per-customer lookups, sized by the
+ * Bookings still to come.</p>
+ *
+ * <p>Reads see the archive only when they ask for history, and archived Bookings can no longer be changed. The hotel
+ * occupancy rollup is not touched: it keeps counting the nights of archived stays.</p>
+ */
+@ApplicationScoped
+public class BookingArchiver {
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    BookingService service;
+
+    @Inject
+    CustomerProfiles profiles;
+
+    @ConfigProperty(name = "booking-archive.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "booking-archive.retain-days", defaultValue = "0")
+    int retainDays;
+
+    @ConfigProperty(name = "booking-archive.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @Scheduled(every = "{booking-archive.every}", delayed = "{booking-archive.every}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @ActivateRequestContext
+    void run() {
+        if (enabled) {
+            archive(LocalDate.now().minusDays(retainDays));
+        }
+    }
+
+    /**
+     * <p>Archives every Booking that checked out before a date.</p>
+     *
+     * @param cutoff The first check out date that is kept
+     * @return The number of Bookings archived
+     */
+    @ActivateRequestContext
+    public int archive(LocalDate cutoff) {
+        long start = System.nanoTime();
+        int archived = 0;
+        int moved;
+        do {
+            moved = service.archive(cutoff, batchSize);
+            archived += moved;
+        } while (moved == batchSize);
+        if (archived > 0) {
+            profiles.invalidateAll();
+            log.info("bookings archived", "count", archived, "cutoff", cutoff,
+                    "millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return archived;
+    }
+}
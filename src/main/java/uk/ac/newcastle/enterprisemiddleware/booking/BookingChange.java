@@ -0,0 +1,65 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * <p>A committed change to a {@link Booking}, as published on {@code GET /bookings/changes}.</p>
+ *
+ * <p>It is fired as a CDI event by {@link BookingService} inside the transaction, and observed by
+ * {@link BookingChangeFeed} only once that transaction commits.</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long bookingId;
+    private final Booking booking;
+    private final Long previousCustomerId;
+
+    private BookingChange(Type type, Long bookingId, Booking booking, Long previousCustomerId) {
+        this.type = type;
+        this.bookingId = bookingId;
+        this.booking = booking;
+        this.previousCustomerId = previousCustomerId;
+    }
+
+    static BookingChange created(Booking booking) {
+        return new BookingChange(Type.CREATED, booking.getId(), booking, null);
+    }
+
+    static BookingChange updated(Booking booking, Long previousCustomerId) {
+        return new BookingChange(Type.UPDATED, booking.getId(), booking, previousCustomerId);
+    }
+
+    static BookingChange deleted(Long bookingId, Long customerId) {
+        return new BookingChange(Type.DELETED, bookingId, null, customerId);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    /**
+     * @return The Booking as committed, or null for a deletion
+     */
+    public Booking getBooking() {
+        return booking;
+    }
+
+    /**
+     * @return The id of the Customer the Booking belonged to before the change, or null for a creation
+     */
+    @JsonIgnore
+    public Long getPreviousCustomerId() {
+        return previousCustomerId;
+    }
+}
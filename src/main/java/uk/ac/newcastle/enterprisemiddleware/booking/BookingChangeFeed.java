@@ -0,0 +1,262 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>Fans committed {@link BookingChange}s out to the subscribers of {@code GET /bookings/changes}.</p>
+ *
+ * <p>Each change is serialised once, given the next sequence number, and kept in a replay window of the last
+ * {@code booking-feed.replay-size} changes. Event ids are the instance's start time and the sequence number, e.g.
+ * {@code kz3x1c-42}. A client reconnecting with a {@code Last-Event-ID} still in the window is sent what it missed,
+ * then the live changes. A client whose id is unknown (too old, or from before a restart) is sent a {@code reset}
+ * event first, telling it to reload the bookings before applying further changes.</p>
+ *
+ * <p>Every subscriber has its own buffer of {@code booking-feed.buffer-size} live changes, and is sent one change at a
+ * time, the next once the previous has been written. A subscriber whose buffer fills is handled by
+ * {@code booking-feed.overflow}: {@code disconnect} closes its stream, so it reconnects and resumes from the window;
+ * {@code drop} discards its oldest buffered change, which the client sees as a gap in the sequence. A replay is not
+ * bounded by the buffer. Publishing never waits for a subscriber.</p>
+ */
+@ApplicationScoped
+public class BookingChangeFeed {
+
+    static final String RESET = "reset";
+
+    enum Overflow {
+        DROP, DISCONNECT
+    }
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "booking-feed.replay-size", defaultValue = "1024")
+    int replaySize;
+
+    @ConfigProperty(name = "booking-feed.buffer-size", defaultValue = "256")
+    int bufferSize;
+
+    @ConfigProperty(name = "booking-feed.overflow", defaultValue = "disconnect")
+    String overflowPolicy;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private Overflow overflow;
+    private Published[] window;
+    private long sequence;
+
+    private Counter dropped;
+    private Counter disconnected;
+
+    @PostConstruct
+    void init() {
+        overflow = Overflow.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+        window = new Published[replaySize];
+        Gauge.builder("booking.feed.subscribers", subscribers, List::size)
+                .description("Open GET /bookings/changes streams")
+                .register(registry);
+        dropped = overflowCounter("dropped");
+        disconnected = overflowCounter("disconnected");
+    }
+
+    void onCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookingChange change) {
+        String json;
+        try {
+            json = mapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            log.warn("Booking change not published", "bookingId", change.getBookingId(), e);
+            return;
+        }
+        synchronized (this) {
+            Published published = new Published(++sequence, change.getType().name().toLowerCase(Locale.ROOT), json);
+            window[(int) (published.sequence % replaySize)] = published;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(published);
+            }
+        }
+    }
+
+    /**
+     * <p>Starts streaming changes to a new subscriber.</p>
+     *
+     * @param sink The subscriber's event stream
+     * @param sse The factory for its events
+     * @param lastEventId The {@code Last-Event-ID} the client reconnected with, or null for a new subscription
+     */
+    public void subscribe(SseEventSink sink, Sse sse, String lastEventId) {
+        Subscriber subscriber = new Subscriber(sink, sse);
+        synchronized (this) {
+            if (lastEventId != null) {
+                long last = resumeFrom(lastEventId);
+                if (last < 0) {
+                    subscriber.replay(new Published(sequence, RESET, "{}"));
+                } else {
+                    for (long next = last + 1; next <= sequence; next++) {
+                        subscriber.replay(window[(int) (next % replaySize)]);
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+            subscriber.drain();
+        }
+        log.debug("Booking feed subscribed", "lastEventId", lastEventId);
+    }
+
+    /**
+     * @return The sequence number to replay after, or -1 if the id is not from this instance or has left the window
+     */
+    private long resumeFrom(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator != epoch.length() || !lastEventId.startsWith(epoch)) {
+            return -1;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (last > sequence || last < sequence - replaySize) {
+            return -1;
+        }
+        return last;
+    }
+
+    private Counter overflowCounter(String outcome) {
+        return Counter.builder("booking.feed.overflow")
+                .description("Booking changes a slow GET /bookings/changes subscriber could not buffer, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static final class Published {
+        final long sequence;
+        final String name;
+        final String json;
+
+        Published(long sequence, String name, String json) {
+            this.sequence = sequence;
+            this.name = name;
+            this.json = json;
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final ArrayDeque<Published> buffer = new ArrayDeque<>();
+        private boolean sending;
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(SseEventSink sink, Sse sse) {
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        synchronized void replay(Published published) {
+            buffer.addLast(published);
+        }
+
+        synchronized void offer(Published published) {
+            if (closed) {
+                return;
+            }
+            if (sink.isClosed()) {
+                close();
+                return;
+            }
+            if (buffer.size() >= bufferSize) {
+                if (overflow == Overflow.DISCONNECT) {
+                    disconnected.increment();
+                    log.info("Booking feed subscriber too slow", "buffered", buffer.size());
+                    close();
+                    return;
+                }
+                buffer.pollFirst();
+                dropped.increment();
+            }
+            buffer.addLast(published);
+            drain();
+        }
+
+        /*
+         * Sends the next buffered change once the previous one has been written. A send that completes on this
+         * thread calls back into sent() while the loop is running, so the loop carries on instead of recursing.
+         */
+        synchronized void drain() {
+            if (draining) {
+                return;
+            }
+            draining = true;
+            try {
+                while (!sending && !closed) {
+                    Published next = buffer.pollFirst();
+                    if (next == null) {
+                        break;
+                    }
+                    sending = true;
+                    sink.send(event(next)).whenComplete(this::sent);
+                }
+            } finally {
+                draining = false;
+            }
+        }
+
+        private synchronized void sent(Object ignored, Throwable failure) {
+            sending = false;
+            if (failure != null) {
+                close();
+                return;
+            }
+            drain();
+        }
+
+        private OutboundSseEvent event(Published published) {
+            return sse.newEventBuilder()
+                    .id(epoch + '-' + published.sequence)
+                    .name(published.name)
+                    // Already JSON, so written as it is rather than serialised again
+                    .mediaType(MediaType.TEXT_PLAIN_TYPE)
+                    .data(published.json)
+                    .build();
+        }
+
+        private void close() {
+            closed = true;
+            buffer.clear();
+            subscribers.remove(this);
+            if (!sink.isClosed()) {
+                sink.close();
+            }
+        }
+    }
+}
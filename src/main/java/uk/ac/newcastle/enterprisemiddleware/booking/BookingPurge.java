@@ -0,0 +1,96 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.customer.CustomerProfiles;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.metrics.ServerTiming;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Deletes the Bookings of a Hotel or Customer that is about to be deleted, archived ones included.</p>
+ *
+ * <p>Left to the {@code bookings} cascade, Hibernate loads every Booking and deletes them one row at a time, in the
+ * transaction that deletes the Hotel or Customer. Instead the Bookings are deleted {@code bulk-delete.chunk-size} at a
+ * time with set based statements, each chunk in a transaction of its own, so no transaction holds many rows and each
+ * one sends the caches and ETags a change of {@code bookings}. The cascade is then left with an empty collection, or
+ * with the few Bookings made while the purge ran.</p>
+ *
+ * <p>It must be called outside a transaction, as the DELETE endpoints of Hotels and Customers are: otherwise the
+ * caller's transaction, and its connection, stay open across every chunk and the purge is back under the transaction
+ * timeout. The deleted Bookings are published on the change feed chunk by chunk, as each commits.</p>
+ *
+ * <p>The purge is not undone if the delete that follows it fails; deleting again finishes the job. Every chunk of a
+ * large purge is logged, and the time spent on each table is reported to the client in the {@code Server-Timing}
+ * header.</p>
+ */
+@ApplicationScoped
+public class BookingPurge {
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    BookingService service;
+
+    @Inject
+    ServerTiming timing;
+
+    @Inject
+    CustomerProfiles profiles;
+
+    @ConfigProperty(name = "bulk-delete.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    /**
+     * @param hotelId The id of the Hotel
+     * @return The number of Bookings deleted
+     */
+    public int byHotel(Long hotelId) {
+        return purge(BookingRepository.HOTEL, hotelId);
+    }
+
+    /**
+     * @param customerId The id of the Customer
+     * @return The number of Bookings deleted
+     */
+    public int byCustomer(Long customerId) {
+        return purge(BookingRepository.CUSTOMER, customerId);
+    }
+
+    private int purge(String owner, Long ownerId) {
+        int deleted = purge("bookings", owner, ownerId, false) + purge("archive", owner, ownerId, true);
+        if (deleted > 0) {
+            profiles.invalidateAll();
+        }
+        return deleted;
+    }
+
+    private int purge(String phase, String owner, Long ownerId, boolean archived) {
+        long start = System.nanoTime();
+        int deleted = 0;
+        int chunks = 0;
+        int chunk;
+        do {
+            chunk = archived
+                    ? service.purgeArchived(owner, ownerId, chunkSize)
+                    : service.purge(owner, ownerId, chunkSize);
+            deleted += chunk;
+            chunks++;
+            if (chunk == chunkSize) {
+                log.info("bulk delete progress", owner, ownerId, "table", phase, "deleted", deleted);
+            }
+        } while (chunk == chunkSize);
+        long elapsed = System.nanoTime() - start;
+        timing.record(phase, elapsed, deleted + " rows in " + chunks + " chunks");
+        if (deleted > 0) {
+            log.info("bookings purged", owner, ownerId, "count", deleted,
+                    "millis", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return deleted;
+    }
+}
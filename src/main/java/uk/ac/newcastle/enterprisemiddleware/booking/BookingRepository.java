@@ -1,56 +1,280 @@
 package uk.ac.newcastle.enterprisemiddleware.booking;
 
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.datasource.EntityManagerRouter;
+import uk.ac.newcastle.enterprisemiddleware.datasource.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.eventlog.EventLog;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.occupancy.OccupancyRepository;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
 
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.logging.Logger;
+import java.util.Map;
 
 @RequestScoped
+@Traced("repository")
 public class BookingRepository {
+
+    /** Purges the Bookings of a Hotel, see {@link #purge(String, Long, int)}. */
+    public static final String HOTEL = "hotel";
+
+    /** Purges the Bookings of a Customer, see {@link #purge(String, Long, int)}. */
+    public static final String CUSTOMER = "customer";
+
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     EntityManager em;
 
+    @Inject
+    EntityManagerRouter router;
+
+    @Inject
+    Event<TrackedTable> changes;
+
+    @Inject
+    EventLog events;
+
+    @Inject
+    OccupancyRepository occupancy;
+
+    @ReadOnly
     public List<Booking> findAll() {
-        return em.createQuery("SELECT b FROM Booking b", Booking.class).getResultList();
+        return router.current().createQuery("SELECT b FROM Booking b", Booking.class).getResultList();
     }
 
+    @ReadOnly
     public Booking findById(Long id) {
-        return em.find(Booking.class, id);
+        return router.current().find(Booking.class, id);
     }
 
     public void create(Booking booking) {
         em.persist(booking);
+        occupancy.book(booking.getHotel().getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        events.append("booking.created", booking);
+        changes.fire(TrackedTable.BOOKINGS);
     }
 
-    public void update(Long id, Booking booking) {
+    public Booking update(Long id, Booking booking) {
         Booking existingBooking = em.find(Booking.class, id);
         if (existingBooking != null) {
+            // booking.getVersion() is the client's If-Match version, or null for an unconditional update
+            StaleVersionException.check("Booking " + id, booking.getVersion(), existingBooking.getVersion());
+            occupancy.release(existingBooking.getHotel().getId(), existingBooking.getCheckInDate(),
+                    existingBooking.getCheckOutDate());
             existingBooking.setCustomer(booking.getCustomer());
             existingBooking.setHotel(booking.getHotel());  // Use setHotel instead of setHotelId
             existingBooking.setCheckInDate(booking.getCheckInDate());
             existingBooking.setCheckOutDate(booking.getCheckOutDate());
+            // Flush now so a concurrent commit is detected here and the returned version is the new one
+            em.flush();
+            occupancy.book(existingBooking.getHotel().getId(), existingBooking.getCheckInDate(),
+                    existingBooking.getCheckOutDate());
+            events.append("booking.updated", existingBooking);
+            changes.fire(TrackedTable.BOOKINGS);
         }
+        return existingBooking;
     }
 
-    public void delete(Long id) {
+    public Booking delete(Long id) {
         Booking booking = em.find(Booking.class, id);
         if (booking != null) {
             em.remove(booking);
+            occupancy.release(booking.getHotel().getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+            events.append("booking.deleted", booking);
+            changes.fire(TrackedTable.BOOKINGS);
         }
+        return booking;
     }
 
+    @ReadOnly
     public List<Booking> findByCustomerId(long customerId) {
-        TypedQuery<Booking> query = em.createNamedQuery(Booking.FIND_BY_CUSTOMERID, Booking.class).setParameter("customerId", customerId);
+        TypedQuery<Booking> query = router.current().createNamedQuery(Booking.FIND_BY_CUSTOMERID, Booking.class).setParameter("customerId", customerId);
         return query.getResultList();
     }
+
+    @ReadOnly
+    public Projection findAll(FieldSet fields, boolean includeHistory) {
+        List<Tuple> rows = fields.query(router.current(), "FROM Booking b").getResultList();
+        if (includeHistory) {
+            rows = union(rows, fields.query(router.current(), "FROM ArchivedBooking b").getResultList());
+        }
+        return fields.rows(rows);
+    }
+
+    @ReadOnly
+    public Projection findById(Long id, FieldSet fields, boolean includeHistory) {
+        Tuple row = FieldSet.single(fields.query(router.current(), "FROM Booking b WHERE b.id = :id")
+                .setParameter("id", id));
+        if (row == null && includeHistory) {
+            row = FieldSet.single(fields.query(router.current(), "FROM ArchivedBooking b WHERE b.id = :id")
+                    .setParameter("id", id));
+        }
+        return fields.row(row);
+    }
+
+    @ReadOnly
+    public Projection findByCustomerId(long customerId, FieldSet fields, boolean includeHistory) {
+        List<Tuple> rows = fields.query(router.current(), "FROM Booking b WHERE b.customer.id = :customerId")
+                .setParameter("customerId", customerId).getResultList();
+        if (includeHistory) {
+            rows = union(rows, fields.query(router.current(), "FROM ArchivedBooking b WHERE b.customer.id = :customerId")
+                    .setParameter("customerId", customerId).getResultList());
+        }
+        return fields.rows(rows);
+    }
+
+    @ReadOnly
+    public List<Booking> findArchived() {
+        return toBookings(router.current().createQuery("SELECT a FROM ArchivedBooking a", ArchivedBooking.class)
+                .getResultList());
+    }
+
+    @ReadOnly
+    public Booking findArchivedById(Long id) {
+        ArchivedBooking archived = router.current().find(ArchivedBooking.class, id);
+        return archived == null ? null : archived.toBooking();
+    }
+
+    @ReadOnly
+    public List<Booking> findArchivedByCustomerId(long customerId) {
+        return toBookings(router.current().createQuery(
+                        "SELECT a FROM ArchivedBooking a WHERE a.customer.id = :customerId", ArchivedBooking.class)
+                .setParameter("customerId", customerId).getResultList());
+    }
+
+    /**
+     * <p>Moves a batch of Bookings that checked out before a date from {@code bookings} to {@code bookings_archive}.
+     * Rows are copied and deleted with one statement each, and both re-check the date, so a Booking moved to a later
+     * stay while the batch runs stays where it is.</p>
+     *
+     * @param cutoff Bookings with a check out date before this are archived
+     * @param limit The most Bookings to move
+     * @return The number of Bookings moved, less than the limit once there are no more to move
+     */
+    public int archive(LocalDate cutoff, int limit) {
+        List<Long> ids = em.createQuery("SELECT b.id FROM Booking b WHERE b.checkOutDate < :cutoff", Long.class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        em.createNativeQuery("INSERT INTO bookings_archive"
+                        + " (id, customer_id, hotel_id, check_in_date, check_out_date, version, archived_at)"
+                        + " SELECT id, customer_id, hotel_id, check_in_date, check_out_date, version, CURRENT_TIMESTAMP"
+                        + " FROM bookings WHERE id IN (:ids) AND check_out_date < :cutoff")
+                .setParameter("ids", ids)
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+        em.createQuery("DELETE FROM Booking b WHERE b.id IN :ids AND b.checkOutDate < :cutoff")
+                .setParameter("ids", ids)
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+        changes.fire(TrackedTable.BOOKINGS);
+        return ids.size();
+    }
+
+    /**
+     * <p>Deletes a chunk of the Bookings of a Hotel or Customer, ahead of deleting it, without loading them: their ids
+     * and stays are read with one query, the occupancy rollup is adjusted with two and the rows are deleted with one.
+     * The deletes go to the event log one by one, so consumers see the same {@code booking.deleted} events as when
+     * Bookings are deleted through the API.</p>
+     *
+     * <p>The nights of a Hotel are dropped with it, so the rollup is only adjusted for a Customer's Bookings.</p>
+     *
+     * @param owner {@link #HOTEL} or {@link #CUSTOMER}
+     * @param ownerId The id of the Hotel or Customer
+     * @param limit The most Bookings to delete
+     * @return The ids of the Bookings deleted, each followed by the id of its Customer; fewer than the limit once there
+     * are no more to delete
+     */
+    public List<Long[]> purge(String owner, Long ownerId, int limit) {
+        List<Object[]> stays = stays("Booking", owner, ownerId, limit);
+        if (stays.isEmpty()) {
+            return Collections.emptyList();
+        }
+        delete("Booking", "bookings", owner, stays);
+        List<Long[]> deleted = new ArrayList<>(stays.size());
+        for (Object[] stay : stays) {
+            deleted.add(new Long[]{(Long) stay[0], (Long) stay[1]});
+            Map<String, Object> booking = new LinkedHashMap<>();
+            booking.put("id", stay[0]);
+            booking.put("customer", Collections.singletonMap("id", stay[1]));
+            booking.put("hotel", Collections.singletonMap("id", stay[2]));
+            booking.put("checkInDate", stay[3]);
+            booking.put("checkOutDate", stay[4]);
+            events.append("booking.deleted", booking);
+        }
+        changes.fire(TrackedTable.BOOKINGS);
+        return deleted;
+    }
+
+    /**
+     * <p>Deletes a chunk of the archived Bookings of a Hotel or Customer, as {@link #purge(String, Long, int)} does.</p>
+     */
+    public int purgeArchived(String owner, Long ownerId, int limit) {
+        List<Object[]> stays = stays("ArchivedBooking", owner, ownerId, limit);
+        if (stays.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = delete("ArchivedBooking", "bookings_archive", owner, stays);
+        changes.fire(TrackedTable.BOOKINGS);
+        return ids.size();
+    }
+
+    private List<Object[]> stays(String entity, String owner, Long ownerId, int limit) {
+        return em.createQuery("SELECT b.id, b.customer.id, b.hotel.id, b.checkInDate, b.checkOutDate FROM " + entity
+                        + " b WHERE b." + owner + ".id = :ownerId", Object[].class)
+                .setParameter("ownerId", ownerId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private List<Long> delete(String entity, String table, String owner, List<Object[]> stays) {
+        List<Long> ids = new ArrayList<>(stays.size());
+        for (Object[] stay : stays) {
+            ids.add((Long) stay[0]);
+        }
+        if (CUSTOMER.equals(owner)) {
+            occupancy.releaseAll(table, ids);
+        }
+        em.createQuery("DELETE FROM " + entity + " b WHERE b.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        return ids;
+    }
+
+    private static List<Tuple> union(List<Tuple> hot, List<Tuple> archived) {
+        List<Tuple> rows = new ArrayList<>(hot.size() + archived.size());
+        rows.addAll(hot);
+        rows.addAll(archived);
+        return rows;
+    }
+
+    private static List<Booking> toBookings(List<ArchivedBooking> archived) {
+        List<Booking> bookings = new ArrayList<>(archived.size());
+        for (ArchivedBooking booking : archived) {
+            bookings.add(booking.toBooking());
+        }
+        return bookings;
+    }
 }
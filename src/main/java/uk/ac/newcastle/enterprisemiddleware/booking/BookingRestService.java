@@ -5,48 +5,94 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import uk.ac.newcastle.enterprisemiddleware.cache.ConditionalGet;
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+import uk.ac.newcastle.enterprisemiddleware.codec.BinaryMediaType;
+import uk.ac.newcastle.enterprisemiddleware.compression.Compressed;
+import uk.ac.newcastle.enterprisemiddleware.concurrency.Unlimited;
 import uk.ac.newcastle.enterprisemiddleware.contact.UniqueEmailException;
+import uk.ac.newcastle.enterprisemiddleware.datasource.RetryOnConflict;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
 import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.ratelimit.RateLimited;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 import uk.ac.newcastle.enterprisemiddleware.util.CustomerNotExist;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorReasons;
 import uk.ac.newcastle.enterprisemiddleware.util.HotelNotExist;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
 import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.persistence.OptimisticLockException;
 import javax.transaction.Transactional;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.util.HashMap;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 import java.util.List;
-import java.util.Map;
-import java.util.logging.Logger;
 
 @Path("/bookings")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+@Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+@Traced("rest")
 public class BookingRestService {
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     BookingService service;
 
+    @Inject
+    BookingChangeFeed feed;
+
     @GET
-    @Operation(summary = "Fetch all Bookings", description = "Returns a JSON array of all stored Booking objects.")
-    public Response retrieveAllBookings() {
-        List<Booking> bookings = service.findAll();
+    @ConditionalGet({TrackedTable.BOOKINGS, TrackedTable.CUSTOMERS, TrackedTable.HOTELS})
+    @Compressed
+    @Operation(summary = "Fetch all Bookings", description = "Returns a JSON array of all stored Booking objects,"
+            + " followed by the archived ones (stays that are over) with includeHistory=true.")
+    public Response retrieveAllBookings(@QueryParam("fields") String fields,
+                                        @QueryParam("includeHistory") boolean includeHistory) {
+        FieldSet selected = Booking.FIELDS.parse(fields);
+        if (selected != null) {
+            return Response.ok(service.findAll(selected, includeHistory)).build();
+        }
+        List<Booking> bookings = service.findAll(includeHistory);
         return Response.ok(bookings).build();
     }
 
     @GET
+    @Unlimited
+    @Path("/changes")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(
+            summary = "Stream Booking changes",
+            description = "Server-Sent Events for every committed create, update and delete of a Booking. Reconnect "
+                    + "with Last-Event-ID to resume; a reset event means the changes could not be replayed and the "
+                    + "Bookings should be reloaded."
+    )
+    public void streamBookingChanges(
+            @Context Sse sse,
+            @Context SseEventSink sink,
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId) {
+        feed.subscribe(sink, sse, lastEventId);
+    }
+
+    @GET
+    @ConditionalGet({TrackedTable.BOOKINGS, TrackedTable.CUSTOMERS, TrackedTable.HOTELS})
     @Path("/{id:[0-9]+}")
     @Operation(
             summary = "Fetch a Booking by id",
-            description = "Returns a JSON representation of the Booking object with the provided id."
+            description = "Returns a JSON representation of the Booking object with the provided id; an archived"
+                    + " Booking only with includeHistory=true."
     )
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description ="Booking found"),
@@ -56,20 +102,30 @@ public class BookingRestService {
             @Parameter(description = "Id of Booking to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("id")
-            long id) {
-        Booking booking = service.findById(id);
+            long id,
+            @QueryParam("fields")
+            String fields,
+            @Parameter(description = "Also look among archived Bookings")
+            @QueryParam("includeHistory")
+            boolean includeHistory) {
+        FieldSet selected = Booking.FIELDS.parse(fields);
+        Object booking = selected == null
+                ? service.findById(id, includeHistory) : service.findById(id, selected, includeHistory);
         if (booking == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        log.info("findById " + id + ": found Booking = " + booking);
+        log.debug("findById", "id", id);
         return Response.ok(booking).build();
     }
 
     @GET
+    @ConditionalGet({TrackedTable.BOOKINGS, TrackedTable.CUSTOMERS, TrackedTable.HOTELS})
+    @Compressed
     @Path("/customerId/{customerId:[0-9]+}")
     @Operation(
             summary = "Fetch a Booking by customerId",
-            description = "Returns a JSON representation of the Booking object with the provided customerId."
+            description = "Returns a JSON representation of the Booking object with the provided customerId,"
+                    + " followed by the archived ones with includeHistory=true."
     )
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description ="Booking found"),
@@ -79,21 +135,30 @@ public class BookingRestService {
             @Parameter(description = "CustomerId of Booking to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("customerId")
-            long customerId) {
-        List<Booking> booking = service.findByCustomerId(customerId);
+            long customerId,
+            @QueryParam("fields")
+            String fields,
+            @Parameter(description = "Also return archived Bookings")
+            @QueryParam("includeHistory")
+            boolean includeHistory) {
+        FieldSet selected = Booking.FIELDS.parse(fields);
+        Object booking = selected == null ? service.findByCustomerId(customerId, includeHistory)
+                : service.findByCustomerId(customerId, selected, includeHistory);
         if (booking == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        log.info("findById " + customerId + ": found Booking = " + booking);
+        log.debug("findByCustomerId", "customerId", customerId);
         return Response.ok(booking).build();
     }
 
     @POST
+    @RateLimited("bookings")
     @Operation(description = "Add a new Booking to the database")
     @APIResponses(value = {
             @APIResponse(responseCode = "201", description = "Booking created successfully."),
             @APIResponse(responseCode = "400", description = "Invalid Booking supplied in request body"),
             @APIResponse(responseCode = "409", description = "Booking supplied in request body conflicts with an existing Booking"),
+            @APIResponse(responseCode = "429", description = "Too many requests from the client, retry after the Retry-After delay"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
     @Transactional
@@ -115,7 +180,7 @@ public class BookingRestService {
         }catch (Exception e) {
             return handleException(e);
         }
-        log.info("createBooking completed. Booking = " + booking);
+        log.info("createBooking completed", "id", booking.getId());
         return builder.build();
     }
 
@@ -127,14 +192,19 @@ public class BookingRestService {
             @APIResponse(responseCode = "400", description = "Invalid Booking supplied in request body"),
             @APIResponse(responseCode = "404", description = "Booking with id not found"),
             @APIResponse(responseCode = "409", description = "Booking details supplied in request body conflict with another existing Booking"),
+            @APIResponse(responseCode = "412", description = "The Booking has been modified since the version named in If-Match"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
     @Transactional
+    @RetryOnConflict
     public Response updateBooking(
             @Parameter(description = "Id of Booking to be updated", required = true)
             @Schema(minimum = "0")
             @PathParam("id")
             long id,
+            @Parameter(description = "ETag of the Booking version being replaced; omit to update unconditionally")
+            @HeaderParam(HttpHeaders.IF_MATCH)
+            String ifMatch,
             @Parameter(description = "JSON representation of Booking object to be updated in the database", required = true)
             Booking booking) {
         if (booking == null || booking.getId() == null) {
@@ -146,8 +216,12 @@ public class BookingRestService {
         }
 
         try {
-            service.update(id, booking);
-            return Response.ok(booking).build();
+            booking.setVersion(EntityTags.expectedVersion(ifMatch));
+            Booking updated = service.update(id, booking);
+            if (updated == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return Response.ok(updated).tag(EntityTags.of(updated.getVersion())).build();
         } catch (Exception e) {
             return handleException(e);
         }
@@ -177,18 +251,25 @@ public class BookingRestService {
     }
 
     private void handleCustomerNotExistException(CustomerNotExist e) {
-        Map<String, String> responseObj = new HashMap<>();
-        responseObj.put("customer", "That Customer Not Exist,can not create ");
-        throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        throw new RestServiceException("Bad Request", ErrorReasons.CUSTOMER_NOT_EXIST, Response.Status.CONFLICT, e);
     }
 
     private void handleHotelNotExistException(HotelNotExist e) {
-        Map<String, String> responseObj = new HashMap<>();
-        responseObj.put("hotel", "That Hotel Not Exist,can not create ");
-        throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        throw new RestServiceException("Bad Request", ErrorReasons.HOTEL_NOT_EXIST, Response.Status.CONFLICT, e);
     }
 
     private Response handleException(Exception e) {
+        if (e instanceof OptimisticLockException) {
+            // Lost a race with a concurrent update, RetryOnConflict runs the transaction again
+            throw (OptimisticLockException) e;
+        }
+        if (e instanceof StaleVersionException) {
+            StaleVersionException sve = (StaleVersionException) e;
+            return Response.status(Response.Status.PRECONDITION_FAILED)
+                    .tag(EntityTags.of(sve.getCurrentVersion()))
+                    .entity(ErrorReasons.STALE_VERSION)
+                    .build();
+        }
         if (e instanceof BookingServiceException) {
             BookingServiceException bse = (BookingServiceException) e;
             return Response.status(bse.getStatus()).entity(bse.getResponseObject()).build();
@@ -2,22 +2,31 @@ package uk.ac.newcastle.enterprisemiddleware.booking;
 
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
 import uk.ac.newcastle.enterprisemiddleware.hotel.HotelService;
+import uk.ac.newcastle.enterprisemiddleware.hotel.HotelServiceException;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.metrics.Monitored;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 
 import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.ws.rs.ClientErrorException;
-import javax.ws.rs.core.Response;
+import javax.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 @Dependent
+@Monitored
+@Traced("service")
 public class BookingService {
 
     @Inject
     @Named("logger")
-    private Logger log;
+    private StructuredLogger log;
 
     @Inject
     private BookingValidator validator;
@@ -25,9 +34,15 @@ public class BookingService {
     @Inject
     private BookingRepository crud;
 
+    @Inject
+    HotelService hotelService;
+
     @RestClient
     AreaService areaService;
 
+    @Inject
+    Event<BookingChange> bookingChanges;
+
     public List<Booking> findAll() {
         return crud.findAll();
     }
@@ -36,33 +51,112 @@ public class BookingService {
         return crud.findById(id);
     }
 
-    List<Booking> findByCustomerId(long customerId) {
-        return crud.findByCustomerId(customerId);
+    /**
+     * <p>Returns every Booking, followed by the archived ones if history is asked for.</p>
+     */
+    public List<Booking> findAll(boolean includeHistory) {
+        List<Booking> bookings = crud.findAll();
+        return includeHistory ? union(bookings, crud.findArchived()) : bookings;
+    }
+
+    public Booking findById(Long id, boolean includeHistory) {
+        Booking booking = crud.findById(id);
+        return booking == null && includeHistory ? crud.findArchivedById(id) : booking;
+    }
+
+    List<Booking> findByCustomerId(long customerId, boolean includeHistory) {
+        List<Booking> bookings = crud.findByCustomerId(customerId);
+        return includeHistory ? union(bookings, crud.findArchivedByCustomerId(customerId)) : bookings;
+    }
+
+    public Projection findAll(FieldSet fields, boolean includeHistory) {
+        return crud.findAll(fields, includeHistory);
+    }
+
+    public Projection findById(Long id, FieldSet fields, boolean includeHistory) {
+        return crud.findById(id, fields, includeHistory);
+    }
+
+    Projection findByCustomerId(long customerId, FieldSet fields, boolean includeHistory) {
+        return crud.findByCustomerId(customerId, fields, includeHistory);
+    }
+
+    /**
+     * <p>Moves one batch of past Bookings to the archive, in a transaction of its own.</p>
+     *
+     * @see BookingRepository#archive(LocalDate, int)
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int archive(LocalDate cutoff, int limit) {
+        return crud.archive(cutoff, limit);
+    }
+
+    /**
+     * <p>Deletes one chunk of the Bookings of a Hotel or Customer, in a transaction of its own, and publishes each
+     * deletion on the change feed once it commits.</p>
+     *
+     * @see BookingRepository#purge(String, Long, int)
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int purge(String owner, Long ownerId, int limit) {
+        List<Long[]> deleted = crud.purge(owner, ownerId, limit);
+        for (Long[] booking : deleted) {
+            bookingChanges.fire(BookingChange.deleted(booking[0], booking[1]));
+        }
+        return deleted.size();
+    }
+
+    /**
+     * <p>Deletes one chunk of the archived Bookings of a Hotel or Customer, in a transaction of its own.</p>
+     *
+     * @see BookingRepository#purgeArchived(String, Long, int)
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int purgeArchived(String owner, Long ownerId, int limit) {
+        return crud.purgeArchived(owner, ownerId, limit);
     }
 
     public Booking create(Booking booking) throws InvalidBookingException, InvalidHotelException {
-        log.info("BookingService.create() - Creating booking with ID: " + booking.getId());
+        log.info("BookingService.create()");
 
         validateBooking(booking);
         checkHotelAvailability(booking);
 
         crud.create(booking);
+        bookingChanges.fire(BookingChange.created(booking));
         return booking;
     }
 
-    public void update(Long id, Booking booking) throws InvalidBookingException, InvalidHotelException {
-        log.info("BookingService.update() - Updating booking with ID: " + id);
+    public Booking update(Long id, Booking booking) throws InvalidBookingException, InvalidHotelException {
+        log.info("BookingService.update()", "id", id);
 
         validateBooking(booking);
         checkHotelAvailability(booking);
 
-        crud.update(id, booking);
+        // The managed Booking, whose Customer the update may be about to replace
+        Booking current = crud.findById(id);
+        Long previousCustomerId = current == null ? null : current.getCustomer().getId();
+        Booking updated = crud.update(id, booking);
+        if (updated != null) {
+            bookingChanges.fire(BookingChange.updated(updated, previousCustomerId));
+        }
+        return updated;
     }
 
     public void delete(Long id) throws Exception {
-        log.info("BookingService.delete() - Deleting booking with ID: " + id);
+        log.info("BookingService.delete()", "id", id);
+
+        Booking deleted = crud.delete(id);
+        if (deleted != null) {
+            bookingChanges.fire(BookingChange.deleted(id, deleted.getCustomer().getId()));
+        }
+    }
 
-        crud.delete(id);
+    private static List<Booking> union(List<Booking> hot, List<Booking> archived) {
+        List<Booking> bookings = new ArrayList<>(hot.size() + archived.size());
+        bookings.addAll(hot);
+        bookings.addAll(archived);
+        return bookings;
     }
 
     private void validateBooking(Booking booking) throws InvalidBookingException {
@@ -71,18 +165,14 @@ public class BookingService {
 
     private void checkHotelAvailability(Booking booking) throws InvalidHotelException {
         try {
-            HotelService hotelService = new HotelService();
             hotelService.checkHotelAvailability(
                     booking.getHotel().getId(),
                     booking.getCheckInDate(),
-                    booking.getCheckOutDate()
+                    booking.getCheckOutDate(),
+                    booking.getId()
             );
-        } catch (ClientErrorException e) {
-            if (e.getResponse().getStatusInfo() == Response.Status.NOT_FOUND) {
-                throw new InvalidHotelException("The hotel with ID " + booking.getHotel().getId() + " does not exist", e);
-            } else {
-                throw e;
-            }
+        } catch (HotelServiceException e) {
+            throw new BookingServiceException(e.getMessage(), e.getStatus(), e.getResponseObject());
         }
     }
 }
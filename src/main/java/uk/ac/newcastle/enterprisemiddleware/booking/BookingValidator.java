@@ -5,6 +5,7 @@ import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.customer.CustomerRepository;
 import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
 import uk.ac.newcastle.enterprisemiddleware.hotel.HotelRepository;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 import uk.ac.newcastle.enterprisemiddleware.util.CustomerNotExist;
 import uk.ac.newcastle.enterprisemiddleware.util.HotelNotExist;
 import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
@@ -12,28 +13,19 @@ import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.NoResultException;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
-import javax.validation.Validator;
-import java.util.HashSet;
-import java.util.Set;
 
 @ApplicationScoped
+@Traced("validator")
 public class BookingValidator {
 
-    @Inject
-    Validator validator;
-
     @Inject
     CustomerRepository customercrud;
     @Inject
     HotelRepository hotlecrud;
     void validateBooking(Booking booking) throws ConstraintViolationException {
-        Set<ConstraintViolation<Booking>> violations = validator.validate(booking);
-
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<>(violations));
-        }
+        // Booking declares no Bean Validation constraints (its not-null rules are column definitions), so there is
+        // nothing to check reflectively here; the existence checks below are the validation.
         Customer customer = CustomerNotExists(booking.getCustomer().getId());
         if (customer == null) {
             throw new CustomerNotExist("Customer not Exist");
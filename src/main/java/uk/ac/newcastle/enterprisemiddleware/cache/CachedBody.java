@@ -0,0 +1,85 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import uk.ac.newcastle.enterprisemiddleware.codec.Codec;
+import uk.ac.newcastle.enterprisemiddleware.compression.ContentCoding;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * <p>A response entity that has already been serialised, in one of the {@link Codec} representations, into a shared,
+ * read-only buffer, along with its compressed forms when it is large enough to have any.</p>
+ *
+ * @see CachedBodyWriter
+ * @see ResponseCache
+ */
+public final class CachedBody {
+
+    private final ByteBuffer body;
+    private final Codec codec;
+    private final Map<ContentCoding, ByteBuffer> encoded;
+    private final ContentCoding coding;
+
+    CachedBody(ByteBuffer body, Codec codec, Map<ContentCoding, ByteBuffer> encoded) {
+        this(body, codec, encoded, null);
+    }
+
+    private CachedBody(ByteBuffer body, Codec codec, Map<ContentCoding, ByteBuffer> encoded, ContentCoding coding) {
+        this.body = body;
+        this.codec = codec;
+        this.encoded = encoded;
+        this.coding = coding;
+    }
+
+    /**
+     * <p>Builds the 200 response for this body: compressed with the client's preferred stored coding, if there is
+     * one, otherwise as it is.</p>
+     *
+     * @param acceptEncoding The request's {@code Accept-Encoding} header, or null
+     * @return The response
+     */
+    public Response toResponse(String acceptEncoding) {
+        ContentCoding preferred = ContentCoding.negotiate(acceptEncoding, encoded.keySet());
+        Response.ResponseBuilder response = Response.ok(new CachedBody(body, codec, encoded, preferred), codec.mediaType())
+                .header(HttpHeaders.VARY, "Accept-Encoding");
+        if (preferred != null) {
+            response.header("Content-Encoding", preferred.token());
+        }
+        return response.build();
+    }
+
+    /**
+     * <p>Returns a view of the body, in the coding chosen by {@link #toResponse(String)}, with its own position and
+     * limit, so that concurrent responses can read the same buffer.</p>
+     *
+     * @return A read-only view of the serialised body
+     */
+    public ByteBuffer body() {
+        return (coding == null ? body : encoded.get(coding)).duplicate();
+    }
+
+    /**
+     * @return The media type the body is encoded in, to respond with
+     */
+    public MediaType mediaType() {
+        return codec.mediaType();
+    }
+
+    public int length() {
+        return body.capacity();
+    }
+
+    /**
+     * @return The memory held by the body and its compressed forms
+     */
+    int weight() {
+        int weight = body.capacity();
+        for (ByteBuffer compressed : encoded.values()) {
+            weight += compressed.capacity();
+        }
+        return weight;
+    }
+}
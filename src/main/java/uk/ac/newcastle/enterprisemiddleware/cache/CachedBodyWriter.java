@@ -0,0 +1,64 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import org.jboss.resteasy.reactive.server.core.ResteasyReactiveRequestContext;
+import org.jboss.resteasy.reactive.server.spi.ResteasyReactiveResourceInfo;
+import org.jboss.resteasy.reactive.server.spi.ServerMessageBodyWriter;
+import org.jboss.resteasy.reactive.server.spi.ServerRequestContext;
+import uk.ac.newcastle.enterprisemiddleware.codec.BinaryMediaType;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Writes a {@link CachedBody} entity, whichever representation it holds.</p>
+ *
+ * <p>On the reactive path the buffer is handed to Vert.x wrapped, not copied, so the bytes go from the direct buffer
+ * to the socket. The plain {@link javax.ws.rs.ext.MessageBodyWriter} path, used when a writer interceptor needs an
+ * output stream, copies the bytes out in chunks.</p>
+ */
+@Provider
+@Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+public class CachedBodyWriter implements ServerMessageBodyWriter<CachedBody> {
+
+    private static final int CHUNK = 8192;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, ResteasyReactiveResourceInfo target, MediaType mediaType) {
+        return CachedBody.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeResponse(CachedBody cached, Type genericType, ServerRequestContext context) {
+        // The Vert.x response is reached through the request: ServerHttpResponse has no unwrap
+        HttpServerResponse response = ((ResteasyReactiveRequestContext) context).serverRequest()
+                .unwrap(HttpServerResponse.class);
+        response.end(Buffer.buffer(Unpooled.wrappedBuffer(cached.body())));
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return CachedBody.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(CachedBody cached, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        ByteBuffer body = cached.body();
+        byte[] chunk = new byte[Math.min(CHUNK, body.remaining())];
+        while (body.hasRemaining()) {
+            int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            entityStream.write(chunk, 0, length);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import javax.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Gives a GET endpoint strong ETags and answers {@code If-None-Match} with 304 Not Modified without calling it.</p>
+ *
+ * <p>The value lists every table the response is built from (a Booking embeds its Customer and Hotel, for example).
+ * A response holding a single versioned entity is tagged {@code "<version>;<stamp>"}. Its version part can be sent
+ * back as {@code If-Match} on a PUT. Any other response is tagged {@code "<stamp>"}.</p>
+ *
+ * @see ConditionalGetFilter
+ * @see TableVersions
+ */
+@NameBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    TrackedTable[] value();
+}
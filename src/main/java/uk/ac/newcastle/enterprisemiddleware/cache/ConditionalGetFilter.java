@@ -0,0 +1,89 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import uk.ac.newcastle.enterprisemiddleware.codec.Codec;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
+import uk.ac.newcastle.enterprisemiddleware.util.Versioned;
+
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * <p>Implements {@link ConditionalGet}.</p>
+ *
+ * <p>The request side takes the stamp of the endpoint's tables and compares it to {@code If-None-Match}. It runs
+ * after matching but before the resource method, so a 304 costs no database query. Otherwise the stamp is kept on
+ * the request and the response side turns it into the {@code ETag} of a 200, with {@code Cache-Control: no-cache} so
+ * that clients revalidate instead of guessing a lifetime.</p>
+ *
+ * <p>The stamp is suffixed with the negotiated {@link Codec}, and the tag of a compressed body with its
+ * {@code Content-Encoding} (see {@link EntityTags#withCoding}), so no two representations of a resource share a
+ * strong tag. The coding is added here when the body is already compressed, as cached bodies are, and by
+ * {@link uk.ac.newcastle.enterprisemiddleware.compression.CompressionInterceptor} when it compresses one. A 304
+ * varies with the same headers as the 200 it stands for.</p>
+ */
+@Provider
+@ConditionalGet({})
+public class ConditionalGetFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String STAMP = ConditionalGetFilter.class.getName() + ".stamp";
+
+    @Inject
+    TableVersions versions;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return;
+        }
+        ConditionalGet binding = resourceInfo.getResourceMethod().getAnnotation(ConditionalGet.class);
+        if (binding == null) {
+            binding = resourceInfo.getResourceClass().getAnnotation(ConditionalGet.class);
+        }
+        // Each representation has its own tags, and responses say they vary with Accept
+        String stamp = Codec.negotiate(request.getAcceptableMediaTypes()).tag(versions.stamp(binding.value()));
+        String matched = EntityTags.matchingStamp(request.getHeaderString(HttpHeaders.IF_NONE_MATCH), stamp);
+        if (matched != null) {
+            request.abortWith(Response.notModified(new EntityTag(matched))
+                    .cacheControl(EntityTags.REVALIDATE)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING)
+                    .build());
+            return;
+        }
+        request.setProperty(STAMP, stamp);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        String stamp = (String) request.getProperty(STAMP);
+        if (stamp == null || response.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        Object entity = response.getEntity();
+        EntityTag tag = entity instanceof Versioned
+                ? EntityTags.of(((Versioned) entity).getVersion(), stamp)
+                : EntityTags.of(stamp);
+        String coding = response.getHeaderString(HttpHeaders.CONTENT_ENCODING);
+        if (coding != null) {
+            tag = EntityTags.withCoding(tag, coding);
+        }
+        response.getHeaders().putSingle(HttpHeaders.ETAG, tag);
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (!response.getHeaders().containsKey(HttpHeaders.CACHE_CONTROL)) {
+            response.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, EntityTags.REVALIDATE);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.codec.Codec;
+import uk.ac.newcastle.enterprisemiddleware.codec.Codecs;
+import uk.ac.newcastle.enterprisemiddleware.compression.Compressor;
+import uk.ac.newcastle.enterprisemiddleware.compression.ContentCoding;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <p>Caches the serialised bodies of read-mostly GET responses, keyed by route, parameters and representation.</p>
+ *
+ * <p>Each entry is written once into a read-only direct buffer. A hit is returned as a {@link CachedBody}, which is
+ * written to the connection straight from that buffer, so serving it costs no query, no serialisation and no copy onto
+ * the heap. The cache is bounded by
+ * {@code response-cache.max-bytes} of serialised bodies and evicts with Caffeine's W-TinyLFU policy. Hit and eviction
+ * counts are published as {@code cache.*} meters tagged {@code cache=response}.</p>
+ *
+ * <p>Bodies of at least {@code compression.min-bytes} are compressed once, in every offered content coding and with
+ * the same fast settings as uncached responses, as the miss that rebuilds an entry waits for it. The compressed forms
+ * are stored alongside; a hit is served in the client's preferred coding with no compression on the request path. The
+ * compression cost is recorded against the endpoint {@code cache:<table>}.</p>
+ *
+ * <p>Keys include the {@link TableVersions} stamp of the table the response is read from, taken before the query. An
+ * entry loaded just as a write commits is therefore filed under the old stamp and never served afterwards. Entries of
+ * a table are also dropped as soon as a write to it commits, so superseded responses do not hold on to memory. As the
+ * stamp moves on every {@code cache.max-staleness}, rows written through another instance or seen late on a replica
+ * are served at most that much later; entries expire after the same time. With a max-staleness of zero nothing is
+ * cached.</p>
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    @Inject
+    Codecs codecs;
+
+    @Inject
+    TableVersions versions;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "response-cache.max-bytes", defaultValue = "16777216")
+    long maxBytes;
+
+    @Inject
+    Compressor compressor;
+
+    private Cache<Key, CachedBody> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, CachedBody body) -> body.weight())
+                .expireAfterWrite(versions.maxStaleness())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "response");
+    }
+
+    void onCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) TrackedTable table) {
+        cache.asMap().keySet().removeIf(key -> key.table == table);
+    }
+
+    /**
+     * <p>Returns the cached body of a response, loading and serialising it on a miss.</p>
+     *
+     * @param table The table the response is read from
+     * @param route The route and parameters that identify the response, e.g. {@code /hotels/byLocation/Newcastle}
+     * @param codec The representation the client negotiated
+     * @param loader Reads the response entity; returning null means there is nothing to cache or serve
+     * @return The serialised body, or null if the loader returned null
+     */
+    public CachedBody get(TrackedTable table, String route, Codec codec, Supplier<?> loader) {
+        Key key = new Key(table, versions.stamp(table), route, codec);
+        if (!versions.caching()) {
+            return load(key, loader.get());
+        }
+        return cache.get(key, k -> load(k, loader.get()));
+    }
+
+    private CachedBody load(Key key, Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = codecs.mapper(key.codec).writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<ContentCoding, ByteBuffer> encoded = new EnumMap<>(ContentCoding.class);
+        compressor.precompress("cache:" + key.table.name().toLowerCase(), bytes)
+                .forEach((coding, compressed) -> encoded.put(coding, direct(compressed)));
+        return new CachedBody(direct(bytes), key.codec, encoded);
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer body = ByteBuffer.allocateDirect(bytes.length);
+        body.put(bytes).flip();
+        return body.asReadOnlyBuffer();
+    }
+
+    private static final class Key {
+        final TrackedTable table;
+        final String stamp;
+        final String route;
+        final Codec codec;
+        private final int hash;
+
+        Key(TrackedTable table, String stamp, String route, Codec codec) {
+            this.table = table;
+            this.stamp = stamp;
+            this.route = route;
+            this.codec = codec;
+            this.hash = Objects.hash(table, stamp, route, codec);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return table == key.table && codec == key.codec && stamp.equals(key.stamp) && route.equals(key.route);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
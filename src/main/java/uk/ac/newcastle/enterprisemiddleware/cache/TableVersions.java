@@ -0,0 +1,71 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Counts committed changes per {@link TrackedTable}, as a cheap fingerprint of what a GET would return.</p>
+ *
+ * <p>A stamp is the instance's start time and the current {@code cache.max-staleness} window since then, followed by
+ * the counters of the tables a response is built from, e.g. {@code kz3x1c.4a7-12.4.7}. Comparing it to a client's
+ * {@code If-None-Match} takes no database query and no serialisation. The start time keeps two instances, or one
+ * instance before and after a restart, from handing out equal stamps for different data.</p>
+ *
+ * <p>The counters only see the writes this instance commits. Rows written by another instance, or read from a replica
+ * that has not caught up with a write yet, are not reflected in them, so the window moves the stamp on every
+ * {@code cache.max-staleness} regardless: cached bodies and 304s are never more than that out of date. With a
+ * max-staleness of zero every stamp is new, and nothing is cached or revalidated.</p>
+ *
+ * <p>Counters move after the commit, and the stamp is taken before the data is read, so a response is never tagged
+ * with a newer stamp than its content.</p>
+ */
+@ApplicationScoped
+public class TableVersions {
+
+    private final long start = System.currentTimeMillis();
+
+    private final String epoch = Long.toString(start, Character.MAX_RADIX);
+
+    private final AtomicLongArray counters = new AtomicLongArray(TrackedTable.values().length);
+
+    @ConfigProperty(name = "cache.max-staleness", defaultValue = "PT5S")
+    Duration maxStaleness;
+
+    void onCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) TrackedTable table) {
+        counters.incrementAndGet(table.ordinal());
+    }
+
+    /**
+     * <p>Returns the current stamp of one or more tables.</p>
+     *
+     * @param tables The tables the response is built from
+     * @return The stamp, without quotes
+     */
+    public String stamp(TrackedTable... tables) {
+        long window = caching() ? (System.currentTimeMillis() - start) / maxStaleness.toMillis() : System.nanoTime();
+        StringBuilder stamp = new StringBuilder(epoch.length() + 8 + 8 * tables.length)
+                .append(epoch).append('.').append(Long.toString(window, Character.MAX_RADIX));
+        char separator = '-';
+        for (TrackedTable table : tables) {
+            stamp.append(separator).append(counters.get(table.ordinal()));
+            separator = '.';
+        }
+        return stamp.toString();
+    }
+
+    Duration maxStaleness() {
+        return maxStaleness;
+    }
+
+    /**
+     * @return false if {@code cache.max-staleness} is zero, so responses must not be cached
+     */
+    public boolean caching() {
+        return maxStaleness.toMillis() > 0;
+    }
+}
@@ -0,0 +1,13 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+/**
+ * <p>The tables whose changes are counted by {@link TableVersions}.</p>
+ *
+ * <p>A repository fires the table it wrote to as a CDI event; the count moves once the transaction commits.</p>
+ */
+public enum TrackedTable {
+    HOTELS,
+    CUSTOMERS,
+    BOOKINGS,
+    CONTACTS
+}
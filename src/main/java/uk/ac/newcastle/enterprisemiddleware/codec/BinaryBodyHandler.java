@@ -0,0 +1,61 @@
+package uk.ac.newcastle.enterprisemiddleware.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.ac.newcastle.enterprisemiddleware.cache.CachedBody;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * <p>Reads and writes request and response entities as CBOR or Smile, with the mappers of {@link Codecs}.</p>
+ *
+ * <p>Resources opt in by listing the binary types in their {@code @Produces} and {@code @Consumes}; the
+ * {@code Accept} and {@code Content-Type} headers then pick the representation, and JSON stays the default.</p>
+ */
+@Provider
+@Produces({BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+@Consumes({BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+public class BinaryBodyHandler implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+
+    @Inject
+    Codecs codecs;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isBinary(mediaType) && !CachedBody.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        codecs.mapper(Codec.of(mediaType)).writeValue(entityStream, entity);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isBinary(mediaType);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = codecs.mapper(Codec.of(mediaType));
+        return mapper.readerFor(mapper.constructType(genericType)).readValue(entityStream);
+    }
+
+    private static boolean isBinary(MediaType mediaType) {
+        Codec codec = Codec.of(mediaType);
+        return codec != null && codec != Codec.JSON;
+    }
+}
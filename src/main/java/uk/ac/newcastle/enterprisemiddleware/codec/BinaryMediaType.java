@@ -0,0 +1,24 @@
+package uk.ac.newcastle.enterprisemiddleware.codec;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * <p>The binary representations the API offers alongside JSON, for {@code @Produces} and {@code @Consumes}.</p>
+ */
+public final class BinaryMediaType {
+
+    /**
+     * <p>CBOR, RFC 8949.</p>
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+    /**
+     * <p>Jackson's Smile format, a binary JSON with back references to repeated property names.</p>
+     */
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE_TYPE = MediaType.valueOf(APPLICATION_SMILE);
+
+    private BinaryMediaType() {
+    }
+}
@@ -0,0 +1,69 @@
+package uk.ac.newcastle.enterprisemiddleware.codec;
+
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+
+/**
+ * <p>The representations an entity can be encoded in. All of them are written by Jackson from the same entity
+ * mappings, so a field has the same name and value in each.</p>
+ */
+public enum Codec {
+    JSON(MediaType.APPLICATION_JSON_TYPE),
+    CBOR(BinaryMediaType.APPLICATION_CBOR_TYPE),
+    SMILE(BinaryMediaType.APPLICATION_SMILE_TYPE);
+
+    private final MediaType mediaType;
+    private final String tagSuffix;
+
+    Codec(MediaType mediaType) {
+        this.mediaType = mediaType;
+        this.tagSuffix = "+" + name().toLowerCase();
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param mediaType A media type, with or without parameters
+     * @return The codec for it, or null if it is not one of ours
+     */
+    public static Codec of(MediaType mediaType) {
+        for (Codec codec : values()) {
+            if (codec.mediaType.isCompatible(mediaType) && !mediaType.isWildcardType() && !mediaType.isWildcardSubtype()) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>Picks the codec of a response the way the {@code @Produces} negotiation does: the first of the client's
+     * acceptable types, in order of preference, that one of the codecs can write. JSON wins any wildcard, and is the
+     * fallback when nothing matches.</p>
+     *
+     * @param acceptable The request's acceptable media types, sorted by preference
+     * @return The codec to respond with
+     */
+    public static Codec negotiate(List<MediaType> acceptable) {
+        for (MediaType type : acceptable) {
+            for (Codec codec : values()) {
+                if (type.isCompatible(codec.mediaType)) {
+                    return codec;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * <p>Distinguishes an entity tag between representations, as strong tags must. JSON tags are left as they
+     * are.</p>
+     *
+     * @param stamp A table stamp
+     * @return The stamp to tag this codec's representation with
+     */
+    public String tag(String stamp) {
+        return this == JSON ? stamp : stamp + tagSuffix;
+    }
+}
@@ -0,0 +1,67 @@
+package uk.ac.newcastle.enterprisemiddleware.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.quarkus.jackson.ObjectMapperCustomizer;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>One ObjectMapper per {@link Codec}.</p>
+ *
+ * <p>JSON uses the mapper Quarkus produces for RESTEasy Reactive. The binary mappers are built the same way over
+ * their own factories: the same features, and every {@link ObjectMapperCustomizer} applied in priority order, so
+ * they pick up the same modules (java.time among them) and settings.</p>
+ */
+@ApplicationScoped
+public class Codecs {
+
+    @Inject
+    ObjectMapper json;
+
+    @Inject
+    Instance<ObjectMapperCustomizer> customizers;
+
+    private final Map<Codec, ObjectMapper> mappers = new EnumMap<>(Codec.class);
+
+    @PostConstruct
+    void init() {
+        mappers.put(Codec.JSON, json);
+        mappers.put(Codec.CBOR, binary(new CBORFactory()));
+        mappers.put(Codec.SMILE, binary(new SmileFactory()));
+    }
+
+    public ObjectMapper mapper(Codec codec) {
+        return mappers.get(codec);
+    }
+
+    private ObjectMapper binary(JsonFactory factory) {
+        // The body streams belong to the container, which closes them itself
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        factory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        ObjectMapper mapper = new ObjectMapper(factory)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        List<ObjectMapperCustomizer> ordered = new ArrayList<>();
+        customizers.forEach(ordered::add);
+        Collections.sort(ordered);
+        for (ObjectMapperCustomizer customizer : ordered) {
+            customizer.customize(mapper);
+        }
+        return mapper;
+    }
+}
@@ -0,0 +1,23 @@
+package uk.ac.newcastle.enterprisemiddleware.compression;
+
+import javax.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Compresses the response body of a resource method, when the client accepts it and the body is at least
+ * {@code compression.min-bytes} long.</p>
+ *
+ * <p>Meant for endpoints with large bodies that are serialised per request. Responses from the
+ * {@link uk.ac.newcastle.enterprisemiddleware.cache.ResponseCache} are stored precompressed instead, and must not be
+ * bound to this, since any writer interceptor takes them off their zero-copy write path.</p>
+ *
+ * @see CompressionInterceptor
+ */
+@NameBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Compressed {
+}
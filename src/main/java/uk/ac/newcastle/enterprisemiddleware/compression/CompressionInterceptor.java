@@ -0,0 +1,69 @@
+package uk.ac.newcastle.enterprisemiddleware.compression;
+
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * <p>Implements {@link Compressed}.</p>
+ *
+ * <p>The coding is negotiated before the body is written, but the decision to use it waits until
+ * {@code compression.min-bytes} of body have been written: a smaller body goes out as it is, without a
+ * {@code Content-Encoding}. Either way the response varies with {@code Accept-Encoding}. The {@code ETag} of a
+ * compressed body names its coding.</p>
+ */
+@Provider
+@Compressed
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    @Inject
+    Compressor compressor;
+
+    @Context
+    HttpHeaders requestHeaders;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        headers.add(HttpHeaders.VARY, "Accept-Encoding");
+        ContentCoding coding = compressor.negotiate(requestHeaders.getHeaderString("Accept-Encoding"));
+        if (coding == null || headers.containsKey("Content-Encoding")) {
+            context.proceed();
+            return;
+        }
+
+        ThresholdOutputStream body = new ThresholdOutputStream(context.getOutputStream(), compressor.minBytes(), raw -> {
+            headers.putSingle("Content-Encoding", coding.token());
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            Object tag = headers.getFirst(HttpHeaders.ETAG);
+            if (tag instanceof EntityTag) {
+                headers.putSingle(HttpHeaders.ETAG, EntityTags.withCoding((EntityTag) tag, coding.token()));
+            }
+            return compressor.encoder(coding, raw);
+        });
+        context.setOutputStream(body);
+        context.proceed();
+        body.finish();
+
+        if (body.isEncoded()) {
+            String endpoint = resourceInfo.getResourceClass().getSimpleName() + '.'
+                    + resourceInfo.getResourceMethod().getName();
+            compressor.record(endpoint, coding, body.encodingNanos(), body.bytesIn(), body.bytesOut());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package uk.ac.newcastle.enterprisemiddleware.compression;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Compresses response bodies, and measures what that costs.</p>
+ *
+ * <p>gzip is always offered. Brotli is offered when {@code compression.brotli.enabled} is set and the brotli4j native
+ * library loads on this platform. Every body is compressed with fast settings (gzip level 6, brotli quality 4): those
+ * written per request because the client waits for them, and those compressed for the response cache because the
+ * cache rebuilds its entries on the request thread every {@code cache.max-staleness} and after every write to their
+ * table, where the best settings (gzip level 9, brotli quality 11) cost many times the CPU for a few percent fewer
+ * bytes.</p>
+ *
+ * <p>Each compression is recorded in the {@code http.compression} timer, tagged with the endpoint and coding, and
+ * its input and output sizes in the {@code http.compression.bytes} counters, so the CPU cost per endpoint can be
+ * weighed against the bytes saved.</p>
+ */
+@ApplicationScoped
+public class Compressor {
+
+    static final String TIMER = "http.compression";
+    static final String BYTES = "http.compression.bytes";
+
+    private static final int GZIP_LEVEL = 6;
+    private static final int BROTLI_QUALITY = 4;
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "compression.min-bytes", defaultValue = "1024")
+    int minBytes;
+
+    @ConfigProperty(name = "compression.brotli.enabled", defaultValue = "true")
+    boolean brotliEnabled;
+
+    private Set<ContentCoding> offered;
+
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        Set<ContentCoding> codings = EnumSet.of(ContentCoding.GZIP);
+        if (brotliEnabled && brotliAvailable()) {
+            codings.add(ContentCoding.BROTLI);
+        }
+        offered = Collections.unmodifiableSet(codings);
+        log.info("Response compression", "codings", offered, "minBytes", minBytes);
+    }
+
+    /**
+     * @return The smallest body worth compressing
+     */
+    public int minBytes() {
+        return minBytes;
+    }
+
+    /**
+     * @param acceptEncoding The request's {@code Accept-Encoding} header, or null
+     * @return The coding to compress the response with, or null for none
+     */
+    public ContentCoding negotiate(String acceptEncoding) {
+        return ContentCoding.negotiate(acceptEncoding, offered);
+    }
+
+    /**
+     * <p>Compresses a body once in every offered coding, for storing alongside it.</p>
+     *
+     * @param endpoint The endpoint the cost is recorded against
+     * @param body The uncompressed body
+     * @return The compressed forms that are smaller than the body; none if it is under {@code compression.min-bytes}
+     */
+    public Map<ContentCoding, byte[]> precompress(String endpoint, byte[] body) {
+        Map<ContentCoding, byte[]> encoded = new EnumMap<>(ContentCoding.class);
+        if (body.length < minBytes) {
+            return encoded;
+        }
+        for (ContentCoding coding : offered) {
+            long start = System.nanoTime();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+            try (OutputStream encoder = encoder(coding, out)) {
+                encoder.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            record(endpoint, coding, System.nanoTime() - start, body.length, out.size());
+            if (out.size() < body.length) {
+                encoded.put(coding, out.toByteArray());
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * <p>Opens an encoder over a stream. Closing the encoder finishes the encoding and closes the stream.</p>
+     *
+     * @param coding The coding to encode with
+     * @param out The stream to write the encoded bytes to
+     * @return The encoder
+     * @throws UncheckedIOException If the encoder cannot be opened
+     */
+    OutputStream encoder(ContentCoding coding, OutputStream out) {
+        try {
+            if (coding == ContentCoding.BROTLI) {
+                Encoder.Parameters parameters = new Encoder.Parameters().setQuality(BROTLI_QUALITY);
+                return new BrotliOutputStream(out, parameters);
+            }
+            return new LeveledGzipOutputStream(out, GZIP_LEVEL);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void record(String endpoint, ContentCoding coding, long nanos, long bytesIn, long bytesOut) {
+        Meters endpointMeters = meters.computeIfAbsent(endpoint + ' ' + coding, key -> new Meters(endpoint, coding));
+        endpointMeters.time.record(nanos, TimeUnit.NANOSECONDS);
+        endpointMeters.in.increment(bytesIn);
+        endpointMeters.out.increment(bytesOut);
+    }
+
+    private boolean brotliAvailable() {
+        try {
+            return Brotli4jLoader.isAvailable();
+        } catch (LinkageError e) {
+            log.warn("Brotli unavailable", "reason", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private final class Meters {
+        final Timer time;
+        final Counter in;
+        final Counter out;
+
+        Meters(String endpoint, ContentCoding coding) {
+            time = Timer.builder(TIMER)
+                    .description("Time spent compressing response bodies")
+                    .tag("endpoint", endpoint)
+                    .tag("coding", coding.token())
+                    .register(registry);
+            in = bytes(endpoint, coding, "in");
+            out = bytes(endpoint, coding, "out");
+        }
+
+        private Counter bytes(String endpoint, ContentCoding coding, String direction) {
+            return Counter.builder(BYTES)
+                    .description("Response body bytes before (in) and after (out) compression")
+                    .baseUnit("bytes")
+                    .tag("endpoint", endpoint)
+                    .tag("coding", coding.token())
+                    .tag("direction", direction)
+                    .register(registry);
+        }
+    }
+
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package uk.ac.newcastle.enterprisemiddleware.compression;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>The content codings responses can be compressed with, in order of preference when a client accepts several
+ * equally.</p>
+ */
+public enum ContentCoding {
+    BROTLI("br"),
+    GZIP("gzip");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return The {@code Content-Encoding} token
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * <p>Picks a coding from an {@code Accept-Encoding} header (RFC 9110 section 12.5.3): the offered coding with the
+     * highest quality value, explicitly or through {@code *}. A quality of zero refuses a coding.</p>
+     *
+     * @param acceptEncoding The raw header value, or null
+     * @param offered The codings that can be produced
+     * @return The coding to use, or null to send the body as it is
+     */
+    public static ContentCoding negotiate(String acceptEncoding, Set<ContentCoding> offered) {
+        if (acceptEncoding == null || offered.isEmpty()) {
+            return null;
+        }
+        Map<ContentCoding, Float> accepted = new EnumMap<>(ContentCoding.class);
+        float wildcard = 0f;
+        for (String element : acceptEncoding.split(",")) {
+            String[] params = element.split(";");
+            String token = params[0].trim().toLowerCase(Locale.ROOT);
+            float quality = 1f;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0f;
+                    }
+                }
+            }
+            if (token.equals("*")) {
+                wildcard = quality;
+            }
+            for (ContentCoding coding : values()) {
+                if (coding.token.equals(token)) {
+                    accepted.put(coding, quality);
+                }
+            }
+        }
+
+        ContentCoding best = null;
+        float bestQuality = 0f;
+        for (ContentCoding coding : values()) {
+            float quality = accepted.getOrDefault(coding, wildcard);
+            if (offered.contains(coding) && quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+}
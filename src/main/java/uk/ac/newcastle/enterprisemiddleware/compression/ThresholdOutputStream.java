@@ -0,0 +1,125 @@
+package uk.ac.newcastle.enterprisemiddleware.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * <p>Holds back the first {@code threshold} bytes of a body. A body that ends before then is written as it is; one
+ * that reaches it is switched, once, to an encoder over the underlying stream, with the held bytes written first.</p>
+ *
+ * <p>The time spent in the encoder, and the bytes going into it and coming out of it, are counted.</p>
+ */
+final class ThresholdOutputStream extends OutputStream {
+
+    private final CountingOutputStream raw;
+    private final int threshold;
+    private final Function<OutputStream, OutputStream> encoder;
+
+    private ByteArrayOutputStream held;
+    private OutputStream encoded;
+    private long encodingNanos;
+    private long bytesIn;
+
+    ThresholdOutputStream(OutputStream raw, int threshold, Function<OutputStream, OutputStream> encoder) {
+        this.raw = new CountingOutputStream(raw);
+        this.threshold = threshold;
+        this.encoder = encoder;
+        this.held = new ByteArrayOutputStream(Math.min(threshold, 8192));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        bytesIn += len;
+        if (encoded != null) {
+            encode(b, off, len);
+            return;
+        }
+        held.write(b, off, len);
+        if (held.size() >= threshold) {
+            try {
+                encoded = encoder.apply(raw);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            byte[] bytes = held.toByteArray();
+            held = null;
+            encode(bytes, 0, bytes.length);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Flushing an encoder mid-body costs ratio for no benefit, the container sends the body when it is done
+    }
+
+    /**
+     * <p>Writes out whatever is held back, or finishes the encoding. The underlying stream is left open.</p>
+     */
+    void finish() throws IOException {
+        if (encoded == null) {
+            held.writeTo(raw);
+            return;
+        }
+        long start = System.nanoTime();
+        encoded.close();
+        encodingNanos += System.nanoTime() - start;
+    }
+
+    boolean isEncoded() {
+        return encoded != null;
+    }
+
+    long encodingNanos() {
+        return encodingNanos;
+    }
+
+    long bytesIn() {
+        return bytesIn;
+    }
+
+    long bytesOut() {
+        return raw.count;
+    }
+
+    private void encode(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        encoded.write(b, off, len);
+        encodingNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * <p>Counts what reaches the underlying stream, and keeps encoders from closing it.</p>
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
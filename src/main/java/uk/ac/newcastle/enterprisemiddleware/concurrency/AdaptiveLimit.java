@@ -0,0 +1,104 @@
+package uk.ac.newcastle.enterprisemiddleware.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A concurrency limit that follows the latency of the requests it lets through, by additive increase and
+ * multiplicative decrease (AIMD), as TCP does with its congestion window.</p>
+ *
+ * <p>Each request that completes within {@code threshold} while the limit is at least half used adds
+ * {@code 1 / limit}, so under steady load the limit grows by about one per limit's worth of requests. A request
+ * slower than {@code threshold} multiplies the limit by {@code backoff}, at most once per {@code threshold}, so a
+ * burst of slow completions backs off once rather than collapsing the limit. The limit stays between {@code min} and
+ * {@code max}.</p>
+ *
+ * <p>Critical requests may use the whole limit, sheddable ones only {@code sheddableShare} of it, so as load rises
+ * sheddable requests are turned away first and critical ones always keep the rest of the slots.</p>
+ */
+public final class AdaptiveLimit {
+
+    private final int min;
+    private final int max;
+    private final long threshold;
+    private final double backoff;
+    private final double sheddableShare;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private long lastDecrease;
+
+    /**
+     * @param initial The limit to start from
+     * @param min The lowest the limit goes
+     * @param max The highest the limit goes
+     * @param threshold The latency in nanoseconds above which a request counts as a sign of overload
+     * @param backoff The factor the limit is multiplied by on overload, between 0 and 1
+     * @param sheddableShare The share of the limit sheddable requests may use, between 0 and 1
+     */
+    public AdaptiveLimit(int initial, int min, int max, long threshold, double backoff, double sheddableShare) {
+        if (min < 1 || min > max || backoff <= 0 || backoff >= 1 || sheddableShare <= 0 || sheddableShare > 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings");
+        }
+        this.min = min;
+        this.max = max;
+        this.threshold = threshold;
+        this.backoff = backoff;
+        this.sheddableShare = sheddableShare;
+        this.limit = Math.max(min, Math.min(max, initial));
+        this.lastDecrease = System.nanoTime() - threshold;
+    }
+
+    /**
+     * <p>Takes a slot if the limit allows it. A slot taken must be given back with {@link #release(long)}.</p>
+     *
+     * @param critical Whether the request may use the whole limit
+     * @return true if a slot was taken, false if the request should be shed
+     */
+    public boolean tryAcquire(boolean critical) {
+        double current = limit;
+        int allowed = critical ? (int) current : Math.max(1, (int) (current * sheddableShare));
+        while (true) {
+            int used = inFlight.get();
+            if (used >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(used, used + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * <p>Gives a slot back and adjusts the limit to the latency of its request.</p>
+     *
+     * @param latency The nanoseconds the request took
+     */
+    public void release(long latency) {
+        int used = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (latency > threshold) {
+                long now = System.nanoTime();
+                if (now - lastDecrease >= threshold) {
+                    lastDecrease = now;
+                    limit = Math.max(min, limit * backoff);
+                }
+            } else if (used * 2 >= limit) {
+                limit = Math.min(max, limit + 1 / limit);
+            }
+        }
+    }
+
+    /**
+     * @return The current limit, rounded down
+     */
+    public int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return The requests holding a slot
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
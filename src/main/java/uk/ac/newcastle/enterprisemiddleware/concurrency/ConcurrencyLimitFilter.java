@@ -0,0 +1,115 @@
+package uk.ac.newcastle.enterprisemiddleware.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.spi.ResteasyReactiveContainerRequestContext;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorMessage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.time.Duration;
+
+/**
+ * <p>Sheds load before it queues up on the database: every request to a resource takes a slot of an
+ * {@link AdaptiveLimit} until its response is complete, and is answered 503 Service Unavailable with a
+ * {@code Retry-After} header if none is free. The slot is given back from a completion callback of the request, so it
+ * is released whether the request ends in a response, a mapped error or an exception no mapper handles.</p>
+ *
+ * <p>When the database slows down, requests take longer, the limit backs off and the excess is turned away at once,
+ * instead of every request waiting on the connection pool until all of them are slow. Writes (bookings, guest
+ * bookings and the other POST, PUT and DELETE requests) are critical and may use the whole limit; reads of the
+ * catalogue are shed first, once they hold {@code concurrency-limit.read-share} of it.</p>
+ *
+ * <p>The limit, the requests in flight and the requests shed are published as {@code concurrency_limit.*} meters.
+ * Endpoints marked {@link Unlimited} are let through untouched.</p>
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION + 100)
+public class ConcurrencyLimitFilter implements ContainerRequestFilter {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @ConfigProperty(name = "concurrency-limit.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "concurrency-limit.initial", defaultValue = "20")
+    int initial;
+
+    @ConfigProperty(name = "concurrency-limit.min", defaultValue = "4")
+    int min;
+
+    @ConfigProperty(name = "concurrency-limit.max", defaultValue = "200")
+    int max;
+
+    @ConfigProperty(name = "concurrency-limit.latency-threshold", defaultValue = "PT0.25S")
+    Duration threshold;
+
+    @ConfigProperty(name = "concurrency-limit.backoff", defaultValue = "0.9")
+    double backoff;
+
+    @ConfigProperty(name = "concurrency-limit.read-share", defaultValue = "0.75")
+    double readShare;
+
+    private AdaptiveLimit limit;
+    private Counter readsShed;
+    private Counter writesShed;
+
+    @PostConstruct
+    void init() {
+        limit = new AdaptiveLimit(initial, min, max, threshold.toNanos(), backoff, readShare);
+        Gauge.builder("concurrency_limit.limit", limit, AdaptiveLimit::limit)
+                .description("Requests allowed to run at once")
+                .register(registry);
+        Gauge.builder("concurrency_limit.in_flight", limit, AdaptiveLimit::inFlight)
+                .description("Requests running")
+                .register(registry);
+        readsShed = shedCounter("read");
+        writesShed = shedCounter("write");
+    }
+
+    private Counter shedCounter(String kind) {
+        return Counter.builder("concurrency_limit.shed")
+                .description("Requests turned away with 503 Service Unavailable")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        if (!enabled || resourceInfo.getResourceMethod().isAnnotationPresent(Unlimited.class)
+                || resourceInfo.getResourceClass().isAnnotationPresent(Unlimited.class)) {
+            return;
+        }
+        String method = request.getMethod();
+        boolean write = !HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method);
+        if (limit.tryAcquire(write)) {
+            long started = System.nanoTime();
+            ((ResteasyReactiveContainerRequestContext) request).getServerRequestContext()
+                    .registerCompletionCallback(error -> limit.release(System.nanoTime() - started));
+            return;
+        }
+        (write ? writesShed : readsShed).increment();
+        request.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, 1)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(new ErrorMessage("Server busy, retry later"))
+                .build());
+    }
+}
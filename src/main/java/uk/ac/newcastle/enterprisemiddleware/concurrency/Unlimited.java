@@ -0,0 +1,20 @@
+package uk.ac.newcastle.enterprisemiddleware.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Keeps a resource method, or every method of a resource class, out of the {@link ConcurrencyLimitFilter}.</p>
+ *
+ * <p>Meant for endpoints that do not touch the database, or that hold their request open for a long time, such as
+ * event streams, which would take a slot for as long as they are connected and report their lifetime as latency. The
+ * same goes for rare administrative operations that run for seconds, such as deleting a Hotel or Customer with all
+ * of its Bookings or rebuilding the occupancy rollup: their latency says nothing about the load, and counted as an
+ * overloaded request it would shrink the limit for everyone else.</p>
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Unlimited {
+}
@@ -1,5 +1,10 @@
 package uk.ac.newcastle.enterprisemiddleware.contact;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.ColumnDefault;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSchema;
+import uk.ac.newcastle.enterprisemiddleware.util.Versioned;
+
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -27,13 +32,19 @@ import java.util.Objects;
 })
 @XmlRootElement
 @Table(name = "contact", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
-public class Contact implements Serializable {
+public class Contact implements Serializable, Versioned {
     /** Default value included to remove warning. Remove or modify at will. **/
     private static final long serialVersionUID = 1L;
 
     public static final String FIND_ALL = "Contact.findAll";
     public static final String FIND_BY_EMAIL = "Contact.findByEmail";
 
+    /**
+     * <p>The attributes a {@code fields} query parameter may select.</p>
+     */
+    public static final FieldSchema FIELDS = FieldSchema.of("c", "id", "firstName", "lastName", "email", "phoneNumber",
+            "birthDate", "state", "version");
+
     @Id
     @GeneratedValue(strategy = GenerationType.TABLE)
     private Long id;
@@ -69,6 +80,12 @@ public class Contact implements Serializable {
     @Column(name = "state")
     private String state;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -125,6 +142,15 @@ public class Contact implements Serializable {
         return this.state;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,53 @@
+package uk.ac.newcastle.enterprisemiddleware.contact;
+
+import uk.ac.newcastle.enterprisemiddleware.util.Violations;
+
+import javax.validation.ConstraintViolation;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Precompiled form of the Bean Validation constraints declared on {@link Contact}.</p>
+ *
+ * <p>Checks the same constraints, with the same messages, as {@code validator.validate(contact)} but with the
+ * patterns compiled once and without any reflection. Keep this in step with the annotations on Contact;
+ * PrecompiledConstraintsTest compares the two.</p>
+ */
+public final class ContactConstraints {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z-']+");
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^\\([2-9][0-8][0-9]\\)\\s?[0-9]{3}\\-[0-9]{4}$");
+
+    private static final String NAME_MESSAGE = "Please use a name without numbers or specials";
+
+    private ContactConstraints() {
+    }
+
+    public static Set<ConstraintViolation<Contact>> validate(Contact contact) {
+        Violations<Contact> v = new Violations<>(contact);
+
+        String firstName = contact.getFirstName();
+        v.notNull("firstName", firstName);
+        v.size("firstName", firstName, 1, 25);
+        v.pattern("firstName", firstName, NAME, NAME_MESSAGE);
+
+        String lastName = contact.getLastName();
+        v.notNull("lastName", lastName);
+        v.size("lastName", lastName, 1, 25);
+        v.pattern("lastName", lastName, NAME, NAME_MESSAGE);
+
+        String email = contact.getEmail();
+        v.notNull("email", email);
+        v.notEmpty("email", email);
+        v.email("email", email, "The email address must be in the format of name@domain.com");
+
+        String phoneNumber = contact.getPhoneNumber();
+        v.notNull("phoneNumber", phoneNumber);
+        v.pattern("phoneNumber", phoneNumber, PHONE_NUMBER);
+
+        v.notNull("birthDate", contact.getBirthDate());
+        v.past("birthDate", contact.getBirthDate(), "Birthdates can not be in the future. Please choose one from the past");
+
+        return v.result();
+    }
+}
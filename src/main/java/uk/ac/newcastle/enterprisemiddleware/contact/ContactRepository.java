@@ -1,16 +1,26 @@
 package uk.ac.newcastle.enterprisemiddleware.contact;
 
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+import uk.ac.newcastle.enterprisemiddleware.datasource.EntityManagerRouter;
+import uk.ac.newcastle.enterprisemiddleware.datasource.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
+
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 import javax.validation.ConstraintViolationException;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * <p>This is a Repository class and connects the Service/Control layer (see {@link ContactService} with the
@@ -24,22 +34,30 @@ import java.util.logging.Logger;
  * @see javax.persistence.EntityManager
  */
 @RequestScoped
+@Traced("repository")
 public class ContactRepository {
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     EntityManager em;
 
+    @Inject
+    EntityManagerRouter router;
+
+    @Inject
+    Event<TrackedTable> changes;
+
     /**
      * <p>Returns a List of all persisted {@link Contact} objects, sorted alphabetically by last name.</p>
      *
      * @return List of Contact objects
      */
+    @ReadOnly
     List<Contact> findAllOrderedByName() {
-        TypedQuery<Contact> query = em.createNamedQuery(Contact.FIND_ALL, Contact.class);
+        TypedQuery<Contact> query = router.current().createNamedQuery(Contact.FIND_ALL, Contact.class);
         return query.getResultList();
     }
 
@@ -49,8 +67,9 @@ public class ContactRepository {
      * @param id The id field of the Contact to be returned
      * @return The Contact with the specified id
      */
+    @ReadOnly
     Contact findById(Long id) {
-        return em.find(Contact.class, id);
+        return router.current().find(Contact.class, id);
     }
 
     /**
@@ -61,8 +80,9 @@ public class ContactRepository {
      * @param email The email field of the Contact to be returned
      * @return The first Contact with the specified email
      */
+    @ReadOnly
     Contact findByEmail(String email) {
-        TypedQuery<Contact> query = em.createNamedQuery(Contact.FIND_BY_EMAIL, Contact.class).setParameter("email", email);
+        TypedQuery<Contact> query = router.current().createNamedQuery(Contact.FIND_BY_EMAIL, Contact.class).setParameter("email", email);
         return query.getSingleResult();
     }
 
@@ -72,14 +92,16 @@ public class ContactRepository {
      * @param firstName The firstName field of the Contacts to be returned
      * @return The Contacts with the specified firstName
      */
+    @ReadOnly
     List<Contact> findAllByFirstName(String firstName) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+        EntityManager reader = router.current();
+        CriteriaBuilder cb = reader.getCriteriaBuilder();
         CriteriaQuery<Contact> criteria = cb.createQuery(Contact.class);
         Root<Contact> contact = criteria.from(Contact.class);
         // Swap criteria statements if you would like to try out type-safe criteria queries, a new feature in JPA 2.0.
         // criteria.select(contact).where(cb.equal(contact.get(Contact_.firstName), firstName));
         criteria.select(contact).where(cb.equal(contact.get("firstName"), firstName));
-        return em.createQuery(criteria).getResultList();
+        return reader.createQuery(criteria).getResultList();
     }
 
     /**
@@ -88,14 +110,84 @@ public class ContactRepository {
      * @param lastName The lastName field of the Contacts to be returned
      * @return The Contacts with the specified lastName
      */
+    @ReadOnly
     List<Contact> findAllByLastName(String lastName) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+        EntityManager reader = router.current();
+        CriteriaBuilder cb = reader.getCriteriaBuilder();
         CriteriaQuery<Contact> criteria = cb.createQuery(Contact.class);
         Root<Contact> contact = criteria.from(Contact.class);
         // Swap criteria statements if you would like to try out type-safe criteria queries, a new feature in JPA 2.0.
         // criteria.select(contact).where(cb.equal(contact.get(Contact_.lastName), lastName));
         criteria.select(contact).where(cb.equal(contact.get("lastName"), lastName));
-        return em.createQuery(criteria).getResultList();
+        return reader.createQuery(criteria).getResultList();
+    }
+
+    /**
+     * <p>Returns the selected fields of all persisted Contacts, sorted alphabetically by last name.</p>
+     *
+     * @param fields The fields to read
+     * @return The projected Contacts
+     */
+    @ReadOnly
+    Projection findAllOrderedByName(FieldSet fields) {
+        return fields.rows(fields.query(router.current(), "FROM Contact c ORDER BY c.lastName ASC, c.firstName ASC")
+                .getResultList());
+    }
+
+    /**
+     * <p>Returns the selected fields of a single Contact, specified by a Long id.</p>
+     *
+     * @param id The id field of the Contact to be returned
+     * @param fields The fields to read
+     * @return The projected Contact, or null if there is none with the id
+     */
+    @ReadOnly
+    Projection findById(Long id, FieldSet fields) {
+        return fields.row(FieldSet.single(fields.query(router.current(), "FROM Contact c WHERE c.id = :id")
+                .setParameter("id", id)));
+    }
+
+    /**
+     * <p>Returns the selected fields of the first Contact with the specified email.</p>
+     *
+     * @param email The email field of the Contact to be returned
+     * @param fields The fields to read
+     * @return The projected Contact, or null if there is none with the email
+     */
+    @ReadOnly
+    Projection findByEmail(String email, FieldSet fields) {
+        return fields.row(FieldSet.single(fields.query(router.current(), "FROM Contact c WHERE c.email = :email")
+                .setParameter("email", email)));
+    }
+
+    /**
+     * <p>Returns the selected fields of the Contacts with the specified first and/or last name.</p>
+     *
+     * <p>The names are matched together in one query, rather than by intersecting two lists as the entity finders
+     * are, since projected rows have no identity to intersect on.</p>
+     *
+     * @param firstName The firstName field of the Contacts to be returned, or null to match any
+     * @param lastName The lastName field of the Contacts to be returned, or null to match any
+     * @param fields The fields to read
+     * @return The projected Contacts
+     */
+    @ReadOnly
+    Projection findAllByName(String firstName, String lastName, FieldSet fields) {
+        String from = "FROM Contact c WHERE 1 = 1";
+        if (firstName != null) {
+            from += " AND c.firstName = :firstName";
+        }
+        if (lastName != null) {
+            from += " AND c.lastName = :lastName";
+        }
+        TypedQuery<Tuple> query = fields.query(router.current(), from);
+        if (firstName != null) {
+            query.setParameter("firstName", firstName);
+        }
+        if (lastName != null) {
+            query.setParameter("lastName", lastName);
+        }
+        return fields.rows(query.getResultList());
     }
 
     /**
@@ -111,10 +203,11 @@ public class ContactRepository {
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     Contact create(Contact contact) throws Exception {
-        log.info("ContactRepository.create() - Creating " + contact.getFirstName() + " " + contact.getLastName());
+        log.debug("ContactRepository.create()", "email", contact.getEmail());
 
         // Write the contact to the database.
         em.persist(contact);
+        changes.fire(TrackedTable.CONTACTS);
 
         return contact;
     }
@@ -128,17 +221,29 @@ public class ContactRepository {
      *
      * <p>merge(Object) however must have an object with the @Id already generated.</p>
      *
+     * <p>A version on the supplied Contact (taken from the client's If-Match header) must match the stored one, or a
+     * StaleVersionException is thrown. The merge is flushed so that a concurrent commit is detected here and the
+     * returned Contact carries its new version.</p>
+     *
      * @param contact The Contact object to be merged with an existing Contact
      * @return The Contact that has been merged
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     Contact update(Contact contact) throws Exception {
-        log.info("ContactRepository.update() - Updating " + contact.getFirstName() + " " + contact.getLastName());
+        log.debug("ContactRepository.update()", "id", contact.getId());
+
+        Contact current = em.find(Contact.class, contact.getId());
+        if (current != null) {
+            StaleVersionException.check("Contact " + contact.getId(), contact.getVersion(), current.getVersion());
+            contact.setVersion(current.getVersion());
+        }
 
         // Either update the contact or add it if it can't be found.
-        em.merge(contact);
+        Contact merged = em.merge(contact);
+        em.flush();
+        changes.fire(TrackedTable.CONTACTS);
 
-        return contact;
+        return merged;
     }
 
     /**
@@ -149,7 +254,7 @@ public class ContactRepository {
      * @throws Exception
      */
     Contact delete(Contact contact) throws Exception {
-        log.info("ContactRepository.delete() - Deleting " + contact.getFirstName() + " " + contact.getLastName());
+        log.debug("ContactRepository.delete()", "id", contact.getId());
 
         if (contact.getId() != null) {
             /*
@@ -166,6 +271,7 @@ public class ContactRepository {
              * Therefore we merge first and then we can remove it.
              */
             em.remove(em.merge(contact));
+            changes.fire(TrackedTable.CONTACTS);
 
         } else {
             log.info("ContactRepository.delete() - No ID was found so can't Delete.");
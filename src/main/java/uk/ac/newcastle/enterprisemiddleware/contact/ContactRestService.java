@@ -5,23 +5,32 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
-import org.jboss.resteasy.reactive.Cache;
 import uk.ac.newcastle.enterprisemiddleware.area.InvalidAreaCodeException;
+import uk.ac.newcastle.enterprisemiddleware.cache.ConditionalGet;
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+import uk.ac.newcastle.enterprisemiddleware.compression.Compressed;
+import uk.ac.newcastle.enterprisemiddleware.datasource.RetryOnConflict;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorReasons;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.persistence.NoResultException;
 import javax.transaction.Transactional;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
 
 
 /**
@@ -44,10 +53,11 @@ import java.util.logging.Logger;
 @Path("/contacts")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
+@Traced("rest")
 public class ContactRestService {
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     ContactService service;
@@ -62,8 +72,18 @@ public class ContactRestService {
      * @return A Response containing a list of Contacts
      */
     @GET
+    @ConditionalGet(TrackedTable.CONTACTS)
+    @Compressed
     @Operation(summary = "Fetch all Contacts", description = "Returns a JSON array of all stored Contact objects.")
-    public Response retrieveAllContacts(@QueryParam("firstname") String firstname, @QueryParam("lastname") String lastname) {
+    public Response retrieveAllContacts(@QueryParam("firstname") String firstname, @QueryParam("lastname") String lastname,
+                                        @QueryParam("fields") String fields) {
+        FieldSet selected = Contact.FIELDS.parse(fields);
+        if (selected != null) {
+            Projection contacts = firstname == null && lastname == null
+                    ? service.findAllOrderedByName(selected) : service.findAllByName(firstname, lastname, selected);
+            return Response.ok(contacts).build();
+        }
+
         //Create an empty collection to contain the intersection of Contacts to be returned
         List<Contact> contacts;
 
@@ -92,7 +112,7 @@ public class ContactRestService {
      * @return A Response containing a single Contact
      */
     @GET
-    @Cache
+    @ConditionalGet(TrackedTable.CONTACTS)
     @Path("/email/{email:.+[%40|@].+}")
     @Operation(
             summary = "Fetch a Contact by Email",
@@ -105,7 +125,18 @@ public class ContactRestService {
     public Response retrieveContactsByEmail(
             @Parameter(description = "Email of Contact to be fetched", required = true)
             @PathParam("email")
-            String email) {
+            String email,
+            @QueryParam("fields")
+            String fields) {
+
+        FieldSet selected = Contact.FIELDS.parse(fields);
+        if (selected != null) {
+            Projection contact = service.findByEmail(email, selected);
+            if (contact == null) {
+                throw new RestServiceException("No Contact with the email " + email + " was found!", Response.Status.NOT_FOUND);
+            }
+            return Response.ok(contact).build();
+        }
 
         Contact contact;
         try {
@@ -124,7 +155,7 @@ public class ContactRestService {
      * @return A Response containing a single Contact
      */
     @GET
-    @Cache
+    @ConditionalGet(TrackedTable.CONTACTS)
     @Path("/{id:[0-9]+}")
     @Operation(
             summary = "Fetch a Contact by id",
@@ -138,14 +169,17 @@ public class ContactRestService {
             @Parameter(description = "Id of Contact to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("id")
-            long id) {
+            long id,
+            @QueryParam("fields")
+            String fields) {
 
-        Contact contact = service.findById(id);
+        FieldSet selected = Contact.FIELDS.parse(fields);
+        Object contact = selected == null ? service.findById(id) : service.findById(id, selected);
         if (contact == null) {
             // Verify that the contact exists. Return 404, if not present.
             throw new RestServiceException("No Contact with the id " + id + " was found!", Response.Status.NOT_FOUND);
         }
-        log.info("findById " + id + ": found Contact = " + contact);
+        log.debug("findById", "id", id);
 
         return Response.ok(contact).build();
     }
@@ -191,28 +225,19 @@ public class ContactRestService {
 
         } catch (ConstraintViolationException ce) {
             //Handle bean validation issues
-            Map<String, String> responseObj = new HashMap<>();
-
-            for (ConstraintViolation<?> violation : ce.getConstraintViolations()) {
-                responseObj.put(violation.getPropertyPath().toString(), violation.getMessage());
-            }
-            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, ce);
+            throw new RestServiceException("Bad Request", ErrorReasons.of(ce.getConstraintViolations()), Response.Status.BAD_REQUEST, ce);
 
         } catch (UniqueEmailException e) {
             // Handle the unique constraint violation
-            Map<String, String> responseObj = new HashMap<>();
-            responseObj.put("email", "That email is already used, please use a unique email");
-            throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+            throw new RestServiceException("Bad Request", ErrorReasons.UNIQUE_EMAIL, Response.Status.CONFLICT, e);
         } catch (InvalidAreaCodeException e) {
-            Map<String, String> responseObj = new HashMap<>();
-            responseObj.put("area_code", "The telephone area code provided is not recognised, please provide another");
-            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, e);
+            throw new RestServiceException("Bad Request", ErrorReasons.INVALID_AREA_CODE, Response.Status.BAD_REQUEST, e);
         } catch (Exception e) {
             // Handle generic exceptions
             throw new RestServiceException(e);
         }
 
-        log.info("createContact completed. Contact = " + contact);
+        log.info("createContact completed", "id", contact.getId());
         return builder.build();
     }
 
@@ -233,14 +258,19 @@ public class ContactRestService {
             @APIResponse(responseCode = "400", description = "Invalid Contact supplied in request body"),
             @APIResponse(responseCode = "404", description = "Contact with id not found"),
             @APIResponse(responseCode = "409", description = "Contact details supplied in request body conflict with another existing Contact"),
+            @APIResponse(responseCode = "412", description = "The Contact has been modified since the version named in If-Match"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
     @Transactional
+    @RetryOnConflict
     public Response updateContact(
             @Parameter(description=  "Id of Contact to be updated", required = true)
             @Schema(minimum = "0")
             @PathParam("id")
             long id,
+            @Parameter(description = "ETag of the Contact version being replaced; omit to update unconditionally")
+            @HeaderParam(HttpHeaders.IF_MATCH)
+            String ifMatch,
             @Parameter(description = "JSON representation of Contact object to be updated in the database", required = true)
             Contact contact) {
 
@@ -264,37 +294,31 @@ public class ContactRestService {
         Response.ResponseBuilder builder;
 
         try {
-            // Apply the changes the Contact.
-            service.update(contact);
+            // Apply the changes the Contact, conditionally on the version the client last saw.
+            contact.setVersion(EntityTags.expectedVersion(ifMatch));
+            Contact updated = service.update(contact);
 
             // Create an OK Response and pass the contact back in case it is needed.
-            builder = Response.ok(contact);
+            builder = Response.ok(updated).tag(EntityTags.of(updated.getVersion()));
 
 
         } catch (ConstraintViolationException ce) {
             //Handle bean validation issues
-            Map<String, String> responseObj = new HashMap<>();
-
-            for (ConstraintViolation<?> violation : ce.getConstraintViolations()) {
-                responseObj.put(violation.getPropertyPath().toString(), violation.getMessage());
-            }
-            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, ce);
+            throw new RestServiceException("Bad Request", ErrorReasons.of(ce.getConstraintViolations()), Response.Status.BAD_REQUEST, ce);
         } catch (UniqueEmailException e) {
             // Handle the unique constraint violation
-            Map<String, String> responseObj = new HashMap<>();
-            responseObj.put("email", "That email is already used, please use a unique email");
             throw new RestServiceException("Contact details supplied in request body conflict with another Contact",
-                    responseObj, Response.Status.CONFLICT, e);
+                    ErrorReasons.UNIQUE_EMAIL, Response.Status.CONFLICT, e);
         } catch (InvalidAreaCodeException e) {
-            Map<String, String> responseObj = new HashMap<>();
-            responseObj.put("area_code", "The telephone area code provided is not recognised, please provide another");
-            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, e);
+            throw new RestServiceException("Bad Request", ErrorReasons.INVALID_AREA_CODE, Response.Status.BAD_REQUEST, e);
+        } catch (StaleVersionException e) {
+            throw new RestServiceException("Precondition Failed", ErrorReasons.STALE_VERSION, Response.Status.PRECONDITION_FAILED, e);
         } catch (Exception e) {
-            // Handle generic exceptions
+            // Handle generic exceptions, including an OptimisticLockException which RetryOnConflict finds as the cause
             throw new RestServiceException(e);
         }
 
-        log.info("updateContact completed. Contact = " + contact);
+        log.info("updateContact completed", "id", contact.getId());
         return builder.build();
     }
 
@@ -339,7 +363,7 @@ public class ContactRestService {
             // Handle generic exceptions
             throw new RestServiceException(e);
         }
-        log.info("deleteContact completed. Contact = " + contact);
+        log.info("deleteContact completed", "id", contact.getId());
         return builder.build();
     }
 }
\ No newline at end of file
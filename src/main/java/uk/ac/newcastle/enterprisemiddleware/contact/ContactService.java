@@ -5,6 +5,11 @@ import org.eclipse.microprofile.rest.client.inject.RestClient;
 import uk.ac.newcastle.enterprisemiddleware.area.Area;
 import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
 import uk.ac.newcastle.enterprisemiddleware.area.InvalidAreaCodeException;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.metrics.Monitored;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
@@ -13,7 +18,6 @@ import javax.validation.ConstraintViolationException;
 import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.core.Response;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * <p>This Service assumes the Control responsibility in the ECB pattern.</p>
@@ -30,11 +34,13 @@ import java.util.logging.Logger;
  * @see ContactRepository
  */
 @Dependent
+@Monitored
+@Traced("service")
 public class ContactService {
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     ContactValidator validator;
@@ -97,6 +103,36 @@ public class ContactService {
         return crud.findAllByLastName(lastName);
     }
 
+    /**
+     * <p>Returns the selected fields of all persisted Contacts, sorted alphabetically by last name.</p>
+     *
+     * @param fields The fields to read
+     * @return The projected Contacts
+     */
+    Projection findAllOrderedByName(FieldSet fields) {
+        return crud.findAllOrderedByName(fields);
+    }
+
+    Projection findById(Long id, FieldSet fields) {
+        return crud.findById(id, fields);
+    }
+
+    Projection findByEmail(String email, FieldSet fields) {
+        return crud.findByEmail(email, fields);
+    }
+
+    /**
+     * <p>Returns the selected fields of the Contacts with the specified first and/or last name.</p>
+     *
+     * @param firstName The firstName to match, or null to match any
+     * @param lastName The lastName to match, or null to match any
+     * @param fields The fields to read
+     * @return The projected Contacts
+     */
+    Projection findAllByName(String firstName, String lastName, FieldSet fields) {
+        return crud.findAllByName(firstName, lastName, fields);
+    }
+
     /**
      * <p>Writes the provided Contact object to the application database.<p/>
      *
@@ -107,7 +143,7 @@ public class ContactService {
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     Contact create(Contact contact) throws Exception {
-        log.info("ContactService.create() - Creating " + contact.getFirstName() + " " + contact.getLastName());
+        log.info("ContactService.create()", "firstName", contact.getFirstName(), "lastName", contact.getLastName());
 
         // Check to make sure the data fits with the parameters in the Contact model and passes validation.
         validator.validateContact(contact);
@@ -141,7 +177,7 @@ public class ContactService {
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     Contact update(Contact contact) throws Exception {
-        log.info("ContactService.update() - Updating " + contact.getFirstName() + " " + contact.getLastName());
+        log.info("ContactService.update()", "id", contact.getId());
 
         // Check to make sure the data fits with the parameters in the Contact model and passes validation.
         validator.validateContact(contact);
@@ -170,14 +206,14 @@ public class ContactService {
      * @throws Exception
      */
     Contact delete(Contact contact) throws Exception {
-        log.info("delete() - Deleting " + contact.toString());
+        log.info("ContactService.delete()", "id", contact.getId());
 
         Contact deletedContact = null;
 
         if (contact.getId() != null) {
             deletedContact = crud.delete(contact);
         } else {
-            log.info("delete() - No ID was found so can't Delete.");
+            log.info("ContactService.delete() - No ID was found so can't Delete.");
         }
 
         return deletedContact;
@@ -1,13 +1,13 @@
 package uk.ac.newcastle.enterprisemiddleware.contact;
 
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.NoResultException;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
-import javax.validation.Validator;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -16,13 +16,11 @@ import java.util.Set;
  * @author Joshua Wilson
  * @see Contact
  * @see ContactRepository
- * @see javax.validation.Validator
+ * @see ContactConstraints
  */
 @ApplicationScoped
+@Traced("validator")
 public class ContactValidator {
-    @Inject
-    Validator validator;
-
     @Inject
     ContactRepository crud;
 
@@ -40,11 +38,11 @@ public class ContactValidator {
      * @throws ValidationException If contact with the same email already exists
      */
     void validateContact(Contact contact) throws ConstraintViolationException, ValidationException {
-        // Create a bean validator and check for issues.
-        Set<ConstraintViolation<Contact>> violations = validator.validate(contact);
+        // Check the bean validation constraints declared on Contact.
+        Set<ConstraintViolation<Contact>> violations = ContactConstraints.validate(contact);
 
         if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(violations));
+            throw new ConstraintViolationException(violations);
         }
 
         // Check the uniqueness of the email address
@@ -1,6 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.contact;
 
-import javax.validation.ValidationException;
+import uk.ac.newcastle.enterprisemiddleware.util.DomainValidationException;
 
 /**
  * <p>ValidationException caused if a Contact's email address conflicts with that of another Contact.</p>
@@ -10,7 +10,7 @@ import javax.validation.ValidationException;
  * @author hugofirth
  * @see Contact
  */
-public class UniqueEmailException extends ValidationException {
+public class UniqueEmailException extends DomainValidationException {
 
     public UniqueEmailException(String message) {
         super(message);
@@ -1,7 +1,11 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.ColumnDefault;
 import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSchema;
+import uk.ac.newcastle.enterprisemiddleware.util.Versioned;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -22,7 +26,7 @@ import java.util.Objects;
 })
 @XmlRootElement
 @Table(name = "customer", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
-public class Customer implements Serializable {
+public class Customer implements Serializable, Versioned {
     private static final long serialVersionUID = 1L;
 
     public static final String FIND_ALL = "Customer.findAll";
@@ -30,6 +34,11 @@ public class Customer implements Serializable {
 
     public static final String FIND_BY_PHONE = "Customer.findByPhone";
 
+    /**
+     * The attributes a {@code fields} query parameter may select.
+     */
+    public static final FieldSchema FIELDS = FieldSchema.of("c", "id", "name", "email", "phoneNumber", "version");
+
     @Id
     @GeneratedValue(strategy = GenerationType.TABLE)
     private Long id;
@@ -50,6 +59,12 @@ public class Customer implements Serializable {
     @Column(name = "phone_number" , unique = true)
     private String phoneNumber;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @JsonIgnore
     @OneToMany(mappedBy = "customer", cascade = CascadeType.REMOVE, orphanRemoval = true)
     private List<Booking> bookings;
@@ -86,6 +101,15 @@ public class Customer implements Serializable {
         this.phoneNumber = phoneNumber;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
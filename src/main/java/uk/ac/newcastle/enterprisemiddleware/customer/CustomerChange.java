@@ -0,0 +1,21 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+/**
+ * <p>An update to, or deletion of, a {@link Customer}.</p>
+ *
+ * <p>It is fired as a CDI event by {@link CustomerRepository} inside the transaction, and observed by
+ * {@link CustomerProfiles} only once that transaction commits. Creations are not fired, as a new Customer has no
+ * profile cached.</p>
+ */
+public class CustomerChange {
+
+    private final Long customerId;
+
+    CustomerChange(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+}
@@ -0,0 +1,43 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import uk.ac.newcastle.enterprisemiddleware.util.Violations;
+
+import javax.validation.ConstraintViolation;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Precompiled form of the Bean Validation constraints declared on {@link Customer}.</p>
+ *
+ * <p>Checks the same constraints, with the same messages, as {@code validator.validate(customer)} but with the
+ * patterns compiled once and without any reflection. Keep this in step with the annotations on Customer;
+ * PrecompiledConstraintsTest compares the two.</p>
+ */
+public final class CustomerConstraints {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z-']+");
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^[0-9]{11}$");
+
+    private CustomerConstraints() {
+    }
+
+    public static Set<ConstraintViolation<Customer>> validate(Customer customer) {
+        Violations<Customer> v = new Violations<>(customer);
+
+        String name = customer.getName();
+        v.notNull("name", name);
+        v.size("name", name, 1, 50);
+        v.pattern("name", name, NAME, "Please use a name without numbers or specials");
+
+        String email = customer.getEmail();
+        v.notNull("email", email);
+        v.notEmpty("email", email);
+        v.email("email", email, "The email address must be in the format of name@domain.com");
+
+        String phoneNumber = customer.getPhoneNumber();
+        v.notNull("phoneNumber", phoneNumber);
+        v.pattern("phoneNumber", phoneNumber, PHONE_NUMBER);
+
+        return v.result();
+    }
+}
@@ -0,0 +1,134 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>What a customer page shows: a Customer with its Bookings, each with a summary of its Hotel, in check in order.</p>
+ *
+ * <p>It is assembled from the rows of a single query (see {@link CustomerRepository#findProfile(Long)}), where
+ * fetching the Customer and then its Bookings would take two requests and, through the eager associations of a Booking,
+ * a query per Booking. Archived Bookings are not part of it.</p>
+ */
+public class CustomerProfile {
+
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final String phoneNumber;
+    private final List<Stay> bookings;
+
+    private CustomerProfile(Long id, String name, String email, String phoneNumber, List<Stay> bookings) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.bookings = bookings;
+    }
+
+    /**
+     * @param rows The customer id, name, email and phone number, followed by the booking id, check in and check out
+     * date and the hotel id, name, location and postal code; the booking columns are null for a Customer without
+     * Bookings
+     * @return The profile, or null if there are no rows
+     */
+    static CustomerProfile of(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<Stay> bookings = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[4] != null) {
+                bookings.add(new Stay((Long) row[4], (LocalDate) row[5], (LocalDate) row[6],
+                        new HotelSummary((Long) row[7], (String) row[8], (String) row[9], (String) row[10])));
+            }
+        }
+        Object[] customer = rows.get(0);
+        return new CustomerProfile((Long) customer[0], (String) customer[1], (String) customer[2], (String) customer[3],
+                Collections.unmodifiableList(bookings));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public List<Stay> getBookings() {
+        return bookings;
+    }
+
+    public static class Stay {
+
+        private final Long id;
+        private final LocalDate checkInDate;
+        private final LocalDate checkOutDate;
+        private final HotelSummary hotel;
+
+        Stay(Long id, LocalDate checkInDate, LocalDate checkOutDate, HotelSummary hotel) {
+            this.id = id;
+            this.checkInDate = checkInDate;
+            this.checkOutDate = checkOutDate;
+            this.hotel = hotel;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public LocalDate getCheckInDate() {
+            return checkInDate;
+        }
+
+        public LocalDate getCheckOutDate() {
+            return checkOutDate;
+        }
+
+        public HotelSummary getHotel() {
+            return hotel;
+        }
+    }
+
+    public static class HotelSummary {
+
+        private final Long id;
+        private final String name;
+        private final String location;
+        private final String postalCode;
+
+        HotelSummary(Long id, String name, String location, String postalCode) {
+            this.id = id;
+            this.name = name;
+            this.location = location;
+            this.postalCode = postalCode;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getPostalCode() {
+            return postalCode;
+        }
+    }
+}
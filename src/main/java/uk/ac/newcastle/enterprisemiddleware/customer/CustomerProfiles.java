@@ -0,0 +1,118 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingChange;
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Caches {@link CustomerProfile}s, one entry per Customer, up to {@code customer-profile.cache-size} of them. Hit
+ * and eviction counts are published as {@code cache.*} meters tagged {@code cache=customer-profile}.</p>
+ *
+ * <p>An entry is dropped once a change to one of its Bookings commits: the Customer a Booking is created for, moved
+ * to or moved from, and the Customer of a deleted Booking. A profile still loading when its entry is dropped is
+ * dropped as soon as it is loaded, as the cache waits for the load before removing the key.</p>
+ *
+ * <p>An update to or deletion of a Customer drops that Customer's entry; a new Customer has none to drop. Changes to
+ * Hotels, whose details every profile may embed, and the bulk archiving and deletion of Bookings drop every entry.
+ * They do so by moving to a new generation, which is part of every key: a profile that was loading under the old
+ * generation is filed under it and never served.</p>
+ */
+@ApplicationScoped
+public class CustomerProfiles {
+
+    @Inject
+    CustomerRepository crud;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "customer-profile.cache-size", defaultValue = "10000")
+    long cacheSize;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private Cache<Key, CustomerProfile> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "customer-profile");
+    }
+
+    /**
+     * @param id The id of the Customer
+     * @return The Customer's profile, or null if there is no Customer with the id
+     */
+    public CustomerProfile get(Long id) {
+        return cache.get(new Key(id, generation.get()), key -> crud.findProfile(key.customerId));
+    }
+
+    /**
+     * <p>Drops every profile, after Bookings were changed in bulk.</p>
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    void onBookingCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookingChange change) {
+        if (change.getBooking() != null) {
+            invalidate(change.getBooking().getCustomer().getId());
+        }
+        if (change.getPreviousCustomerId() != null) {
+            invalidate(change.getPreviousCustomerId());
+        }
+    }
+
+    void onCustomerCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) CustomerChange change) {
+        invalidate(change.getCustomerId());
+    }
+
+    void onCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) TrackedTable table) {
+        if (table == TrackedTable.HOTELS) {
+            invalidateAll();
+        }
+    }
+
+    private void invalidate(Long customerId) {
+        cache.invalidate(new Key(customerId, generation.get()));
+    }
+
+    private static final class Key {
+        final Long customerId;
+        final long generation;
+
+        Key(Long customerId, long generation) {
+            this.customerId = customerId;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return generation == key.generation && customerId.equals(key.customerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(customerId, generation);
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+import uk.ac.newcastle.enterprisemiddleware.datasource.EntityManagerRouter;
+import uk.ac.newcastle.enterprisemiddleware.datasource.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.eventlog.EventLog;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.occupancy.OccupancyRepository;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
+
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.transaction.Transactional;
 import javax.validation.ConstraintViolationException;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.logging.Logger;
+import java.util.Objects;
 
 /**
  * This is a Repository class and connects the Service/Control layer (see {@link CustomerService}) with the
@@ -23,22 +40,39 @@ import java.util.logging.Logger;
  * @see javax.persistence.EntityManager
  */
 @RequestScoped
+@Traced("repository")
 public class CustomerRepository {
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     EntityManager em;
 
+    @Inject
+    EntityManagerRouter router;
+
+    @Inject
+    Event<TrackedTable> changes;
+
+    @Inject
+    Event<CustomerChange> customerChanges;
+
+    @Inject
+    EventLog events;
+
+    @Inject
+    OccupancyRepository occupancy;
+
     /**
      * Returns a List of all persisted {@link Customer} objects, sorted alphabetically by name.
      *
      * @return List of Customer objects
      */
+    @ReadOnly
     List<Customer> findAllOrderedByName() {
-        TypedQuery<Customer> query = em.createNamedQuery(Customer.FIND_ALL, Customer.class);
+        TypedQuery<Customer> query = router.current().createNamedQuery(Customer.FIND_ALL, Customer.class);
         return query.getResultList();
     }
 
@@ -48,8 +82,9 @@ public class CustomerRepository {
      * @param id The id field of the Customer to be returned
      * @return The Customer with the specified id
      */
+    @ReadOnly
     public Customer findById(Long id) {
-        return em.find(Customer.class, id);
+        return router.current().find(Customer.class, id);
     }
 
     /**
@@ -60,13 +95,15 @@ public class CustomerRepository {
      * @param email The email field of the Customer to be returned
      * @return The first Customer with the specified email
      */
+    @ReadOnly
     Customer findByEmail(String email) {
-        TypedQuery<Customer> query = em.createNamedQuery(Customer.FIND_BY_EMAIL, Customer.class).setParameter("email", email);
+        TypedQuery<Customer> query = router.current().createNamedQuery(Customer.FIND_BY_EMAIL, Customer.class).setParameter("email", email);
         return query.getSingleResult();
     }
 
+    @ReadOnly
     Customer findByPhone(String phoneNumber) {
-        TypedQuery<Customer> query = em.createNamedQuery(Customer.FIND_BY_PHONE, Customer.class).setParameter("phoneNumber", phoneNumber);
+        TypedQuery<Customer> query = router.current().createNamedQuery(Customer.FIND_BY_PHONE, Customer.class).setParameter("phoneNumber", phoneNumber);
         return query.getSingleResult();
     }
 
@@ -76,12 +113,68 @@ public class CustomerRepository {
      * @param name The name field of the Customers to be returned
      * @return The Customers with the specified name
      */
+    @ReadOnly
     List<Customer> findAllByName(String name) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+        EntityManager reader = router.current();
+        CriteriaBuilder cb = reader.getCriteriaBuilder();
         CriteriaQuery<Customer> criteria = cb.createQuery(Customer.class);
         Root<Customer> customer = criteria.from(Customer.class);
         criteria.select(customer).where(cb.equal(customer.get("name"), name));
-        return em.createQuery(criteria).getResultList();
+        return reader.createQuery(criteria).getResultList();
+    }
+
+    /**
+     * Returns the selected fields of all persisted Customers, sorted alphabetically by name.
+     *
+     * @param fields The fields to read
+     * @return The projected Customers
+     */
+    @ReadOnly
+    Projection findAllOrderedByName(FieldSet fields) {
+        return fields.rows(fields.query(router.current(), "FROM Customer c ORDER BY c.name ASC").getResultList());
+    }
+
+    /**
+     * Returns the selected fields of the first Customer with the specified email.
+     *
+     * @param email The email field of the Customer to be returned
+     * @param fields The fields to read
+     * @return The projected Customer, or null if there is none with the email
+     */
+    @ReadOnly
+    Projection findByEmail(String email, FieldSet fields) {
+        return fields.row(FieldSet.single(fields.query(router.current(), "FROM Customer c WHERE c.email = :email")
+                .setParameter("email", email)));
+    }
+
+    @ReadOnly
+    Projection findByPhone(String phoneNumber, FieldSet fields) {
+        return fields.row(FieldSet.single(fields.query(router.current(), "FROM Customer c WHERE c.phoneNumber = :phoneNumber")
+                .setParameter("phoneNumber", phoneNumber)));
+    }
+
+    @ReadOnly
+    Projection findAllByName(String name, FieldSet fields) {
+        return fields.rows(fields.query(router.current(), "FROM Customer c WHERE c.name = :name")
+                .setParameter("name", name).getResultList());
+    }
+
+    /**
+     * Returns a Customer with its Bookings and their Hotels, read with one query.
+     *
+     * The query goes to the primary rather than a replica, as its result is cached until the next change to the
+     * Customer's Bookings (see {@link CustomerProfiles}).
+     *
+     * @param id The id field of the Customer
+     * @return The profile, or null if there is no Customer with the id
+     */
+    CustomerProfile findProfile(Long id) {
+        return CustomerProfile.of(em.createQuery("SELECT c.id, c.name, c.email, c.phoneNumber,"
+                        + " b.id, b.checkInDate, b.checkOutDate, h.id, h.name, h.location, h.postalCode"
+                        + " FROM Customer c LEFT JOIN c.bookings b LEFT JOIN b.hotel h"
+                        + " WHERE c.id = :id ORDER BY b.checkInDate, b.id", Object[].class)
+                .setParameter("id", id)
+                .getResultList());
     }
 
     /**
@@ -97,10 +190,12 @@ public class CustomerRepository {
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     Customer create(Customer customer) throws Exception {
-        log.info("CustomerRepository.create() - Creating " + customer.getName());
+        log.debug("CustomerRepository.create()", "name", customer.getName());
 
         // Write the customer to the database.
         em.persist(customer);
+        events.append("customer.created", customer);
+        changes.fire(TrackedTable.CUSTOMERS);
 
         return customer;
     }
@@ -108,52 +203,91 @@ public class CustomerRepository {
     /**
      * Updates an existing Customer object in the application database with the provided Customer object.
      *
-     * EntityManager#merge(Object) creates a new instance of your entity, copies the state from the supplied entity, and
-     * makes the new copy managed. The instance you pass in will not be managed (any changes you make will not be part
-     * of the transaction - unless you call merge again).
+     * A version on the supplied Customer (taken from the client's If-Match header) must match the stored one, or a
+     * StaleVersionException is thrown. Without one the update applies to whatever version is stored. The change is
+     * flushed so that a concurrent commit is detected here and the returned Customer carries its new version.
      *
-     * merge(Object) however must have an object with the @Id already generated.
+     * The editable fields are copied onto the stored Customer rather than merged, as the provided Customer has no
+     * bookings and merging it would drop the stored ones from their orphan removing collection. The version is
+     * incremented even when no field changes, so every acknowledged update is a new version.
      *
-     * @param customer The Customer object to be merged with an existing Customer
-     * @return The Customer that has been merged
+     * @param customer The Customer object to be passed as an update to the application database
+     * @return The Customer that has been updated
+     * @throws EntityNotFoundException if there is no such Customer
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     Customer update(Customer customer) throws Exception {
-        log.info("CustomerRepository.update() - Updating " + customer.getName());
+        log.debug("CustomerRepository.update()", "id", customer.getId());
 
-        // Either update the customer or add it if it can't be found.
-        em.merge(customer);
+        Customer current = em.find(Customer.class, customer.getId());
+        if (current == null) {
+            throw new EntityNotFoundException("No Customer with the id " + customer.getId() + " was found!");
+        }
+        StaleVersionException.check("Customer " + customer.getId(), customer.getVersion(), current.getVersion());
+        boolean unchanged = Objects.equals(current.getName(), customer.getName())
+                && Objects.equals(current.getEmail(), customer.getEmail())
+                && Objects.equals(current.getPhoneNumber(), customer.getPhoneNumber());
+        if (unchanged) {
+            // Nothing for the flush to write, so the version is incremented here
+            em.lock(current, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+        } else {
+            current.setName(customer.getName());
+            current.setEmail(customer.getEmail());
+            current.setPhoneNumber(customer.getPhoneNumber());
+        }
+        em.flush();
+        events.append("customer.updated", current);
+        changes.fire(TrackedTable.CUSTOMERS);
+        customerChanges.fire(new CustomerChange(current.getId()));
 
-        return customer;
+        return current;
     }
 
     /**
      * Deletes the provided Customer object from the application database if found there.
      *
+     * Runs in a transaction of its own when called outside one, as it is once the Customer's Bookings are purged.
+     *
      * @param customer The Customer object to be removed from the application database
      * @return The Customer object that has been successfully removed from the application database; or null
      * @throws Exception
      */
+    @Transactional
     Customer delete(Customer customer) throws Exception {
-        log.info("CustomerRepository.delete() - Deleting " + customer.getName());
+        log.debug("CustomerRepository.delete()", "id", customer.getId());
 
-        if (customer.getId() != null) {
+        Customer managed = customer.getId() == null ? null : em.find(Customer.class, customer.getId());
+        if (managed != null) {
             /*
-             * The Hibernate session (aka EntityManager's persistent context) is closed and invalidated after the commit(),
-             * because it is bound to a transaction. The object goes into a detached status. If you open a new persistent
-             * context, the object isn't known as in a persistent state in this new context, so you have to merge it.
-             *
-             * Merge sees that the object has a primary key (id), so it knows it is not new and must hit the database
-             * to reattach it.
+             * Its bookings, archived ones included, have been purged in chunks by the service already (see
+             * BookingPurge). Only those made since are left: release their nights, drop the archived ones, and let the
+             * cascade delete the rest with the customer.
              *
-             * Note, there is NO remove method which would just take a primary key (id) and an entity class as argument.
-             * You first need an object in a persistent state to be able to delete it.
-             *
-             * Therefore, we merge first and then we can remove it.
+             * The customer is looked up by id rather than merged, so its state is not copied over the stored one just
+             * to be deleted.
              */
-            em.remove(em.merge(customer));
+            for (Object[] stay : em.createQuery("SELECT b.hotel.id, b.checkInDate, b.checkOutDate FROM Booking b"
+                    + " WHERE b.customer.id = :customerId", Object[].class)
+                    .setParameter("customerId", customer.getId()).getResultList()) {
+                occupancy.release((Long) stay[0], (LocalDate) stay[1], (LocalDate) stay[2]);
+            }
+            for (Object[] stay : em.createQuery("SELECT a.hotel.id, a.checkInDate, a.checkOutDate FROM ArchivedBooking a"
+                    + " WHERE a.customer.id = :customerId", Object[].class)
+                    .setParameter("customerId", customer.getId()).getResultList()) {
+                occupancy.release((Long) stay[0], (LocalDate) stay[1], (LocalDate) stay[2]);
+            }
+            em.createQuery("DELETE FROM ArchivedBooking a WHERE a.customer.id = :customerId")
+                    .setParameter("customerId", customer.getId())
+                    .executeUpdate();
+            em.remove(managed);
+            events.append("customer.deleted", customer);
+
+            // The customer's bookings are removed with it
+            changes.fire(TrackedTable.CUSTOMERS);
+            changes.fire(TrackedTable.BOOKINGS);
+            customerChanges.fire(new CustomerChange(customer.getId()));
         } else {
-            log.info("CustomerRepository.delete() - No ID was found, so can't Delete.");
+            log.info("CustomerRepository.delete() - No such Customer, so can't Delete.", "id", customer.getId());
         }
 
         return customer;
@@ -4,39 +4,62 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import uk.ac.newcastle.enterprisemiddleware.cache.ConditionalGet;
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+import uk.ac.newcastle.enterprisemiddleware.codec.BinaryMediaType;
+import uk.ac.newcastle.enterprisemiddleware.compression.Compressed;
+import uk.ac.newcastle.enterprisemiddleware.concurrency.Unlimited;
 import uk.ac.newcastle.enterprisemiddleware.contact.UniqueEmailException;
+import uk.ac.newcastle.enterprisemiddleware.datasource.RetryOnConflict;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorReasons;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
 import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.persistence.EntityNotFoundException;
 import javax.persistence.NoResultException;
 import javax.transaction.Transactional;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
 
 @Path("/customers")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+@Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+@Traced("rest")
 public class CustomerRestService {
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     CustomerService service;
 
     @GET
+    @ConditionalGet(TrackedTable.CUSTOMERS)
+    @Compressed
     @Operation(summary = "Fetch all Customers", description = "Returns a JSON array of all stored Customer objects.")
-    public Response getAllCustomers(@QueryParam("name") String name) {
+    public Response getAllCustomers(@QueryParam("name") String name, @QueryParam("fields") String fields) {
+        FieldSet selected = Customer.FIELDS.parse(fields);
+        if (selected != null) {
+            Projection customers = name == null
+                    ? service.findAllOrderedByName(selected) : service.findAllByName(name, selected);
+            return Response.ok(customers).build();
+        }
+
         List<Customer> customers;
         if (name == null) {
             customers = service.findAllOrderedByName();
@@ -47,6 +70,7 @@ public class CustomerRestService {
     }
 
     @GET
+    @ConditionalGet(TrackedTable.CUSTOMERS)
     @Path("/email/{email:.+[%40|@].+}")
     @Operation(
             summary = "Fetch a Customer by Email",
@@ -59,7 +83,18 @@ public class CustomerRestService {
     public Response getCustomerByEmail(
             @Parameter(description = "Email of Customer to be fetched", required = true)
             @PathParam("email")
-            String email) {
+            String email,
+            @QueryParam("fields")
+            String fields) {
+
+        FieldSet selected = Customer.FIELDS.parse(fields);
+        if (selected != null) {
+            Projection customer = service.findByEmail(email, selected);
+            if (customer == null) {
+                throw new RestServiceException("No Customer with the email " + email + " was found!", Response.Status.NOT_FOUND);
+            }
+            return Response.ok(customer).build();
+        }
 
         Customer customer;
         try {
@@ -78,6 +113,7 @@ public class CustomerRestService {
      * @return A Response containing a single Customer
      */
     @GET
+    @ConditionalGet(TrackedTable.CUSTOMERS)
     @Path("/phone/{phoneNumber}")
     @Operation(
             summary = "Fetch a Customer by Phone Number",
@@ -90,7 +126,18 @@ public class CustomerRestService {
     public Response getCustomerByPhone(
             @Parameter(description = "Phone number of Customer to be fetched", required = true)
             @PathParam("phoneNumber")
-            String phoneNumber) {
+            String phoneNumber,
+            @QueryParam("fields")
+            String fields) {
+
+        FieldSet selected = Customer.FIELDS.parse(fields);
+        if (selected != null) {
+            Projection customer = service.findByPhoneNumber(phoneNumber, selected);
+            if (customer == null) {
+                throw new RestServiceException("No Customer with the phone number " + phoneNumber + " was found!", Response.Status.NOT_FOUND);
+            }
+            return Response.ok(customer).build();
+        }
 
         Customer customer;
         try {
@@ -103,6 +150,37 @@ public class CustomerRestService {
         return Response.ok(customer).build();
     }
 
+    /**
+     * <p>Return a Customer with its Bookings and a summary of each Booking's Hotel, everything a customer page needs in
+     * one round trip.</p>
+     *
+     * @param id The id of the Customer
+     * @return A Response containing the Customer's profile
+     */
+    @GET
+    @ConditionalGet({TrackedTable.CUSTOMERS, TrackedTable.BOOKINGS, TrackedTable.HOTELS})
+    @Compressed
+    @Path("/{id:[0-9]+}/profile")
+    @Operation(
+            summary = "Fetch a Customer's profile",
+            description = "Returns the Customer with the provided id, its Bookings and a summary of their Hotels."
+    )
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Customer found"),
+            @APIResponse(responseCode = "404", description = "Customer with id not found")
+    })
+    public Response getCustomerProfile(
+            @Parameter(description = "Id of Customer to be fetched", required = true)
+            @Schema(minimum = "0")
+            @PathParam("id")
+            long id) {
+        CustomerProfile profile = service.findProfile(id);
+        if (profile == null) {
+            throw new RestServiceException("No Customer with the id " + id + " was found!", Response.Status.NOT_FOUND);
+        }
+        return Response.ok(profile).build();
+    }
+
     @SuppressWarnings("unused")
     @POST
     @Operation(description = "Add a new Customer to the database")
@@ -140,12 +218,70 @@ public class CustomerRestService {
             handleGenericException(e);
         }
 
-        log.info("createCustomer completed. Customer = " + customer);
+        log.info("createCustomer completed", "id", customer.getId());
         return builder.build();
     }
 
 
+    @PUT
+    @Path("/{id:[0-9]+}")
+    @Operation(description = "Update a Customer in the database")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Customer updated successfully"),
+            @APIResponse(responseCode = "400", description = "Invalid Customer supplied in request body"),
+            @APIResponse(responseCode = "404", description = "Customer with id not found"),
+            @APIResponse(responseCode = "409", description = "Customer details supplied in request body conflict with another existing Customer"),
+            @APIResponse(responseCode = "412", description = "The Customer has been modified since the version named in If-Match"),
+            @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
+    })
+    @Transactional
+    @RetryOnConflict
+    public Response updateCustomer(
+            @Parameter(description = "Id of Customer to be updated", required = true)
+            @Schema(minimum = "0")
+            @PathParam("id")
+            long id,
+            @Parameter(description = "ETag of the Customer version being replaced; omit to update unconditionally")
+            @HeaderParam(HttpHeaders.IF_MATCH)
+            String ifMatch,
+            @Parameter(description = "JSON representation of Customer object to be updated in the database", required = true)
+            Customer customer) {
+
+        if (customer == null || customer.getId() == null) {
+            throw new RestServiceException("Invalid Customer supplied in request body", Response.Status.BAD_REQUEST);
+        }
+        handleIdMismatch(id, customer);
+        handleCustomerNotFound(id);
+
+        Response.ResponseBuilder builder = null;
+
+        try {
+            customer.setVersion(EntityTags.expectedVersion(ifMatch));
+            Customer updated = service.update(customer);
+            builder = Response.ok(updated).tag(EntityTags.of(updated.getVersion()));
+
+        } catch (ConstraintViolationException ce) {
+            handleConstraintViolationException(ce);
+        } catch (UniqueEmailException e) {
+            handleUniqueEmailException(e);
+        } catch (UniquePhoneException e) {
+            handleUniquePhoneException(e);
+        } catch (StaleVersionException e) {
+            throw new RestServiceException("Precondition Failed", ErrorReasons.STALE_VERSION, Response.Status.PRECONDITION_FAILED, e);
+        } catch (EntityNotFoundException e) {
+            // Deleted since handleCustomerNotFound looked
+            throw new RestServiceException(e.getMessage(), Response.Status.NOT_FOUND);
+        } catch (Exception e) {
+            // An OptimisticLockException is wrapped here too, RetryOnConflict finds it as the cause
+            handleGenericException(e);
+        }
+
+        log.info("updateCustomer completed", "id", id);
+        return builder.build();
+    }
+
     @DELETE
+    @Unlimited
     @Path("/{id:[0-9]+}")
     @Operation(description = "Delete a Customer from the database")
     @APIResponses(value = {
@@ -154,7 +290,7 @@ public class CustomerRestService {
             @APIResponse(responseCode = "404", description = "Customer with id not found"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
-    @Transactional
+    // Not @Transactional: the Bookings are purged in transactions of their own first, see BookingPurge
     public Response deleteCustomer(
             @Parameter(description = "Id of Customer to be deleted", required = true)
             @Schema(minimum = "0")
@@ -176,7 +312,7 @@ public class CustomerRestService {
             builder = Response.status(Response.Status.INTERNAL_SERVER_ERROR);
         }
 
-        log.info("deleteCustomer completed. Customer = " + customer);
+        log.info("deleteCustomer completed", "id", id);
         return builder.build();
     }
 
@@ -198,24 +334,15 @@ public class CustomerRestService {
     }
 
     private void handleConstraintViolationException(ConstraintViolationException ce) {
-        Map<String, String> responseObj = new HashMap<>();
-
-        for (ConstraintViolation<?> violation : ce.getConstraintViolations()) {
-            responseObj.put(violation.getPropertyPath().toString(), violation.getMessage());
-        }
-        throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, ce);
+        throw new RestServiceException("Bad Request", ErrorReasons.of(ce.getConstraintViolations()), Response.Status.BAD_REQUEST, ce);
     }
 
     private void handleUniqueEmailException(UniqueEmailException e) {
-        Map<String, String> responseObj = new HashMap<>();
-        responseObj.put("email", "That email is already used, please use a unique email");
-        throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        throw new RestServiceException("Bad Request", ErrorReasons.UNIQUE_EMAIL, Response.Status.CONFLICT, e);
     }
 
     private void handleUniquePhoneException(UniquePhoneException e) {
-        Map<String, String> responseObj = new HashMap<>();
-        responseObj.put("phone", "That phone is already used, please use a unique phone");
-        throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        throw new RestServiceException("Bad Request", ErrorReasons.UNIQUE_PHONE, Response.Status.CONFLICT, e);
     }
     private void handleGenericException(Exception e) {
         throw new RestServiceException(e);
@@ -2,26 +2,44 @@ package uk.ac.newcastle.enterprisemiddleware.customer;
 
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingPurge;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.metrics.Monitored;
+import uk.ac.newcastle.enterprisemiddleware.metrics.ServerTiming;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.validation.ConstraintViolationException;
 import java.util.List;
-import java.util.logging.Logger;
 
 @Dependent
+@Monitored
+@Traced("service")
 public class CustomerService {
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     CustomerValidator validator;
 
     @Inject
     CustomerRepository crud;
+
+    @Inject
+    CustomerProfiles profiles;
+
+    @Inject
+    BookingPurge purge;
+
+    @Inject
+    ServerTiming timing;
+
     @RestClient
     AreaService areaService;
     /**
@@ -43,6 +61,16 @@ public class CustomerService {
         return crud.findById(id);
     }
 
+    /**
+     * Returns a Customer with its Bookings and a summary of their Hotels, from the profile cache.
+     *
+     * @param id The id field of the Customer
+     * @return The profile, or null if there is no Customer with the id
+     */
+    CustomerProfile findProfile(Long id) {
+        return profiles.get(id);
+    }
+
     /**
      * Returns a single Customer object, specified by a String email.
      *
@@ -79,6 +107,28 @@ public class CustomerService {
         return crud.findAllByName(name);
     }
 
+    /**
+     * Returns the selected fields of all persisted Customers, sorted alphabetically by name.
+     *
+     * @param fields The fields to read
+     * @return The projected Customers
+     */
+    Projection findAllOrderedByName(FieldSet fields) {
+        return crud.findAllOrderedByName(fields);
+    }
+
+    Projection findByEmail(String email, FieldSet fields) {
+        return crud.findByEmail(email, fields);
+    }
+
+    Projection findByPhoneNumber(String phoneNumber, FieldSet fields) {
+        return crud.findByPhone(phoneNumber, fields);
+    }
+
+    Projection findAllByName(String name, FieldSet fields) {
+        return crud.findAllByName(name, fields);
+    }
+
     /**
      * Writes the provided Customer object to the application database.
      *
@@ -89,7 +139,7 @@ public class CustomerService {
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     public Customer create(Customer customer) throws Exception {
-        log.info("CustomerService.create() - Creating " + customer.getName());
+        log.info("CustomerService.create()", "name", customer.getName());
         // Check to make sure the data fits with the parameters in the Customer model and passes validation.
         validator.validateCustomer(customer);
 
@@ -113,31 +163,35 @@ public class CustomerService {
          * @throws ConstraintViolationException, ValidationException, Exception
          */
     Customer update(Customer customer) throws Exception {
-        log.info("CustomerService.update() - Updating " + customer.getName());
+        log.info("CustomerService.update()", "id", customer.getId(), "name", customer.getName());
 
         // Check to make sure the data fits with the parameters in the Customer model and passes validation.
         validator.validateCustomer(customer);
 
-        // Either update the customer or add it if it can't be found.
         return crud.update(customer);
     }
 
     /**
      * Deletes the provided Customer object from the application database if found there.
      *
+     * Its Bookings are purged in chunks first (see {@link BookingPurge}), so the delete itself stays short.
+     *
      * @param customer The Customer object to be removed from the application database
      * @return The Customer object that has been successfully removed from the application database; or null
      * @throws Exception
      */
     Customer delete(Customer customer) throws Exception {
-        log.info("delete() - Deleting " + customer.toString());
+        log.info("CustomerService.delete()", "id", customer.getId());
 
         Customer deletedCustomer = null;
 
         if (customer.getId() != null) {
+            purge.byCustomer(customer.getId());
+            long start = System.nanoTime();
             deletedCustomer = crud.delete(customer);
+            timing.record("customer", System.nanoTime() - start, null);
         } else {
-            log.info("delete() - No ID was found so can't Delete.");
+            log.info("CustomerService.delete() - No ID was found so can't Delete.");
         }
 
         return deletedCustomer;
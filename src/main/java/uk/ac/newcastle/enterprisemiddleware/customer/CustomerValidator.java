@@ -1,6 +1,7 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
 
 import uk.ac.newcastle.enterprisemiddleware.contact.UniqueEmailException;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -9,8 +10,6 @@ import javax.persistence.NoResultException;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
-import javax.validation.Validator;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -19,13 +18,11 @@ import java.util.Set;
  * @author Joshua Wilson
  * @see Customer
  * @see CustomerRepository
- * @see javax.validation.Validator
+ * @see CustomerConstraints
  */
 @ApplicationScoped
+@Traced("validator")
 public class CustomerValidator {
-    @Inject
-    Validator validator;
-
     @Inject
     CustomerRepository crud;
 
@@ -41,11 +38,11 @@ public class CustomerValidator {
      * @throws ValidationException If a customer with the same email already exists
      */
     void validateCustomer(Customer customer) throws ConstraintViolationException, ValidationException {
-        // Create a bean validator and check for issues.
-        Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+        // Check the bean validation constraints declared on Customer.
+        Set<ConstraintViolation<Customer>> violations = CustomerConstraints.validate(customer);
 
         if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<>(violations));
+            throw new ConstraintViolationException(violations);
         }
 
         // Check the uniqueness of the email address
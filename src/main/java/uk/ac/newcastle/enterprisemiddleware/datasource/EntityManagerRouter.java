@@ -0,0 +1,43 @@
+package uk.ac.newcastle.enterprisemiddleware.datasource;
+
+import io.quarkus.hibernate.orm.PersistenceUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+
+/**
+ * <p>Hands repositories the EntityManager to run a query on: the read replica inside a {@link ReadOnly} call made
+ * outside a transaction, the primary otherwise.</p>
+ *
+ * <p>The replica is the {@code read} persistence unit, on its own datasource and connection pool, so a burst of
+ * reads that exhausts the read pool does not hold up connections needed by bookings and other writes. Without a
+ * configured replica, the read datasource points at the primary database.</p>
+ */
+@ApplicationScoped
+public class EntityManagerRouter {
+
+    public static final String READ_UNIT = "read";
+
+    @Inject
+    EntityManager primary;
+
+    @Inject
+    @PersistenceUnit(READ_UNIT)
+    EntityManager replica;
+
+    public EntityManagerRouter() {
+    }
+
+    /**
+     * <p>Creates a router outside CDI, e.g. for benchmarks that bootstrap Hibernate directly.</p>
+     */
+    public EntityManagerRouter(EntityManager primary, EntityManager replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    public EntityManager current() {
+        return ReadOnlyInterceptor.isRouted() ? replica : primary;
+    }
+}
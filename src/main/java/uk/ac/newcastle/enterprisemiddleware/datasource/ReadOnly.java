@@ -0,0 +1,22 @@
+package uk.ac.newcastle.enterprisemiddleware.datasource;
+
+import javax.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Marks a repository finder as safe to serve from the read replica.</p>
+ *
+ * <p>When no transaction is active, {@link EntityManagerRouter#current()} returns the read persistence unit for the
+ * duration of the call. Inside a transaction the call stays on the primary, so a write path always sees its own
+ * changes (and the checks made before a write are not subject to replica lag).</p>
+ *
+ * @see ReadOnlyInterceptor
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnly {
+}
@@ -0,0 +1,44 @@
+package uk.ac.newcastle.enterprisemiddleware.datasource;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * <p>Routes {@link ReadOnly} calls made outside a transaction to the read replica.</p>
+ *
+ * <p>The decision is made once, by the outermost read only call on the thread, and kept for any nested finder it
+ * calls. It runs after the platform transaction interceptor so that a transaction started by the call itself is
+ * visible.</p>
+ */
+@ReadOnly
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_AFTER + 50)
+public class ReadOnlyInterceptor {
+
+    private static final ThreadLocal<boolean[]> ROUTED = ThreadLocal.withInitial(() -> new boolean[1]);
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @AroundInvoke
+    Object route(InvocationContext ctx) throws Exception {
+        boolean[] routed = ROUTED.get();
+        if (routed[0] || txRegistry.getTransactionKey() != null) {
+            return ctx.proceed();
+        }
+        routed[0] = true;
+        try {
+            return ctx.proceed();
+        } finally {
+            routed[0] = false;
+        }
+    }
+
+    static boolean isRouted() {
+        return ROUTED.get()[0];
+    }
+}
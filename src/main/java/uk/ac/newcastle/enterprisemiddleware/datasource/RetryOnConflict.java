@@ -0,0 +1,25 @@
+package uk.ac.newcastle.enterprisemiddleware.datasource;
+
+import javax.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Re-runs a transactional write when it loses an optimistic locking race.</p>
+ *
+ * <p>Place it on the method that starts the transaction (a {@code @Transactional} REST method). When another
+ * transaction commits a change to the same row between our read and our flush, Hibernate fails the versioned
+ * {@code UPDATE} and the whole transaction is rolled back; the interceptor then calls the method again, which re-reads
+ * the row and re-applies the change. A conditional update (one with an {@code If-Match} header) fails its
+ * precondition on the second attempt instead, so the client is told about the conflict rather than having its write
+ * silently applied to a row it has not seen.</p>
+ *
+ * @see RetryOnConflictInterceptor
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,96 @@
+package uk.ac.newcastle.enterprisemiddleware.datasource;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.StaleStateException;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.metrics.ServiceMetrics;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorReasons;
+import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import javax.persistence.OptimisticLockException;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Retries a {@link RetryOnConflict} method, up to {@code persistence.conflict-retry.max-attempts} times in all,
+ * when it fails with an optimistic locking conflict.</p>
+ *
+ * <p>It runs before the platform transaction interceptor, so each attempt gets a fresh transaction and persistence
+ * context, and it does nothing when called inside a transaction that somebody else owns (retrying part of a
+ * transaction cannot help). Between attempts it sleeps for a random time of up to
+ * {@code persistence.conflict-retry.backoff} milliseconds, doubled on each attempt, so that writers colliding on a
+ * hot row spread out rather than collide again. When every attempt fails the conflict is reported as 409.</p>
+ *
+ * <p>The conflict is found anywhere in the cause chain: it may arrive directly from the flush, wrapped in a
+ * {@link RestServiceException} by a REST method's catch-all, or as the cause of the JTA rollback at commit.</p>
+ */
+@RetryOnConflict
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 150)
+public class RetryOnConflictInterceptor {
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @Inject
+    ServiceMetrics metrics;
+
+    @ConfigProperty(name = "persistence.conflict-retry.max-attempts", defaultValue = "5")
+    int maxAttempts;
+
+    @ConfigProperty(name = "persistence.conflict-retry.backoff", defaultValue = "2")
+    long backoffMillis;
+
+    @AroundInvoke
+    Object retry(InvocationContext ctx) throws Exception {
+        if (txRegistry.getTransactionKey() != null) {
+            return ctx.proceed();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return ctx.proceed();
+            } catch (Exception e) {
+                Exception conflict = conflictOf(e);
+                if (conflict == null) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    metrics.recordConflict(false);
+                    log.warn("write conflict retries exhausted", "method", ctx.getMethod().getName(), conflict);
+                    throw new RestServiceException("Conflict", ErrorReasons.CONCURRENT_UPDATE, Response.Status.CONFLICT, conflict);
+                }
+                metrics.recordConflict(true);
+                log.debug("write conflict, retrying", "method", ctx.getMethod().getName(), "attempt", attempt);
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) throws InterruptedException {
+        long bound = backoffMillis << Math.min(attempt - 1, 10);
+        if (bound > 0) {
+            TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextLong(bound * 1000));
+        }
+    }
+
+    static Exception conflictOf(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return (Exception) t;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>A committed domain event, such as {@code hotel.deleted}, read back from the {@link SegmentedLog} by a
+ * {@link LogTail}.</p>
+ *
+ * <p>The payload is a read-only view straight into the mapped segment, not a copy. It stays readable after the
+ * segment is retired, but should be copied (see {@link #bytes()}) if it is kept beyond processing the event.</p>
+ */
+public final class DomainEvent {
+
+    private final long position;
+    private final long transaction;
+    private final String type;
+    private final ByteBuffer payload;
+
+    DomainEvent(long position, long transaction, String type, ByteBuffer payload) {
+        this.position = position;
+        this.transaction = transaction;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * @return The log position of the event's record
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return The id of the unit of work that appended the event
+     */
+    public long getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * @return The event type, e.g. {@code booking.created}
+     */
+    public String getType() {
+        return type;
+    }
+
+    public ByteBuffer payload() {
+        return payload.duplicate();
+    }
+
+    public byte[] bytes() {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "DomainEvent{" + type + " @" + position + ", tx " + transaction + '}';
+    }
+}
@@ -0,0 +1,181 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.Startup;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * <p>The outbox of the booking, customer and hotel domain events: the repositories append an event for every write,
+ * and it is published, through {@link #tail(long)}, once the write has committed.</p>
+ *
+ * <p>The events are kept in a {@link SegmentedLog} under {@code event-log.directory} rather than in a table, so
+ * publishing them costs the database nothing. Each JTA transaction that appends is a unit of work in the log: its
+ * events are appended as the writes are made, its {@code COMMIT} marker just before the database commits, and an
+ * {@code ABORT} marker instead if it rolls back first. A write retried after a conflict is a new transaction, so the
+ * events of the failed attempt are aborted with it. Readers only ever see the events of units of work with a
+ * {@code COMMIT} marker.</p>
+ *
+ * <p>The marker comes before the database commit, after Hibernate's flush, so a write that commits never loses its
+ * events: if the marker cannot be written the transaction rolls back instead. The rare commit that fails after the
+ * marker (or a process that dies between the two) publishes the events of a write that did not happen, which is
+ * logged, so a reader should take an event as a reason to re-read the entity rather than as proof of the write. With
+ * {@code event-log.force-on-commit} the log is flushed to disk before every commit, so that committed events also
+ * survive a crash of the machine; without it they survive a crash of the process.</p>
+ *
+ * <p>The payload of an event is the entity as the API serialises it, after the write: e.g. a
+ * {@code booking.updated} event carries the booking with its new version.</p>
+ */
+@Startup
+@ApplicationScoped
+public class EventLog {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final Object UNIT_OF_WORK = EventLog.class;
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @ConfigProperty(name = "event-log.directory", defaultValue = "data/event-log")
+    String directory;
+
+    @ConfigProperty(name = "event-log.segment-bytes", defaultValue = "16777216")
+    int segmentBytes;
+
+    @ConfigProperty(name = "event-log.retained-segments", defaultValue = "16")
+    int retainedSegments;
+
+    @ConfigProperty(name = "event-log.force-on-commit", defaultValue = "false")
+    boolean forceOnCommit;
+
+    private SegmentedLog segments;
+
+    @PostConstruct
+    void open() {
+        try {
+            segments = SegmentedLog.open(Paths.get(directory), segmentBytes, retainedSegments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Event log " + directory + " cannot be opened", e);
+        }
+        log.info("event log recovered", "end", segments.end(), "truncatedBytes", segments.truncatedBytes(),
+                "abortedTransactions", segments.abortedTransactions());
+    }
+
+    @PreDestroy
+    void close() {
+        segments.close();
+    }
+
+    /**
+     * <p>Appends a domain event to the unit of work of the current transaction, or as a unit of work of its own when
+     * there is no transaction.</p>
+     *
+     * @param type The event type, e.g. {@code hotel.deleted}
+     * @param entity The entity written
+     */
+    public void append(String type, Object entity) {
+        byte[] payload;
+        try {
+            payload = mapper.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Event " + type + " cannot be serialised", e);
+        }
+        try {
+            if (txRegistry.getTransactionKey() == null) {
+                long transaction = segments.nextTransaction();
+                segments.append(SegmentedLog.EVENT, transaction, type, payload);
+                segments.append(SegmentedLog.COMMIT, transaction, "", EMPTY);
+                return;
+            }
+            segments.append(SegmentedLog.EVENT, unitOfWork(), type, payload);
+        } catch (IOException e) {
+            // Failing the write keeps the log and the database in step
+            throw new UncheckedIOException("Event " + type + " cannot be appended", e);
+        }
+    }
+
+    /**
+     * <p>Starts reading the committed events.</p>
+     *
+     * @param position Where to start: a {@link LogTail#checkpoint()}, {@link #start()} or {@link #end()}
+     * @return A new tail
+     */
+    public LogTail tail(long position) {
+        return segments.tail(position);
+    }
+
+    public long start() {
+        return segments.start();
+    }
+
+    public long end() {
+        return segments.end();
+    }
+
+    private long unitOfWork() {
+        Long current = (Long) txRegistry.getResource(UNIT_OF_WORK);
+        if (current != null) {
+            return current;
+        }
+        long transaction = segments.nextTransaction();
+        txRegistry.putResource(UNIT_OF_WORK, transaction);
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            private boolean marked;
+
+            @Override
+            public void beforeCompletion() {
+                if (txRegistry.getRollbackOnly()) {
+                    return;
+                }
+                try {
+                    segments.append(SegmentedLog.COMMIT, transaction, "", EMPTY);
+                    if (forceOnCommit) {
+                        segments.force();
+                    }
+                } catch (IOException e) {
+                    // Rolls the transaction back rather than committing writes whose events are lost
+                    throw new UncheckedIOException("Event log commit marker cannot be appended", e);
+                }
+                marked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    return;
+                }
+                if (marked) {
+                    log.warn("events of a rolled back transaction were committed to the event log",
+                            "transaction", transaction);
+                    return;
+                }
+                try {
+                    segments.append(SegmentedLog.ABORT, transaction, "", EMPTY);
+                } catch (IOException e) {
+                    log.warn("event log abort marker not appended", "transaction", transaction, e);
+                }
+            }
+        });
+        return transaction;
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static uk.ac.newcastle.enterprisemiddleware.eventlog.SegmentedLog.ABORT;
+import static uk.ac.newcastle.enterprisemiddleware.eventlog.SegmentedLog.EVENT;
+import static uk.ac.newcastle.enterprisemiddleware.eventlog.SegmentedLog.HEADER;
+import static uk.ac.newcastle.enterprisemiddleware.eventlog.SegmentedLog.KIND;
+import static uk.ac.newcastle.enterprisemiddleware.eventlog.SegmentedLog.LENGTH;
+import static uk.ac.newcastle.enterprisemiddleware.eventlog.SegmentedLog.TRANSACTION;
+import static uk.ac.newcastle.enterprisemiddleware.eventlog.SegmentedLog.TYPE_LENGTH;
+
+/**
+ * <p>Reads the committed events of a {@link SegmentedLog}, in commit order, as they are appended.</p>
+ *
+ * <p>The events of a unit of work are held back until its {@link SegmentedLog#COMMIT} marker is read, and dropped at
+ * its {@link SegmentedLog#ABORT} marker. Reading goes straight through the mapped segments, without a lock, a system
+ * call or a copy, so a tail keeps up with the writer by polling. A tail belongs to one thread.</p>
+ *
+ * <p>A consumer that wants to resume after a restart stores the {@link #checkpoint()} along with the effects of the
+ * events it has handled, and reopens the tail there. Events of units of work that were still open when the tail
+ * started are not seen.</p>
+ */
+public final class LogTail {
+
+    private final SegmentedLog log;
+    private final Map<Long, List<DomainEvent>> pending = new LinkedHashMap<>();
+
+    private Segment segment;
+    private int offset;
+
+    LogTail(SegmentedLog log, long position) {
+        this.log = log;
+        this.segment = log.segmentAt(position);
+        this.offset = (int) (position - segment.base);
+    }
+
+    /**
+     * <p>Reads what has been appended since the last poll.</p>
+     *
+     * @param max The number of events after which to stop; a unit of work is never split, so a poll may return more
+     * @return The newly committed events, empty if there are none yet
+     */
+    public List<DomainEvent> poll(int max) {
+        List<DomainEvent> committed = new ArrayList<>();
+        long end = log.end();
+        while (committed.size() < max && segment.base + offset < end) {
+            ByteBuffer buffer = segment.buffer;
+            int length = offset + HEADER <= segment.size ? buffer.getInt(offset + LENGTH) : 0;
+            if (length == 0) {
+                // The rest of this segment is unused, the log carries on in the next one
+                Segment next = log.segmentAfter(segment);
+                if (next == null) {
+                    break;
+                }
+                segment = next;
+                offset = 0;
+                continue;
+            }
+            long transaction = buffer.getLong(offset + TRANSACTION);
+            byte kind = buffer.get(offset + KIND);
+            if (kind == EVENT) {
+                pending.computeIfAbsent(transaction, id -> new ArrayList<>()).add(event(transaction, length));
+            } else {
+                List<DomainEvent> events = pending.remove(transaction);
+                if (events != null && kind != ABORT) {
+                    committed.addAll(events);
+                }
+            }
+            offset += length;
+        }
+        return committed;
+    }
+
+    /**
+     * <p>The position to reopen a tail at without missing an event this one has not returned yet: the first event of
+     * the oldest unit of work still held back, or the next record. Units of work that started after that one but
+     * committed before it are returned again by the new tail, so consumers have to handle an event twice safely.</p>
+     *
+     * @return The restart position
+     */
+    public long checkpoint() {
+        // Units of work are held in the order their first event was read
+        for (List<DomainEvent> events : pending.values()) {
+            return events.get(0).getPosition();
+        }
+        return segment.base + offset;
+    }
+
+    private DomainEvent event(long transaction, int length) {
+        ByteBuffer buffer = segment.buffer;
+        int typeLength = buffer.get(offset + TYPE_LENGTH) & 0xFF;
+        ByteBuffer view = buffer.duplicate();
+        view.limit(offset + length).position(offset + HEADER);
+        byte[] type = new byte[typeLength];
+        view.get(type);
+        return new DomainEvent(segment.base + offset, transaction, new String(type, StandardCharsets.UTF_8),
+                view.slice().asReadOnlyBuffer());
+    }
+}
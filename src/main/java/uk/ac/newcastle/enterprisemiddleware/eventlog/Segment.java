@@ -0,0 +1,57 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>One file of the {@link SegmentedLog}, mapped into memory as a whole.</p>
+ *
+ * <p>The file is named after the log position of its first byte, zero padded so that segments sort by name. A new
+ * file is extended to its full size up front, so it reads as zeros past the last record and the mapping never has to
+ * grow. The mapping outlives the channel it was made through, and is released when the segment is collected.</p>
+ */
+final class Segment {
+
+    private static final String SUFFIX = ".log";
+
+    final long base;
+    final Path file;
+    final MappedByteBuffer buffer;
+    final int size;
+
+    private Segment(long base, Path file, MappedByteBuffer buffer) {
+        this.base = base;
+        this.file = file;
+        this.buffer = buffer;
+        this.size = buffer.capacity();
+    }
+
+    static Segment open(Path directory, long base, int size) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", base, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1L);
+            }
+            // An existing segment keeps the size it was created with, even if segment-bytes changed since
+            return new Segment(base, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(SUFFIX) && name.length() == 20 + SUFFIX.length();
+    }
+
+    static long baseOf(Path file) {
+        return Long.parseLong(file.getFileName().toString().substring(0, 20));
+    }
+
+    long end() {
+        return base + size;
+    }
+}
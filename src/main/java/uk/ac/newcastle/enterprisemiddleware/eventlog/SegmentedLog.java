@@ -0,0 +1,296 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * <p>An append-only log of records in fixed-size segment files on local disk, written and read through memory-mapped
+ * buffers.</p>
+ *
+ * <p>A record is an {@link #EVENT} of some unit of work, or the marker that ends one: {@link #COMMIT} or
+ * {@link #ABORT}. Its layout is</p>
+ * <pre>
+ *   int length | int crc32c | byte kind | long transaction | byte typeLength | type (UTF-8) | payload
+ * </pre>
+ * <p>where the length counts the whole record and the checksum covers everything after it. The length is written last,
+ * so a record that is only partly written still reads as the end of the log. A record never spans two segments: one
+ * that does not fit in what is left of the current segment starts the next, and the zeros it leaves behind end the
+ * segment. A position is the byte offset of a record in the log as a whole, the segment's base plus its offset in the
+ * segment.</p>
+ *
+ * <p>Opening the log runs the recovery scan. Every record is checked against its checksum, and the first that fails
+ * ends its segment: it and anything after it are zeroed, as left behind by a crash halfway through a write. A unit of
+ * work with events but no marker at the end of the scan was cut off by a crash before it could commit, and gets an
+ * {@link #ABORT} marker so that no reader waits for it.</p>
+ *
+ * <p>Appends are serialised on the log; readers ({@link LogTail}) take no lock, and only read up to the end of the last
+ * complete record. Writes reach the page cache and so survive the process; {@link #force()} makes them survive the
+ * machine. Only the last {@code retainedSegments} segments are kept.</p>
+ */
+public class SegmentedLog implements Closeable {
+
+    public static final byte EVENT = 1;
+    public static final byte COMMIT = 2;
+    public static final byte ABORT = 3;
+
+    static final int LENGTH = 0;
+    static final int CRC = 4;
+    static final int KIND = 8;
+    static final int TRANSACTION = 9;
+    static final int TYPE_LENGTH = 17;
+    static final int HEADER = 18;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int retainedSegments;
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong transactions = new AtomicLong();
+    private final CRC32C crc = new CRC32C();
+
+    private Segment current;
+    private int writeOffset;
+    private volatile long end;
+
+    private long truncatedBytes;
+    private int abortedTransactions;
+
+    private SegmentedLog(Path directory, int segmentBytes, int retainedSegments) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retainedSegments = retainedSegments;
+    }
+
+    /**
+     * <p>Opens the log in a directory, creating it if need be, and runs the recovery scan.</p>
+     *
+     * @param directory The directory holding the segment files
+     * @param segmentBytes The size of new segments, which bounds the size of a record
+     * @param retainedSegments The number of segments kept, the oldest being deleted as new ones are started
+     * @return The recovered log
+     * @throws IOException If a segment cannot be created or mapped
+     */
+    public static SegmentedLog open(Path directory, int segmentBytes, int retainedSegments) throws IOException {
+        if (segmentBytes < HEADER || retainedSegments < 1) {
+            throw new IllegalArgumentException("A log needs segments of at least " + HEADER
+                    + " bytes and at least one of them");
+        }
+        Files.createDirectories(directory);
+        SegmentedLog log = new SegmentedLog(directory, segmentBytes, retainedSegments);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Segment::isSegment).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            long base = Segment.baseOf(file);
+            log.segments.put(base, Segment.open(directory, base, segmentBytes));
+        }
+        log.recover();
+        return log;
+    }
+
+    private void recover() throws IOException {
+        Set<Long> open = new LinkedHashSet<>();
+        long maxTransaction = 0;
+        int offset = 0;
+        for (Segment segment : segments.values()) {
+            offset = 0;
+            int length;
+            while ((length = validLength(segment, offset)) > 0) {
+                long transaction = segment.buffer.getLong(offset + TRANSACTION);
+                if (segment.buffer.get(offset + KIND) == EVENT) {
+                    open.add(transaction);
+                } else {
+                    open.remove(transaction);
+                }
+                maxTransaction = Math.max(maxTransaction, transaction);
+                offset += length;
+            }
+            // Whatever follows the last valid record is a torn write: clear it so that neither readers nor the next
+            // append can mistake it for a record
+            truncatedBytes += zero(segment, offset);
+        }
+        transactions.set(maxTransaction);
+
+        if (segments.isEmpty()) {
+            current = Segment.open(directory, 0, segmentBytes);
+            segments.put(current.base, current);
+            offset = 0;
+        } else {
+            current = segments.lastEntry().getValue();
+        }
+        writeOffset = offset;
+        end = current.base + writeOffset;
+
+        for (long transaction : open) {
+            append(ABORT, transaction, "", EMPTY);
+        }
+        abortedTransactions = open.size();
+    }
+
+    /**
+     * @return A new unit of work id, greater than any in the log
+     */
+    public long nextTransaction() {
+        return transactions.incrementAndGet();
+    }
+
+    /**
+     * <p>Appends one record.</p>
+     *
+     * @param kind {@link #EVENT}, {@link #COMMIT} or {@link #ABORT}
+     * @param transaction The unit of work the record belongs to
+     * @param type The event type, empty for a marker
+     * @param payload The event, empty for a marker
+     * @return The position of the record
+     * @throws IOException If a new segment is needed and cannot be created
+     */
+    public synchronized long append(byte kind, long transaction, String type, byte[] payload) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        if (typeBytes.length > 0xFF) {
+            throw new IllegalArgumentException("Event type longer than 255 bytes: " + type);
+        }
+        int length = HEADER + typeBytes.length + payload.length;
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("A " + length + " byte record does not fit in a " + segmentBytes
+                    + " byte segment");
+        }
+        if (writeOffset + length > current.size) {
+            roll();
+        }
+
+        ByteBuffer buffer = current.buffer;
+        int at = writeOffset;
+        buffer.put(at + KIND, kind);
+        buffer.putLong(at + TRANSACTION, transaction);
+        buffer.put(at + TYPE_LENGTH, (byte) typeBytes.length);
+        ByteBuffer body = buffer.duplicate();
+        body.position(at + HEADER);
+        body.put(typeBytes).put(payload);
+        buffer.putInt(at + CRC, checksum(buffer, at + KIND, at + length));
+        // Last: until now the record reads as the end of the log
+        buffer.putInt(at + LENGTH, length);
+
+        writeOffset += length;
+        end = current.base + writeOffset;
+        return current.base + at;
+    }
+
+    private void roll() throws IOException {
+        Segment next = Segment.open(directory, current.end(), segmentBytes);
+        segments.put(next.base, next);
+        current = next;
+        writeOffset = 0;
+        while (segments.size() > retainedSegments) {
+            Map.Entry<Long, Segment> oldest = segments.pollFirstEntry();
+            // A tail still reading the segment keeps its mapping, which outlives the file
+            Files.deleteIfExists(oldest.getValue().file);
+        }
+    }
+
+    /**
+     * <p>Flushes everything appended so far from the page cache to the disk.</p>
+     */
+    public synchronized void force() {
+        current.buffer.force();
+    }
+
+    /**
+     * <p>Starts reading committed events at a record.</p>
+     *
+     * @param position The position of a record, e.g. a {@link LogTail#checkpoint()}; one before the oldest retained
+     *                 segment starts at that segment, one past the end at the end
+     * @return A new tail
+     */
+    public LogTail tail(long position) {
+        return new LogTail(this, Math.min(Math.max(position, start()), end));
+    }
+
+    /**
+     * @return The position of the oldest retained record
+     */
+    public long start() {
+        return segments.firstKey();
+    }
+
+    /**
+     * @return The position just past the last complete record
+     */
+    public long end() {
+        return end;
+    }
+
+    Segment segmentAt(long position) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+        return entry != null ? entry.getValue() : segments.firstEntry().getValue();
+    }
+
+    Segment segmentAfter(Segment segment) {
+        Map.Entry<Long, Segment> entry = segments.higherEntry(segment.base);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    long truncatedBytes() {
+        return truncatedBytes;
+    }
+
+    int abortedTransactions() {
+        return abortedTransactions;
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    private int validLength(Segment segment, int offset) {
+        if (offset + HEADER > segment.size) {
+            return 0;
+        }
+        int length = segment.buffer.getInt(offset + LENGTH);
+        if (length < HEADER || length > segment.size - offset
+                || HEADER + (segment.buffer.get(offset + TYPE_LENGTH) & 0xFF) > length) {
+            return 0;
+        }
+        return checksum(segment.buffer, offset + KIND, offset + length) == segment.buffer.getInt(offset + CRC)
+                ? length : 0;
+    }
+
+    private int checksum(ByteBuffer buffer, int from, int to) {
+        ByteBuffer covered = buffer.duplicate();
+        covered.limit(to).position(from);
+        crc.reset();
+        crc.update(covered);
+        return (int) crc.getValue();
+    }
+
+    private static long zero(Segment segment, int from) {
+        long cleared = 0;
+        for (int i = from; i < segment.size; i++) {
+            if (segment.buffer.get(i) != 0) {
+                segment.buffer.put(i, (byte) 0);
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.ac.newcastle.enterprisemiddleware.fieldset;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>The attributes of an entity that a {@code fields} query parameter may name, in the order they are written.</p>
+ *
+ * <p>Attribute names are the JSON property names, which for our entities are also the JPA attribute names. A nested
+ * entity is named as a whole ({@code customer}) or attribute by attribute ({@code customer.name}).</p>
+ *
+ * <p>Each distinct {@code fields} value is parsed and compiled into a {@link FieldSet} once, and kept in a small
+ * bounded cache, so a dashboard polling with the same field list pays for neither again.</p>
+ */
+public final class FieldSchema {
+
+    private static final int CACHED_FIELD_SETS = 256;
+
+    private final String alias;
+    private final List<String> paths;
+    private final Set<String> nested;
+    private final Cache<String, FieldSet> parsed = Caffeine.newBuilder().maximumSize(CACHED_FIELD_SETS).build();
+
+    private FieldSchema(String alias, List<String> paths, Set<String> nested) {
+        this.alias = alias;
+        this.paths = paths;
+        this.nested = nested;
+    }
+
+    /**
+     * <p>Starts a schema.</p>
+     *
+     * @param alias The identification variable the entity is given in the FROM clause of its projection queries
+     * @param attributes The scalar attributes, in the order they are written
+     * @return The schema
+     */
+    public static FieldSchema of(String alias, String... attributes) {
+        List<String> paths = new ArrayList<>();
+        Collections.addAll(paths, attributes);
+        return new FieldSchema(alias, paths, Collections.emptySet());
+    }
+
+    /**
+     * <p>Returns a copy of this schema with an association expanded into the attributes of the associated entity, in
+     * the association's place.</p>
+     *
+     * @param name The name of the association, one of the attributes this schema was started with
+     * @param schema The schema of the associated entity
+     * @return The extended schema
+     */
+    public FieldSchema with(String name, FieldSchema schema) {
+        List<String> extended = new ArrayList<>();
+        for (String path : paths) {
+            if (!path.equals(name)) {
+                extended.add(path);
+                continue;
+            }
+            for (String nestedPath : schema.paths) {
+                extended.add(name + '.' + nestedPath);
+            }
+        }
+        Set<String> groups = new LinkedHashSet<>(nested);
+        groups.add(name);
+        return new FieldSchema(alias, extended, groups);
+    }
+
+    /**
+     * <p>Parses a {@code fields} query parameter.</p>
+     *
+     * @param fields A comma separated list of attribute names, or null
+     * @return The field set, or null if no fields were requested (the full entity is wanted)
+     * @throws RestServiceException 400 if a name is not an attribute of the entity
+     */
+    public FieldSet parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        return parsed.get(fields, this::compile);
+    }
+
+    private FieldSet compile(String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!paths.contains(name) && !nested.contains(name)) {
+                throw new RestServiceException("Bad Request",
+                        Collections.singletonMap("fields", "Unknown field '" + name + "'"), Response.Status.BAD_REQUEST);
+            }
+            requested.add(name);
+        }
+        List<String> selected = new ArrayList<>();
+        for (String path : paths) {
+            int dot = path.indexOf('.');
+            if (requested.contains(path) || (dot > 0 && requested.contains(path.substring(0, dot)))) {
+                selected.add(path);
+            }
+        }
+        if (selected.isEmpty()) {
+            return null;
+        }
+        return new FieldSet(alias, selected);
+    }
+}
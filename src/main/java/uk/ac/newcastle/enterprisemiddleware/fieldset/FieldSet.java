@@ -0,0 +1,140 @@
+package uk.ac.newcastle.enterprisemiddleware.fieldset;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A parsed, validated {@code fields} selection, compiled into the two things needed to serve it: the JPQL select
+ * clause that reads only the selected columns, and a writer that turns each result row into JSON.</p>
+ *
+ * <p>The writer is a tree of pre-encoded property names, each pointing either at a column of the row or at a nested
+ * object, so writing a row is a walk over arrays with no reflection, bean introspection or per-property filtering.
+ * Values are written with the application's serializers, so dates and numbers look exactly as they do in the full
+ * representation.</p>
+ *
+ * @see FieldSchema#parse(String)
+ */
+public final class FieldSet {
+
+    private final String key;
+    private final String select;
+    private final Node[] root;
+
+    FieldSet(String alias, List<String> paths) {
+        this.key = String.join(",", paths);
+        StringBuilder select = new StringBuilder("SELECT ");
+        for (int i = 0; i < paths.size(); i++) {
+            select.append(i == 0 ? "" : ", ").append(alias).append('.').append(paths.get(i));
+        }
+        this.select = select.toString();
+        this.root = compile(paths, "");
+    }
+
+    /**
+     * <p>The selected attributes in canonical form: expanded, deduplicated and in schema order, so two {@code fields}
+     * values that select the same attributes have the same key.</p>
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * <p>Creates the projection query for this field set.</p>
+     *
+     * @param em The EntityManager to query
+     * @param from The rest of the JPQL statement, starting with FROM, using the schema's alias
+     * @return The query, ready for its parameters
+     */
+    public TypedQuery<Tuple> query(EntityManager em, String from) {
+        return em.createQuery(select + ' ' + from, Tuple.class);
+    }
+
+    /**
+     * <p>Returns the only row of a projection query, or null if there is none.</p>
+     *
+     * @param query A query created by {@link #query(EntityManager, String)}
+     * @return The row, or null
+     */
+    public static Tuple single(TypedQuery<Tuple> query) {
+        List<Tuple> rows = query.setMaxResults(1).getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public Projection rows(List<Tuple> rows) {
+        return new Projection(this, rows, false);
+    }
+
+    /**
+     * @param row A row, or null
+     * @return A projection of the row, or null if there was no row
+     */
+    public Projection row(Tuple row) {
+        return row == null ? null : new Projection(this, List.of(row), true);
+    }
+
+    void write(Tuple row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(root, row, gen, provider);
+    }
+
+    private static void write(Node[] nodes, Tuple row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (Node node : nodes) {
+            gen.writeFieldName(node.name);
+            if (node.children != null) {
+                write(node.children, row, gen, provider);
+            } else {
+                provider.defaultSerializeValue(row.get(node.column), gen);
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    /*
+     * Paths are in schema order, so the attributes of a nested entity are contiguous. Column indexes are positions in
+     * the select clause, which is the full path list.
+     */
+    private static Node[] compile(List<String> paths, String prefix) {
+        List<Node> nodes = new ArrayList<>();
+        for (int column = 0; column < paths.size(); column++) {
+            String path = paths.get(column);
+            if (!path.startsWith(prefix)) {
+                continue;
+            }
+            String rest = path.substring(prefix.length());
+            int dot = rest.indexOf('.');
+            if (dot < 0) {
+                nodes.add(new Node(rest, column, null));
+            } else {
+                String name = rest.substring(0, dot);
+                if (nodes.isEmpty() || !nodes.get(nodes.size() - 1).isGroup(name)) {
+                    nodes.add(new Node(name, -1, compile(paths, prefix + name + '.')));
+                }
+            }
+        }
+        return nodes.toArray(new Node[0]);
+    }
+
+    private static final class Node {
+        final SerializedString name;
+        final int column;
+        final Node[] children;
+
+        Node(String name, int column, Node[] children) {
+            this.name = new SerializedString(name);
+            this.column = column;
+            this.children = children;
+        }
+
+        boolean isGroup(String group) {
+            return children != null && name.getValue().equals(group);
+        }
+    }
+}
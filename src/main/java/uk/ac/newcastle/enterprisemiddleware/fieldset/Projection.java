@@ -0,0 +1,47 @@
+package uk.ac.newcastle.enterprisemiddleware.fieldset;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import javax.persistence.Tuple;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>The rows of a projection query, returned as a response entity in place of the full entities.</p>
+ *
+ * <p>It serialises itself through its {@link FieldSet}, as one object for a detail endpoint or an array for a list
+ * endpoint, with whichever Jackson codec the response is written with.</p>
+ */
+public final class Projection implements JsonSerializable {
+
+    private final FieldSet fields;
+    private final List<Tuple> rows;
+    private final boolean single;
+
+    Projection(FieldSet fields, List<Tuple> rows, boolean single) {
+        this.fields = fields;
+        this.rows = rows;
+        this.single = single;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (single) {
+            fields.write(rows.get(0), gen, provider);
+            return;
+        }
+        gen.writeStartArray(rows, rows.size());
+        for (Tuple row : rows) {
+            fields.write(row, gen, provider);
+        }
+        gen.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+        serialize(gen, provider);
+    }
+}
@@ -2,12 +2,22 @@ package uk.ac.newcastle.enterprisemiddleware.guestBooking;
 
 import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
 import uk.ac.newcastle.enterprisemiddleware.booking.BookingService;
+import uk.ac.newcastle.enterprisemiddleware.contact.UniqueEmailException;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.customer.CustomerService;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.ratelimit.RateLimited;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.CustomerNotExist;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorReasons;
+import uk.ac.newcastle.enterprisemiddleware.util.HotelNotExist;
+import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.transaction.Transactional;
-import javax.transaction.UserTransaction;
+import javax.validation.ConstraintViolationException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -15,26 +25,39 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+/**
+ * <p>Creates a Customer and a Booking for them in a single transaction.</p>
+ *
+ * <p>The container managed transaction started by {@link Transactional} covers both inserts. Any failure is rethrown as
+ * a {@link RestServiceException}, which is a RuntimeException, so the transaction is rolled back and neither the
+ * Customer nor the Booking is kept.</p>
+ */
 @Path("/guest-bookings")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@Traced("rest")
 public class GuestBookingRestService {
 
     @Inject
-    CustomerService customerService;
+    @Named("logger")
+    StructuredLogger log;
 
     @Inject
-    BookingService bookingService;
+    CustomerService customerService;
 
     @Inject
-    UserTransaction userTransaction;
+    BookingService bookingService;
 
     @POST
+    @RateLimited("guest-bookings")
     @Transactional
     public Response createGuestBooking(GuestBooking guestBooking) {
-        try {
-            userTransaction.begin();
 
+        if (guestBooking == null || guestBooking.getCustomer() == null || guestBooking.getBooking() == null) {
+            throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
+        }
+
+        try {
             // Save Customer
             Customer savedCustomer = customerService.create(guestBooking.getCustomer());
 
@@ -44,20 +67,22 @@ public class GuestBookingRestService {
             // Save Booking
             Booking savedBooking = bookingService.create(guestBooking.getBooking());
 
-            userTransaction.commit();
-
+            log.info("createGuestBooking completed", "customerId", savedCustomer.getId(), "bookingId", savedBooking.getId());
             return Response.status(Response.Status.CREATED).entity(savedBooking).build();
+        } catch (ConstraintViolationException ce) {
+            throw new RestServiceException("Bad Request", ErrorReasons.of(ce.getConstraintViolations()), Response.Status.BAD_REQUEST, ce);
+        } catch (UniqueEmailException e) {
+            throw new RestServiceException("Bad Request", ErrorReasons.UNIQUE_EMAIL, Response.Status.CONFLICT, e);
+        } catch (UniquePhoneException e) {
+            throw new RestServiceException("Bad Request", ErrorReasons.UNIQUE_PHONE, Response.Status.CONFLICT, e);
+        } catch (CustomerNotExist e) {
+            throw new RestServiceException("Bad Request", ErrorReasons.CUSTOMER_NOT_EXIST, Response.Status.CONFLICT, e);
+        } catch (HotelNotExist e) {
+            throw new RestServiceException("Bad Request", ErrorReasons.HOTEL_NOT_EXIST, Response.Status.CONFLICT, e);
+        } catch (RestServiceException e) {
+            throw e;
         } catch (Exception e) {
-            try {
-                userTransaction.rollback();
-            } catch (Exception rollbackException) {
-                // Handle rollback exception
-                rollbackException.printStackTrace();
-            }
-
-            // Handle the original exception
-            e.printStackTrace();
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Error processing the request").build();
+            throw new RestServiceException(e);
         }
     }
 }
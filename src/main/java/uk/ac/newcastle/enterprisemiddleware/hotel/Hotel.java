@@ -1,8 +1,12 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.ColumnDefault;
 import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSchema;
+import uk.ac.newcastle.enterprisemiddleware.util.Versioned;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -21,12 +25,17 @@ import java.util.List;
 })
 @XmlRootElement
 @Table(name = "hotels", uniqueConstraints = @UniqueConstraint(columnNames = "phoneNumber"))
-public class Hotel implements Serializable {
+public class Hotel implements Serializable, Versioned {
     public static final String FIND_ALL = "hotel.findAll";
     public static final String FIND_BY_POSTALCODE = "hotel.findByPostalCode";
 
     public static final String FIND_BY_PHONE = "hotel.findByPhone";
 
+    /**
+     * The attributes a {@code fields} query parameter may select.
+     */
+    public static final FieldSchema FIELDS = FieldSchema.of("h", "id", "name", "location", "phoneNumber", "postalCode", "version");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -47,6 +56,12 @@ public class Hotel implements Serializable {
     @Pattern(regexp = "^[a-zA-Z0-9]*$", message = "Postal code must be alphanumeric")
     private String postalCode;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @JsonIgnore
     @OneToMany(mappedBy = "hotel", cascade = CascadeType.REMOVE, orphanRemoval = true)
     private List<Booking> bookings;
@@ -106,6 +121,15 @@ public class Hotel implements Serializable {
         this.postalCode = postalCode;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Hotel{" +
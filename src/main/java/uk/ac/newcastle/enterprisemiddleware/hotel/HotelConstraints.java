@@ -0,0 +1,44 @@
+package uk.ac.newcastle.enterprisemiddleware.hotel;
+
+import uk.ac.newcastle.enterprisemiddleware.util.Violations;
+
+import javax.validation.ConstraintViolation;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Precompiled form of the Bean Validation constraints declared on {@link Hotel}.</p>
+ *
+ * <p>Checks the same constraints, with the same messages, as {@code validator.validate(hotel)} but with the patterns
+ * compiled once and without any reflection. Keep this in step with the annotations on Hotel;
+ * PrecompiledConstraintsTest compares the two.</p>
+ */
+public final class HotelConstraints {
+
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^0[0-9]{10}$");
+    private static final Pattern POSTAL_CODE = Pattern.compile("^[a-zA-Z0-9]*$");
+
+    private HotelConstraints() {
+    }
+
+    public static Set<ConstraintViolation<Hotel>> validate(Hotel hotel) {
+        Violations<Hotel> v = new Violations<>(hotel);
+
+        String name = hotel.getName();
+        v.notBlank("name", name, "Hotel name is required");
+        v.size("name", name, 0, 50, "Hotel name must be less than or equal to 50 characters");
+
+        v.notBlank("location", hotel.getLocation(), "Location is required");
+
+        String phoneNumber = hotel.getPhoneNumber();
+        v.notBlank("phoneNumber", phoneNumber, "Phone number is required");
+        v.pattern("phoneNumber", phoneNumber, PHONE_NUMBER, "Invalid phone number format");
+
+        String postalCode = hotel.getPostalCode();
+        v.notBlank("postalCode", postalCode, "Postal code is required");
+        v.size("postalCode", postalCode, 6, 6, "Postal code must be 6 characters long");
+        v.pattern("postalCode", postalCode, POSTAL_CODE, "Postal code must be alphanumeric");
+
+        return v.result();
+    }
+}
@@ -1,15 +1,32 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 
+import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.datasource.EntityManagerRouter;
+import uk.ac.newcastle.enterprisemiddleware.datasource.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.eventlog.EventLog;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.occupancy.OccupancyRepository;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.transaction.Transactional;
+import javax.ws.rs.core.Response;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * This Repository class provides data access operations for Hotel entities.
@@ -18,18 +35,32 @@ import java.util.List;
  * @author [Your Name]
  */
 @ApplicationScoped
+@Traced("repository")
 public class HotelRepository {
 
     @PersistenceContext
     EntityManager em;
 
+    @Inject
+    EntityManagerRouter router;
+
+    @Inject
+    Event<TrackedTable> changes;
+
+    @Inject
+    EventLog events;
+
+    @Inject
+    OccupancyRepository occupancy;
+
     /**
      * Returns a List of all persisted Hotel entities.
      *
      * @return List of Hotel entities
      */
+    @ReadOnly
     public List<Hotel> findAll() {
-        TypedQuery<Hotel> query = em.createQuery("SELECT h FROM Hotel h", Hotel.class);
+        TypedQuery<Hotel> query = router.current().createQuery("SELECT h FROM Hotel h", Hotel.class);
         return query.getResultList();
     }
 
@@ -39,8 +70,9 @@ public class HotelRepository {
      * @param id The id field of the Hotel to be returned
      * @return The Hotel with the specified id
      */
+    @ReadOnly
     public Hotel findById(Long id) {
-        return em.find(Hotel.class, id);
+        return router.current().find(Hotel.class, id);
     }
 
     /**
@@ -51,29 +83,74 @@ public class HotelRepository {
      */
     public Hotel create(Hotel hotel) {
         em.persist(hotel);
+        events.append("hotel.created", hotel);
+        changes.fire(TrackedTable.HOTELS);
         return hotel;
     }
 
     /**
      * Updates an existing Hotel entity in the application database with the provided Hotel entity.
      *
+     * If the provided Hotel carries a version (taken from the client's If-Match header) it must still be the stored
+     * one, otherwise a {@link StaleVersionException} is thrown. Without one the update applies to whatever version is
+     * stored. The change is flushed straight away, so a concurrent commit surfaces here as an OptimisticLockException
+     * and the returned Hotel carries its new version.
+     *
+     * The editable fields are copied onto the stored Hotel rather than merged, as the provided Hotel has no bookings
+     * and merging it would drop the stored ones from their orphan removing collection. The version is incremented
+     * even when no field changes, so every acknowledged update is a new version.
+     *
      * @param hotel The Hotel entity to be passed as an update to the application database
      * @return The Hotel entity that has been successfully updated in the application database
+     * @throws HotelServiceException NOT_FOUND if there is no such Hotel
      */
     public Hotel update(Hotel hotel) {
-        return em.merge(hotel);
+        Hotel current = em.find(Hotel.class, hotel.getId());
+        if (current == null) {
+            throw new HotelServiceException("No Hotel with the id " + hotel.getId() + " was found!", Response.Status.NOT_FOUND);
+        }
+        StaleVersionException.check("Hotel " + hotel.getId(), hotel.getVersion(), current.getVersion());
+        boolean unchanged = Objects.equals(current.getName(), hotel.getName())
+                && Objects.equals(current.getLocation(), hotel.getLocation())
+                && Objects.equals(current.getPhoneNumber(), hotel.getPhoneNumber())
+                && Objects.equals(current.getPostalCode(), hotel.getPostalCode());
+        if (unchanged) {
+            // Nothing for the flush to write, so the version is incremented here
+            em.lock(current, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+        } else {
+            current.setName(hotel.getName());
+            current.setLocation(hotel.getLocation());
+            current.setPhoneNumber(hotel.getPhoneNumber());
+            current.setPostalCode(hotel.getPostalCode());
+        }
+        em.flush();
+        events.append("hotel.updated", current);
+        changes.fire(TrackedTable.HOTELS);
+        return current;
     }
 
     /**
      * Deletes the provided Hotel entity from the application database if found there.
      *
+     * Runs in a transaction of its own when called outside one, as it is once the Hotel's Bookings are purged.
+     *
      * @param hotel The Hotel entity to be removed from the application database
      * @return The Hotel entity that has been successfully removed from the application database; or null
      */
+    @Transactional
     public Hotel delete(Hotel hotel) {
         Hotel deletedHotel = findById(hotel.getId());
         if (deletedHotel != null) {
+            // Archived bookings are not cascaded, and would keep the hotel row referenced
+            em.createQuery("DELETE FROM ArchivedBooking a WHERE a.hotel.id = :hotelId")
+                    .setParameter("hotelId", deletedHotel.getId())
+                    .executeUpdate();
             em.remove(deletedHotel);
+            occupancy.releaseHotel(deletedHotel.getId());
+            events.append("hotel.deleted", deletedHotel);
+            // The hotel's bookings are removed with it
+            changes.fire(TrackedTable.HOTELS);
+            changes.fire(TrackedTable.BOOKINGS);
         }
         return deletedHotel;
     }
@@ -84,8 +161,9 @@ public class HotelRepository {
      * @param location The location field of the Hotel entities to be returned
      * @return List of Hotel entities with the specified location
      */
+    @ReadOnly
     public List<Hotel> findAllByLocation(String location) {
-        TypedQuery<Hotel> query = em.createQuery("SELECT h FROM Hotel h WHERE h.location = :location", Hotel.class);
+        TypedQuery<Hotel> query = router.current().createQuery("SELECT h FROM Hotel h WHERE h.location = :location", Hotel.class);
         query.setParameter("location", location);
         return query.getResultList();
     }
@@ -96,8 +174,9 @@ public class HotelRepository {
      * @param phoneNumber The phone number field of the Hotel to be returned
      * @return The Hotel with the specified phone number
      */
+    @ReadOnly
     public Hotel findByPhoneNumber(String phoneNumber) {
-        TypedQuery<Hotel> query = em.createNamedQuery(Hotel.FIND_BY_PHONE, Hotel.class).setParameter("phoneNumber", phoneNumber);;
+        TypedQuery<Hotel> query = router.current().createNamedQuery(Hotel.FIND_BY_PHONE, Hotel.class).setParameter("phoneNumber", phoneNumber);;
         query.setParameter("phoneNumber", phoneNumber);
         return query.getSingleResult();
     }
@@ -108,12 +187,33 @@ public class HotelRepository {
      * @param postalCode The postal code field of the Hotel entities to be returned
      * @return List of Hotel entities with the specified postal code
      */
+    @ReadOnly
     public List<Hotel> findAllByPostalCode(String postalCode) {
-        TypedQuery<Hotel> query = em.createNamedQuery(Hotel.FIND_BY_POSTALCODE, Hotel.class).setParameter("postalCode", postalCode);
+        TypedQuery<Hotel> query = router.current().createNamedQuery(Hotel.FIND_BY_POSTALCODE, Hotel.class).setParameter("postalCode", postalCode);
         query.setParameter("postalCode", postalCode);
         return query.getResultList();
     }
 
+    /**
+     * Counts the Bookings of a Hotel whose stay overlaps the given dates. Stays are half open, so a Booking checking
+     * out on the day another checks in does not overlap it. The (hotel_id, check_in_date) index on bookings keeps this
+     * a range scan over one Hotel's Bookings.
+     *
+     * @param hotelId The id of the Hotel
+     * @param checkInDate The first night of the stay
+     * @param checkOutDate The day the stay ends
+     * @param excludedId The id of a Booking to ignore (the one being updated), or null
+     * @return The number of overlapping Bookings
+     */
+    @ReadOnly
+    public long countOverlappingBookings(Long hotelId, LocalDate checkInDate, LocalDate checkOutDate, Long excludedId) {
+        return router.current().createNamedQuery(Booking.COUNT_OVERLAPPING, Long.class)
+                .setParameter("hotelId", hotelId)
+                .setParameter("checkInDate", checkInDate)
+                .setParameter("checkOutDate", checkOutDate)
+                .setParameter("excludedId", excludedId == null ? -1L : excludedId)
+                .getSingleResult();
+    }
 
     /**
      * Returns a list of Hotel objects, specified by a String name.
@@ -121,11 +221,61 @@ public class HotelRepository {
      * @param name The name field of the Customers to be returned
      * @return The Customers with the specified name
      */
+    @ReadOnly
     List<Hotel> findAllByName(String name) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+        EntityManager reader = router.current();
+        CriteriaBuilder cb = reader.getCriteriaBuilder();
         CriteriaQuery<Hotel> criteria = cb.createQuery(Hotel.class);
         Root<Hotel> hotel = criteria.from(Hotel.class);
         criteria.select(hotel).where(cb.equal(hotel.get("name"), name));
-        return em.createQuery(criteria).getResultList();
+        return reader.createQuery(criteria).getResultList();
+    }
+
+    /**
+     * Returns the selected fields of all persisted Hotels.
+     *
+     * @param fields The fields to read
+     * @return The projected Hotels
+     */
+    @ReadOnly
+    public Projection findAll(FieldSet fields) {
+        return fields.rows(fields.query(router.current(), "FROM Hotel h").getResultList());
+    }
+
+    /**
+     * Returns the selected fields of a single Hotel, specified by an id.
+     *
+     * @param id The id field of the Hotel to be returned
+     * @param fields The fields to read
+     * @return The projected Hotel, or null if there is none with the id
+     */
+    @ReadOnly
+    public Projection findById(Long id, FieldSet fields) {
+        return fields.row(FieldSet.single(fields.query(router.current(), "FROM Hotel h WHERE h.id = :id")
+                .setParameter("id", id)));
+    }
+
+    @ReadOnly
+    public Projection findByPhoneNumber(String phoneNumber, FieldSet fields) {
+        return fields.row(FieldSet.single(fields.query(router.current(), "FROM Hotel h WHERE h.phoneNumber = :phoneNumber")
+                .setParameter("phoneNumber", phoneNumber)));
+    }
+
+    @ReadOnly
+    public Projection findAllByPostalCode(String postalCode, FieldSet fields) {
+        return fields.rows(fields.query(router.current(), "FROM Hotel h WHERE h.postalCode = :postalCode")
+                .setParameter("postalCode", postalCode).getResultList());
+    }
+
+    @ReadOnly
+    public Projection findAllByLocation(String location, FieldSet fields) {
+        return fields.rows(fields.query(router.current(), "FROM Hotel h WHERE h.location = :location")
+                .setParameter("location", location).getResultList());
+    }
+
+    @ReadOnly
+    Projection findAllByName(String name, FieldSet fields) {
+        return fields.rows(fields.query(router.current(), "FROM Hotel h WHERE h.name = :name")
+                .setParameter("name", name).getResultList());
     }
 }
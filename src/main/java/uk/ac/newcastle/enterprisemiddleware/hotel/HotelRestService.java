@@ -5,52 +5,89 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import uk.ac.newcastle.enterprisemiddleware.cache.CachedBody;
+import uk.ac.newcastle.enterprisemiddleware.cache.ConditionalGet;
+import uk.ac.newcastle.enterprisemiddleware.cache.ResponseCache;
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+import uk.ac.newcastle.enterprisemiddleware.codec.BinaryMediaType;
+import uk.ac.newcastle.enterprisemiddleware.codec.Codec;
+import uk.ac.newcastle.enterprisemiddleware.concurrency.Unlimited;
 import uk.ac.newcastle.enterprisemiddleware.contact.Contact;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.datasource.RetryOnConflict;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.occupancy.OccupancyService;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorReasons;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+import uk.ac.newcastle.enterprisemiddleware.util.StaleVersionException;
 import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import javax.persistence.OptimisticLockException;
 import javax.transaction.Transactional;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
-import java.util.HashMap;
-import java.util.List;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
-import java.util.logging.Logger;
 
 @Path("/hotels")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+@Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+@Traced("rest")
 public class HotelRestService {
 
+    private static final int DEFAULT_REPORT_NIGHTS = 30;
+    private static final int MAX_REPORT_NIGHTS = 366;
+
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     HotelService service;
 
+    @Inject
+    ResponseCache responseCache;
+
+    @Inject
+    OccupancyService occupancy;
+
     @GET
+    @ConditionalGet(TrackedTable.HOTELS)
     @Operation(summary = "Fetch all Hotels", description = "Returns a JSON array of all stored Hotel objects.")
-    public Response retrieveAllHotels(@QueryParam("name") String name) {
-        List<Hotel> hotels ;
+    public Response retrieveAllHotels(@QueryParam("name") String name, @QueryParam("fields") String fields,
+                                      @Context HttpHeaders headers) {
+        FieldSet selected = Hotel.FIELDS.parse(fields);
+        Codec codec = Codec.negotiate(headers.getAcceptableMediaTypes());
+        CachedBody hotels;
 
         if (name == null) {
-            hotels = service.findAllHotels();
+            hotels = responseCache.get(TrackedTable.HOTELS, route("/hotels", selected), codec,
+                    () -> selected == null ? service.findAllHotels() : service.findAllHotels(selected));
         } else {
-            hotels = service.findAllByHName(name);
+            hotels = responseCache.get(TrackedTable.HOTELS, route("/hotels?name=" + encode(name), selected), codec,
+                    () -> selected == null ? service.findAllByHName(name) : service.findAllByHName(name, selected));
         }
 
-        return Response.ok(hotels).build();
+        return hotels.toResponse(headers.getHeaderString("Accept-Encoding"));
     }
 
     @GET
+    @ConditionalGet(TrackedTable.HOTELS)
     @Path("/{id:[0-9]+}")
     @Operation(
             summary = "Fetch a Hotel by id",
@@ -64,12 +101,15 @@ public class HotelRestService {
             @Parameter(description = "Id of Hotel to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("id")
-            long id) {
-        Hotel hotel = service.findHotelById(id);
+            long id,
+            @QueryParam("fields")
+            String fields) {
+        FieldSet selected = Hotel.FIELDS.parse(fields);
+        Object hotel = selected == null ? service.findHotelById(id) : service.findHotelById(id, selected);
         if (hotel == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        log.info("findById " + id + ": found Hotel = " + hotel);
+        log.debug("findById", "id", id);
         return Response.ok(hotel).build();
     }
 
@@ -98,7 +138,7 @@ public class HotelRestService {
         } catch (Exception e) {
             handleGenericException(e);
         }
-        log.info("createHotel completed. hotel = " + hotel);
+        log.info("createHotel completed", "id", hotel.getId());
         return builder.build();
     }
 
@@ -110,14 +150,19 @@ public class HotelRestService {
             @APIResponse(responseCode = "400", description = "Invalid Hotel supplied in request body"),
             @APIResponse(responseCode = "404", description = "Hotel with id not found"),
             @APIResponse(responseCode = "409", description = "Hotel details supplied in request body conflict with another existing Hotel"),
+            @APIResponse(responseCode = "412", description = "The Hotel has been modified since the version named in If-Match"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
     @Transactional
+    @RetryOnConflict
     public Response updateHotel(
             @Parameter(description = "Id of Hotel to be updated", required = true)
             @Schema(minimum = "0")
             @PathParam("id")
             long id,
+            @Parameter(description = "ETag of the Hotel version being replaced; omit to update unconditionally")
+            @HeaderParam(HttpHeaders.IF_MATCH)
+            String ifMatch,
             @Parameter(description = "JSON representation of Hotel object to be updated in the database", required = true)
             Hotel hotel) {
         if (hotel == null || hotel.getId() == null) {
@@ -130,14 +175,16 @@ public class HotelRestService {
         }
 
         try {
-            service.updateHotel(hotel);
-            return Response.ok(hotel).build();
+            hotel.setVersion(EntityTags.expectedVersion(ifMatch));
+            Hotel updated = service.updateHotel(hotel);
+            return Response.ok(updated).tag(EntityTags.of(updated.getVersion())).build();
         } catch (Exception e) {
             return handleException(e);
         }
     }
 
     @DELETE
+    @Unlimited
     @Path("/{id:[0-9]+}")
     @Operation(description = "Delete a Hotel from the database")
     @APIResponses(value = {
@@ -146,7 +193,7 @@ public class HotelRestService {
             @APIResponse(responseCode = "404", description = "Hotel with id not found"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
-    @Transactional
+    // Not @Transactional: the Bookings are purged in transactions of their own first, see BookingPurge
     public Response deleteHotel(
             @Parameter(description = "Id of Hotel to be deleted", required = true)
             @Schema(minimum = "0")
@@ -162,25 +209,45 @@ public class HotelRestService {
     }
 
     @GET
-    @Path("/{hotelId}/availability")
-    public String checkHotelAvailability(
+    @ConditionalGet({TrackedTable.HOTELS, TrackedTable.BOOKINGS})
+    @Path("/{hotelId:[0-9]+}/availability")
+    @Operation(description = "Check whether a Hotel is free for the whole of a stay")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The Hotel is available"),
+            @APIResponse(responseCode = "400", description = "Missing or invalid dates (yyyy-MM-dd, check out after check in)"),
+            @APIResponse(responseCode = "404", description = "Hotel with id not found"),
+            @APIResponse(responseCode = "409", description = "The Hotel is already booked for some of the dates")
+    })
+    public Response checkHotelAvailability(
             @PathParam("hotelId") Long hotelId,
             @QueryParam("checkInDate") String checkInDate,
             @QueryParam("checkOutDate") String checkOutDate) {
-        // Implement your logic to check hotel availability here
-
-        // For example, you might check a database or external service
-        // to determine if the hotel is available during the specified dates.
-
-        // If available, return a success message or some relevant information.
-        // If not available, you may throw an exception or return an error message.
+        if (checkInDate == null || checkOutDate == null) {
+            throw new RestServiceException("checkInDate and checkOutDate must be dates in the format yyyy-MM-dd",
+                    Response.Status.BAD_REQUEST);
+        }
+        LocalDate checkIn;
+        LocalDate checkOut;
+        try {
+            checkIn = LocalDate.parse(checkInDate);
+            checkOut = LocalDate.parse(checkOutDate);
+        } catch (DateTimeParseException e) {
+            throw new RestServiceException("checkInDate and checkOutDate must be dates in the format yyyy-MM-dd",
+                    Response.Status.BAD_REQUEST);
+        }
 
-        // For simplicity, this example returns a string. You should customize it based on your use case.
-        return "Hotel is available for booking";
+        try {
+            service.checkHotelAvailability(hotelId, checkIn, checkOut);
+        } catch (HotelServiceException e) {
+            return handleException(e);
+        }
+        log.debug("checkHotelAvailability", "hotelId", hotelId);
+        return Response.ok("Hotel is available for booking").build();
     }
 
 
     @GET
+    @ConditionalGet(TrackedTable.HOTELS)
     @Path("/byPhone/{phoneNumber}")
     @Operation(
             summary = "Fetch a Hotel by phone number",
@@ -193,16 +260,28 @@ public class HotelRestService {
     public Response retrieveHotelByPhone(
             @Parameter(description = "Phone number of Hotel to be fetched", required = true)
             @PathParam("phoneNumber")
-            String phoneNumber) {
+            String phoneNumber,
+            @QueryParam("fields")
+            String fields) {
+        FieldSet selected = Hotel.FIELDS.parse(fields);
+        if (selected != null) {
+            Projection hotel = service.findHotelByPhone(phoneNumber, selected);
+            if (hotel == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            log.debug("findByPhone", "phoneNumber", phoneNumber);
+            return Response.ok(hotel).build();
+        }
         Hotel hotel = service.findHotelByPhone(phoneNumber);
         if (hotel == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        log.info("findByPhone " + phoneNumber + ": found Hotel = " + hotel);
+        log.debug("findByPhone", "phoneNumber", phoneNumber, "id", hotel.getId());
         return Response.ok(hotel).build();
     }
 
     @GET
+    @ConditionalGet(TrackedTable.HOTELS)
     @Path("/byPostalCode/{postalCode}")
     @Operation(
             summary = "Fetch a Hotel by postal code",
@@ -215,16 +294,25 @@ public class HotelRestService {
     public Response retrieveHotelByPostalCode(
             @Parameter(description = "Postal code of Hotel to be fetched", required = true)
             @PathParam("postalCode")
-            String postalCode) {
-        List<Hotel> hotel = service.findHotelByPostalCode(postalCode);
+            String postalCode,
+            @QueryParam("fields")
+            String fields,
+            @Context
+            HttpHeaders headers) {
+        FieldSet selected = Hotel.FIELDS.parse(fields);
+        Codec codec = Codec.negotiate(headers.getAcceptableMediaTypes());
+        CachedBody hotel = responseCache.get(TrackedTable.HOTELS, route("/hotels/byPostalCode/" + encode(postalCode), selected),
+                codec, () -> selected == null ? service.findHotelByPostalCode(postalCode)
+                        : service.findHotelByPostalCode(postalCode, selected));
         if (hotel == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        log.info("findByPostalCode " + postalCode + ": found Hotel = " + hotel);
-        return Response.ok(hotel).build();
+        log.debug("findByPostalCode", "postalCode", postalCode);
+        return hotel.toResponse(headers.getHeaderString("Accept-Encoding"));
     }
 
     @GET
+    @ConditionalGet(TrackedTable.HOTELS)
     @Path("/byLocation/{location}")
     @Operation(
             summary = "Fetch a Hotel by location",
@@ -237,27 +325,160 @@ public class HotelRestService {
     public Response retrieveHotelByLocation(
             @Parameter(description = "Location of Hotel to be fetched", required = true)
             @PathParam("location")
-            String location) {
-        List<Hotel> hotel = service.findHotelByLocation(location);
+            String location,
+            @QueryParam("fields")
+            String fields,
+            @Context
+            HttpHeaders headers) {
+        FieldSet selected = Hotel.FIELDS.parse(fields);
+        Codec codec = Codec.negotiate(headers.getAcceptableMediaTypes());
+        CachedBody hotel = responseCache.get(TrackedTable.HOTELS, route("/hotels/byLocation/" + encode(location), selected),
+                codec, () -> selected == null ? service.findHotelByLocation(location)
+                        : service.findHotelByLocation(location, selected));
         if (hotel == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        log.info("findByLocation " + location + ": found Hotel = " + hotel);
-        return Response.ok(hotel).build();
+        log.debug("findByLocation", "location", location);
+        return hotel.toResponse(headers.getHeaderString("Accept-Encoding"));
+    }
+
+    @GET
+    @ConditionalGet({TrackedTable.HOTELS, TrackedTable.BOOKINGS})
+    @Path("/{id:[0-9]+}/occupancy")
+    @Operation(
+            summary = "Fetch the daily occupancy of a Hotel",
+            description = "Returns the nights from 'from' (default today) up to, not including, 'to' (default 30 nights"
+                    + " later), at most 366 of them, with whether each is booked and the share of them that are."
+    )
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The occupancy of the Hotel"),
+            @APIResponse(responseCode = "400", description = "Invalid dates (yyyy-MM-dd, to after from) or range too long"),
+            @APIResponse(responseCode = "404", description = "Hotel with id not found")
+    })
+    public Response retrieveHotelOccupancy(
+            @Parameter(description = "Id of the Hotel")
+            @Schema(minimum = "0", required = true)
+            @PathParam("id")
+            long id,
+            @QueryParam("from")
+            String from,
+            @QueryParam("to")
+            String to) {
+        LocalDate first = reportDate("from", from, LocalDate.now());
+        LocalDate end = reportDate("to", to, first.plusDays(DEFAULT_REPORT_NIGHTS));
+        checkReportRange(first, end);
+        if (service.findHotelById(id) == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return Response.ok(occupancy.forHotel(id, first, end)).build();
+    }
+
+    @GET
+    @ConditionalGet({TrackedTable.HOTELS, TrackedTable.BOOKINGS})
+    @Path("/occupancy")
+    @Operation(
+            summary = "Fetch the daily occupancy of the Hotels in a location",
+            description = "Returns the nights from 'from' (default today) up to, not including, 'to' (default 30 nights"
+                    + " later), at most 366 of them, with the number of Hotels booked each night and the share of"
+                    + " hotel nights that are."
+    )
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The occupancy of the location"),
+            @APIResponse(responseCode = "400", description = "Missing location, invalid dates or range too long")
+    })
+    public Response retrieveLocationOccupancy(
+            @Parameter(description = "Location of the Hotels", required = true)
+            @QueryParam("location")
+            String location,
+            @QueryParam("from")
+            String from,
+            @QueryParam("to")
+            String to) {
+        if (location == null || location.isBlank()) {
+            throw new RestServiceException("location is required", Response.Status.BAD_REQUEST);
+        }
+        LocalDate first = reportDate("from", from, LocalDate.now());
+        LocalDate end = reportDate("to", to, first.plusDays(DEFAULT_REPORT_NIGHTS));
+        checkReportRange(first, end);
+        return Response.ok(occupancy.forLocation(location, first, end)).build();
+    }
+
+    @POST
+    @Unlimited
+    @Path("/occupancy/rebuild")
+    @Operation(
+            summary = "Rebuild the occupancy rollup",
+            description = "Recounts every booked hotel night from the Bookings, in parallel, and replaces the counters"
+                    + " the occupancy reports are read from. Bookings made while it runs may be missed."
+    )
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "The number of booked hotel nights counted")
+    })
+    @Consumes(MediaType.WILDCARD)
+    @Transactional
+    public Response rebuildOccupancy() {
+        return Response.ok(Map.of("nights", occupancy.rebuild())).build();
     }
 
+    private static LocalDate reportDate(String name, String value, LocalDate fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new RestServiceException(name + " must be a date in the format yyyy-MM-dd",
+                    Response.Status.BAD_REQUEST);
+        }
+    }
+
+    private static void checkReportRange(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from) || from.plusDays(MAX_REPORT_NIGHTS).isBefore(to)) {
+            throw new RestServiceException("to must be after from, and at most " + MAX_REPORT_NIGHTS + " nights later",
+                    Response.Status.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Escapes a request value for a response cache route, so that it cannot add parameters of its own, e.g. a name
+     * ending in {@code &fields=id}.
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The response cache route of a request, with its field set in canonical form, so differently spelled
+     * {@code fields} values that select the same attributes share an entry.
+     */
+    private static String route(String path, FieldSet selected) {
+        if (selected == null) {
+            return path;
+        }
+        return path + (path.indexOf('?') < 0 ? '?' : '&') + "fields=" + selected.key();
+    }
 
     private void handleUniquePhoneException(UniquePhoneException e) {
-        Map<String, String> responseObj = new HashMap<>();
-        responseObj.put("phone", "That phone is already used, please use a unique phone");
-        throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        throw new RestServiceException("Bad Request", ErrorReasons.UNIQUE_PHONE, Response.Status.CONFLICT, e);
     }
 
     private Response handleException(Exception e) {
+        if (e instanceof OptimisticLockException) {
+            // Lost a race with a concurrent update, RetryOnConflict runs the transaction again
+            throw (OptimisticLockException) e;
+        }
+        if (e instanceof StaleVersionException) {
+            StaleVersionException sve = (StaleVersionException) e;
+            return Response.status(Response.Status.PRECONDITION_FAILED)
+                    .tag(EntityTags.of(sve.getCurrentVersion()))
+                    .entity(ErrorReasons.STALE_VERSION)
+                    .build();
+        }
         if (e instanceof HotelServiceException) {
             HotelServiceException hse = (HotelServiceException) e;
             return Response.status(hse.getStatus()).entity(hse.getResponseObject()).build();
         } else {
+            log.error("unexpected hotel request failure", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -1,16 +1,24 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingPurge;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.FieldSet;
+import uk.ac.newcastle.enterprisemiddleware.fieldset.Projection;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.metrics.Monitored;
+import uk.ac.newcastle.enterprisemiddleware.metrics.ServerTiming;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.transaction.Transactional;
 import javax.validation.ConstraintViolationException;
+import javax.ws.rs.core.Response;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.logging.Logger;
+import java.util.Map;
 
 /**
  * This Service class assumes the Control responsibility in the ECB pattern.
@@ -22,11 +30,13 @@ import java.util.logging.Logger;
  * @see HotelRepository
  */
 @Dependent
+@Monitored
+@Traced("service")
 public class HotelService {
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
 
     @Inject
     HotelValidator validator;
@@ -34,6 +44,12 @@ public class HotelService {
     @Inject
     HotelRepository crud;
 
+    @Inject
+    BookingPurge purge;
+
+    @Inject
+    ServerTiming timing;
+
     @RestClient
     AreaService areaService;
     /**
@@ -97,8 +113,38 @@ public class HotelService {
         return crud.findAllByLocation(location);
     }
 
+    /**
+     * Returns the selected fields of all persisted Hotels.
+     *
+     * @param fields The fields to read
+     * @return The projected Hotels
+     */
+    public Projection findAllHotels(FieldSet fields) {
+        return crud.findAll(fields);
+    }
+
+    public Projection findHotelById(Long id, FieldSet fields) {
+        return crud.findById(id, fields);
+    }
+
+    public Projection findHotelByPhone(String phoneNumber, FieldSet fields) {
+        return crud.findByPhoneNumber(phoneNumber, fields);
+    }
+
+    Projection findHotelByPostalCode(String postalCode, FieldSet fields) {
+        return crud.findAllByPostalCode(postalCode, fields);
+    }
+
+    Projection findAllByHName(String name, FieldSet fields) {
+        return crud.findAllByName(name, fields);
+    }
+
+    Projection findHotelByLocation(String location, FieldSet fields) {
+        return crud.findAllByLocation(location, fields);
+    }
+
     public Hotel createHotel(Hotel hotel) throws ConstraintViolationException {
-        log.info("HotelService.createHotel() - Creating hotel with name: " + hotel.getName());
+        log.info("HotelService.createHotel()", "name", hotel.getName());
 
         // Check to make sure the data fits with the parameters in the Hotel model and passes validation.
         validator.validateHotel(hotel);
@@ -118,29 +164,33 @@ public class HotelService {
      */
 
     public Hotel updateHotel(Hotel hotel) throws ConstraintViolationException {
-        log.info("HotelService.updateHotel() - Updating hotel with name: " + hotel.getName());
+        log.info("HotelService.updateHotel()", "id", hotel.getId(), "name", hotel.getName());
 
         // Check to make sure the data fits with the parameters in the Hotel model and passes validation.
         validator.validateHotel(hotel);
 
-        // Either update the hotel or add it if it can't be found.
         return crud.update(hotel);
     }
 
     /**
      * Deletes the provided Hotel object from the application database if found there.
      *
+     * Its Bookings are purged in chunks first (see {@link BookingPurge}), so the delete itself stays short.
+     *
      * @param hotel The Hotel object to be removed from the application database
      * @return The Hotel object that has been successfully removed from the application database; or null
      */
 
     public Hotel deleteHotel(Hotel hotel) {
-        log.info("HotelService.deleteHotel() - Deleting hotel with name: " + hotel.getName());
+        log.info("HotelService.deleteHotel()", "id", hotel.getId());
 
         Hotel deletedHotel = null;
 
         if (hotel.getId() != null) {
+            purge.byHotel(hotel.getId());
+            long start = System.nanoTime();
             deletedHotel = crud.delete(hotel);
+            timing.record("hotel", System.nanoTime() - start, null);
         } else {
             log.info("deleteHotel() - No ID was found so can't Delete.");
         }
@@ -150,5 +200,31 @@ public class HotelService {
 
 
     public void checkHotelAvailability(Long hotelId, LocalDate checkInDate, LocalDate checkOutDate) {
+        checkHotelAvailability(hotelId, checkInDate, checkOutDate, null);
+    }
+
+    /**
+     * Checks that a Hotel exists and has no Booking overlapping the given stay. A Hotel is booked as a whole, so any
+     * overlap is a conflict.
+     *
+     * @param hotelId The id of the Hotel
+     * @param checkInDate The first night of the stay
+     * @param checkOutDate The day the stay ends; must be after checkInDate
+     * @param excludedBookingId The Booking being updated, which must not conflict with itself; or null
+     * @throws HotelServiceException NOT_FOUND if there is no such Hotel, BAD_REQUEST if the dates are missing or out of
+     * order, and CONFLICT if the Hotel is already booked for part of the stay
+     */
+    public void checkHotelAvailability(Long hotelId, LocalDate checkInDate, LocalDate checkOutDate, Long excludedBookingId) {
+        if (checkInDate == null || checkOutDate == null || !checkOutDate.isAfter(checkInDate)) {
+            throw new HotelServiceException("The check out date must be after the check in date",
+                    Response.Status.BAD_REQUEST, Map.of("checkOutDate", "The check out date must be after the check in date"));
+        }
+        if (crud.findById(hotelId) == null) {
+            throw new HotelServiceException("No Hotel with the id " + hotelId + " was found!", Response.Status.NOT_FOUND);
+        }
+        if (crud.countOverlappingBookings(hotelId, checkInDate, checkOutDate, excludedBookingId) > 0) {
+            throw new HotelServiceException("Hotel is not available for the requested dates",
+                    Response.Status.CONFLICT, Map.of("hotel", "The hotel is already booked for some of the requested dates"));
+        }
     }
 }
\ No newline at end of file
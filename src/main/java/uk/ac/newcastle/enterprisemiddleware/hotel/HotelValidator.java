@@ -1,6 +1,7 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.customer.CustomerRepository;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
 import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -8,8 +9,6 @@ import javax.inject.Inject;
 import javax.persistence.NoResultException;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
-import javax.validation.Validator;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -18,13 +17,12 @@ import java.util.Set;
  * @author [Your Name]
  * @see Hotel
  * @see HotelRepository (if you have a repository)
- * @see Validator
+ * @see HotelConstraints
  */
 @ApplicationScoped
+@Traced("validator")
 public class HotelValidator {
 
-    @Inject
-    Validator validator;
     @Inject
     HotelRepository crud;
     // You can inject HotelRepository if you need to perform additional validations
@@ -36,11 +34,11 @@ public class HotelValidator {
      * @throws ConstraintViolationException If Bean Validation errors exist
      */
     public void validateHotel(Hotel hotel) throws ConstraintViolationException {
-        // Create a bean validator and check for issues.
-        Set<ConstraintViolation<Hotel>> violations = validator.validate(hotel);
+        // Check the bean validation constraints declared on Hotel.
+        Set<ConstraintViolation<Hotel>> violations = HotelConstraints.validate(hotel);
 
         if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<>(violations));
+            throw new ConstraintViolationException(violations);
         }
         if (phoneAlreadyExists(hotel.getPhoneNumber(), hotel.getId())) {
             throw new UniquePhoneException("Unique PhoneNumber Violation");
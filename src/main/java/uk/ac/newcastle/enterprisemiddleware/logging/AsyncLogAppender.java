@@ -0,0 +1,210 @@
+package uk.ac.newcastle.enterprisemiddleware.logging;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * <p>Asynchronous appender behind every {@link StructuredLogger}.</p>
+ *
+ * <p>Events are written into a fixed ring of preallocated {@link LogEvent} slots. Producers claim a sequence with a
+ * CAS and publish the slot by writing its sequence number, so request threads never take a lock or wait on I/O. A
+ * single background thread consumes the slots in order, formats each event as {@code event key=value ...} and passes
+ * it to the underlying JBoss/JUL logger, where the usual Quarkus handlers and formatting apply.</p>
+ *
+ * <p>When the ring is full INFO and DEBUG events are dropped and counted; WARN and ERROR events are written
+ * synchronously instead so that failures are never lost.</p>
+ *
+ * <p>Sampling is configured per category, falling back to the enclosing packages, e.g.
+ * <pre>logging.sampling.uk.ac.newcastle.enterprisemiddleware.booking=10</pre>
+ * keeps one in ten INFO/DEBUG events from the booking package.</p>
+ */
+@Singleton
+public class AsyncLogAppender {
+
+    private static final String SAMPLING_PREFIX = "logging.sampling.";
+
+    @ConfigProperty(name = "logging.async.buffer-size", defaultValue = "8192")
+    int bufferSize;
+
+    @Inject
+    Config config;
+
+    private final ConcurrentMap<String, StructuredLogger> loggers = new ConcurrentHashMap<>();
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    private LogEvent[] slots;
+    private AtomicLongArray published;
+    private int mask;
+    private volatile long consumed;
+    private volatile boolean running;
+    private Thread consumer;
+
+    @PostConstruct
+    void start() {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        slots = new LogEvent[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent();
+            published.set(i, -1);
+        }
+        mask = capacity - 1;
+
+        running = true;
+        consumer = new Thread(this::consume, "async-log-appender");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * <p>Returns the (shared) logger for a category, resolving its sample rate on first use.</p>
+     *
+     * @param category The logger category, normally the declaring class name
+     * @return The StructuredLogger for that category
+     */
+    public StructuredLogger logger(String category) {
+        StructuredLogger logger = loggers.get(category);
+        if (logger == null) {
+            logger = loggers.computeIfAbsent(category,
+                    c -> new StructuredLogger(Logger.getLogger(c), this, sampleEvery(c)));
+        }
+        return logger;
+    }
+
+    /**
+     * @return The number of events dropped because the ring buffer was full
+     */
+    public long droppedEvents() {
+        return dropped.sum();
+    }
+
+    void append(Logger target, Level level, String event, String k1, Object v1, String k2, Object v2,
+                String k3, Object v3, Throwable thrown) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= slots.length) {
+                if (level.intValue() >= Level.WARNING.intValue()) {
+                    target.log(record(target, level, System.currentTimeMillis(), Thread.currentThread().getName(),
+                            event, k1, v1, k2, v2, k3, v3, thrown, new StringBuilder()));
+                } else {
+                    dropped.increment();
+                }
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int index = (int) (seq & mask);
+        LogEvent slot = slots[index];
+        slot.target = target;
+        slot.level = level;
+        slot.epochMillis = System.currentTimeMillis();
+        slot.thread = Thread.currentThread().getName();
+        slot.event = event;
+        slot.k1 = k1;
+        slot.v1 = v1;
+        slot.k2 = k2;
+        slot.v2 = v2;
+        slot.k3 = k3;
+        slot.v3 = v3;
+        slot.thrown = thrown;
+        published.set(index, seq);
+    }
+
+    private void consume() {
+        StringBuilder line = new StringBuilder(256);
+        int idle = 0;
+        while (true) {
+            long next = consumed;
+            int index = (int) (next & mask);
+            if (published.get(index) == next) {
+                LogEvent slot = slots[index];
+                slot.target.log(record(slot.target, slot.level, slot.epochMillis, slot.thread, slot.event,
+                        slot.k1, slot.v1, slot.k2, slot.v2, slot.k3, slot.v3, slot.thrown, line));
+                slot.clear();
+                consumed = next + 1;
+                idle = 0;
+            } else if (!running && claimed.get() == next) {
+                return;
+            } else if (++idle > 100) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(Math.min(idle, 1000)));
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static LogRecord record(Logger target, Level level, long epochMillis, String thread, String event,
+                                    String k1, Object v1, String k2, Object v2, String k3, Object v3,
+                                    Throwable thrown, StringBuilder line) {
+        line.setLength(0);
+        line.append(event);
+        field(line, k1, v1);
+        field(line, k2, v2);
+        field(line, k3, v3);
+        field(line, "thread", thread);
+
+        LogRecord record = new LogRecord(level, line.toString());
+        record.setLoggerName(target.getName());
+        record.setInstant(Instant.ofEpochMilli(epochMillis));
+        record.setThrown(thrown);
+        return record;
+    }
+
+    private static void field(StringBuilder line, String key, Object value) {
+        if (key == null) {
+            return;
+        }
+        line.append(' ').append(key).append('=');
+        String text = String.valueOf(value);
+        if (text.indexOf(' ') < 0 && text.indexOf('"') < 0) {
+            line.append(text);
+        } else {
+            line.append('"').append(text.replace("\"", "\\\"")).append('"');
+        }
+    }
+
+    private int sampleEvery(String category) {
+        String name = category;
+        while (true) {
+            Optional<Integer> rate = config.getOptionalValue(SAMPLING_PREFIX + name, Integer.class);
+            if (rate.isPresent()) {
+                return rate.get();
+            }
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                return 1;
+            }
+            name = name.substring(0, dot);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package uk.ac.newcastle.enterprisemiddleware.logging;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>A preallocated slot in the {@link AsyncLogAppender} ring buffer.</p>
+ *
+ * <p>Slots are reused for the lifetime of the appender: a producer fills one in after claiming its sequence and the
+ * consumer clears the references again once the event has been written.</p>
+ */
+final class LogEvent {
+
+    Logger target;
+    Level level;
+    long epochMillis;
+    String thread;
+    String event;
+    String k1;
+    Object v1;
+    String k2;
+    Object v2;
+    String k3;
+    Object v3;
+    Throwable thrown;
+
+    void clear() {
+        target = null;
+        level = null;
+        thread = null;
+        event = null;
+        k1 = null;
+        v1 = null;
+        k2 = null;
+        v2 = null;
+        k3 = null;
+        v3 = null;
+        thrown = null;
+    }
+}
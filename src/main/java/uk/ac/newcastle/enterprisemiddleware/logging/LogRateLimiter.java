@@ -0,0 +1,51 @@
+package uk.ac.newcastle.enterprisemiddleware.logging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Allows at most a fixed number of log events per time window and counts the ones it turns away.</p>
+ *
+ * <p>Used in front of error logging that a burst of failing requests could otherwise flood: the first few failures
+ * in each window are logged in full, the rest are only counted, and the count is reported with the next event that
+ * gets through. The check is a couple of atomic operations, so it is cheap enough to sit on the request path.</p>
+ */
+public final class LogRateLimiter {
+
+    private final int permits;
+    private final long windowNanos;
+    private final AtomicLong windowStart;
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogRateLimiter(int permits, long windowNanos) {
+        this.permits = permits;
+        this.windowNanos = windowNanos;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * <p>Takes a permit from the current window, opening a new window first if the current one has expired.</p>
+     *
+     * @return true if the event should be logged, false if it has been counted as suppressed instead
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() <= permits) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return the number of events suppressed since the last call, resetting the count
+     */
+    public long drainSuppressed() {
+        return suppressed.getAndSet(0);
+    }
+}
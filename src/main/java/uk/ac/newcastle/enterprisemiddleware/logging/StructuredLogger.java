@@ -0,0 +1,150 @@
+package uk.ac.newcastle.enterprisemiddleware.logging;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Structured logging facade handed out by {@link uk.ac.newcastle.enterprisemiddleware.util.Resources}.</p>
+ *
+ * <p>A log call names an event and up to three key/value pairs, for example
+ * <pre>log.info("findById", "id", id)</pre>
+ * rather than concatenating a message. The level (and, for INFO and DEBUG, the per-category sample rate) is checked
+ * before anything else happens, so a disabled call does no work beyond the method call itself. Values may be given as
+ * a {@link Supplier}, in which case they are only evaluated when the event is actually logged.</p>
+ *
+ * <p>Enabled events are handed to the {@link AsyncLogAppender} and formatted on its background thread. Values are
+ * therefore read after the call returns and should be immutable (ids, names, numbers) rather than JPA entities.</p>
+ */
+public final class StructuredLogger {
+
+    private final Logger delegate;
+    private final AsyncLogAppender appender;
+    private final int sampleEvery;
+    private int sampleCounter;
+
+    StructuredLogger(Logger delegate, AsyncLogAppender appender, int sampleEvery) {
+        this.delegate = delegate;
+        this.appender = appender;
+        this.sampleEvery = sampleEvery;
+    }
+
+    public boolean isDebugEnabled() {
+        return delegate.isLoggable(Level.FINE);
+    }
+
+    public boolean isInfoEnabled() {
+        return delegate.isLoggable(Level.INFO);
+    }
+
+    public void debug(String event) {
+        if (sampled(Level.FINE)) {
+            append(Level.FINE, event, null, null, null, null, null, null, null);
+        }
+    }
+
+    public void debug(String event, String key, long value) {
+        if (sampled(Level.FINE)) {
+            append(Level.FINE, event, key, value, null, null, null, null, null);
+        }
+    }
+
+    public void debug(String event, String key, Object value) {
+        if (sampled(Level.FINE)) {
+            append(Level.FINE, event, key, value, null, null, null, null, null);
+        }
+    }
+
+    public void debug(String event, String k1, Object v1, String k2, Object v2) {
+        if (sampled(Level.FINE)) {
+            append(Level.FINE, event, k1, v1, k2, v2, null, null, null);
+        }
+    }
+
+    public void info(String event) {
+        if (sampled(Level.INFO)) {
+            append(Level.INFO, event, null, null, null, null, null, null, null);
+        }
+    }
+
+    public void info(String event, String key, long value) {
+        if (sampled(Level.INFO)) {
+            append(Level.INFO, event, key, value, null, null, null, null, null);
+        }
+    }
+
+    public void info(String event, String key, Object value) {
+        if (sampled(Level.INFO)) {
+            append(Level.INFO, event, key, value, null, null, null, null, null);
+        }
+    }
+
+    public void info(String event, String k1, Object v1, String k2, Object v2) {
+        if (sampled(Level.INFO)) {
+            append(Level.INFO, event, k1, v1, k2, v2, null, null, null);
+        }
+    }
+
+    public void info(String event, String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+        if (sampled(Level.INFO)) {
+            append(Level.INFO, event, k1, v1, k2, v2, k3, v3, null);
+        }
+    }
+
+    public void warn(String event, String key, Object value) {
+        if (delegate.isLoggable(Level.WARNING)) {
+            append(Level.WARNING, event, key, value, null, null, null, null, null);
+        }
+    }
+
+    public void warn(String event, Throwable thrown) {
+        if (delegate.isLoggable(Level.WARNING)) {
+            append(Level.WARNING, event, null, null, null, null, null, null, thrown);
+        }
+    }
+
+    public void warn(String event, String key, Object value, Throwable thrown) {
+        if (delegate.isLoggable(Level.WARNING)) {
+            append(Level.WARNING, event, key, value, null, null, null, null, thrown);
+        }
+    }
+
+    public void error(String event, Throwable thrown) {
+        if (delegate.isLoggable(Level.SEVERE)) {
+            append(Level.SEVERE, event, null, null, null, null, null, null, thrown);
+        }
+    }
+
+    public void error(String event, String k1, Object v1, String k2, Object v2, Throwable thrown) {
+        if (delegate.isLoggable(Level.SEVERE)) {
+            append(Level.SEVERE, event, k1, v1, k2, v2, null, null, thrown);
+        }
+    }
+
+    public void error(String event, String k1, Object v1, String k2, Object v2, String k3, Object v3,
+                      Throwable thrown) {
+        if (delegate.isLoggable(Level.SEVERE)) {
+            append(Level.SEVERE, event, k1, v1, k2, v2, k3, v3, thrown);
+        }
+    }
+
+    /**
+     * <p>Checks the level and then the sample rate. The sample counter is deliberately not atomic: a lost update
+     * under contention only shifts which event in the sample window is kept.</p>
+     */
+    private boolean sampled(Level level) {
+        if (!delegate.isLoggable(level)) {
+            return false;
+        }
+        return sampleEvery <= 1 || (sampleCounter++ % sampleEvery) == 0;
+    }
+
+    private void append(Level level, String event, String k1, Object v1, String k2, Object v2, String k3, Object v3,
+                        Throwable thrown) {
+        appender.append(delegate, level, event, k1, resolve(v1), k2, resolve(v2), k3, resolve(v3), thrown);
+    }
+
+    private static Object resolve(Object value) {
+        return value instanceof Supplier ? ((Supplier<?>) value).get() : value;
+    }
+}
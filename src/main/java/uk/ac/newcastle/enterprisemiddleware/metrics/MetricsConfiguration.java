@@ -0,0 +1,41 @@
+package uk.ac.newcastle.enterprisemiddleware.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+import java.time.Duration;
+
+/**
+ * <p>Customises the meters produced by the Quarkus HTTP server binder.</p>
+ *
+ * <p>Per-route request counts and status codes are tagged by the binder itself (using the JAX-RS path templates, so
+ * {@code /bookings/{id}} is a single series). This adds the latency histogram buckets so that percentiles can be
+ * aggregated across instances in Prometheus.</p>
+ */
+@Singleton
+public class MetricsConfiguration {
+
+    private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+
+    @Produces
+    @Singleton
+    public MeterFilter enableRequestLatencyHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(HTTP_SERVER_REQUESTS)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(10).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package uk.ac.newcastle.enterprisemiddleware.metrics;
+
+import javax.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Interceptor binding for Service/Control beans whose outcomes should be recorded by {@link ServiceMetrics}.</p>
+ *
+ * @see MonitoredInterceptor
+ */
+@InterceptorBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Monitored {
+}
@@ -0,0 +1,77 @@
+package uk.ac.newcastle.enterprisemiddleware.metrics;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * <p>Records service outcomes for beans annotated with {@link Monitored}.</p>
+ *
+ * <p>Only the outermost monitored call on a thread records an exception, so a failure that propagates through several
+ * services (e.g. BookingService calling HotelService) is counted once. The first monitored call inside a JTA
+ * transaction registers a shared, stateless {@link Synchronization} which counts the transaction outcome.</p>
+ *
+ * <p>The priority places this interceptor after the platform transaction interceptor so that the transaction started
+ * by a {@code @Transactional} REST method is already active when it runs.</p>
+ *
+ * @see ServiceMetrics
+ */
+@Monitored
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_AFTER + 100)
+public class MonitoredInterceptor {
+
+    private static final Object COMPLETION_KEY = MonitoredInterceptor.class;
+
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Inject
+    ServiceMetrics metrics;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    private final Synchronization completionListener = new Synchronization() {
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            metrics.recordCompletion(status);
+        }
+    };
+
+    @AroundInvoke
+    Object monitor(InvocationContext ctx) throws Exception {
+        registerCompletionListener();
+
+        int[] depth = DEPTH.get();
+        depth[0]++;
+        try {
+            return ctx.proceed();
+        } catch (Exception e) {
+            if (depth[0] == 1) {
+                metrics.recordFailure(e);
+            }
+            throw e;
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    private void registerCompletionListener() {
+        if (txRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            return;
+        }
+        if (txRegistry.getResource(COMPLETION_KEY) == null) {
+            txRegistry.putResource(COMPLETION_KEY, Boolean.TRUE);
+            txRegistry.registerInterposedSynchronization(completionListener);
+        }
+    }
+}
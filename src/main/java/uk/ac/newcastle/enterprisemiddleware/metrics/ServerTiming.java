@@ -0,0 +1,39 @@
+package uk.ac.newcastle.enterprisemiddleware.metrics;
+
+import javax.enterprise.context.RequestScoped;
+import java.util.Locale;
+
+/**
+ * <p>Collects the phases of a long running request, which {@link ServerTimingFilter} sends back as a
+ * {@code Server-Timing} header, e.g.
+ * {@code bookings;dur=812.4;desc="100000 rows in 100 chunks", hotel;dur=3.1}.</p>
+ *
+ * <p>Browser developer tools and most HTTP clients show the header as a breakdown of the response time. Nothing is
+ * sent for a request that recorded no phase.</p>
+ */
+@RequestScoped
+public class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final StringBuilder metrics = new StringBuilder();
+
+    /**
+     * @param name The phase, a token (letters, digits, {@code -} or {@code _})
+     * @param nanos How long it took
+     * @param description What it did, or null; shown next to the phase, must not contain a double quote
+     */
+    public void record(String name, long nanos, String description) {
+        if (metrics.length() > 0) {
+            metrics.append(", ");
+        }
+        metrics.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1e6));
+        if (description != null) {
+            metrics.append(";desc=\"").append(description).append('"');
+        }
+    }
+
+    String header() {
+        return metrics.length() == 0 ? null : metrics.toString();
+    }
+}
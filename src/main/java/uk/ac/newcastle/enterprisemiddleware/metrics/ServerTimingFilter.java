@@ -0,0 +1,25 @@
+package uk.ac.newcastle.enterprisemiddleware.metrics;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * <p>Adds the phases recorded in {@link ServerTiming} to the response.</p>
+ */
+@Provider
+public class ServerTimingFilter implements ContainerResponseFilter {
+
+    @Inject
+    ServerTiming timing;
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        String header = timing.header();
+        if (header != null) {
+            response.getHeaders().add(ServerTiming.HEADER, header);
+        }
+    }
+}
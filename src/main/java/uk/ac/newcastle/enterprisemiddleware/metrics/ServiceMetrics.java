@@ -0,0 +1,119 @@
+package uk.ac.newcastle.enterprisemiddleware.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import uk.ac.newcastle.enterprisemiddleware.contact.UniqueEmailException;
+import uk.ac.newcastle.enterprisemiddleware.util.CustomerNotExist;
+import uk.ac.newcastle.enterprisemiddleware.util.HotelNotExist;
+import uk.ac.newcastle.enterprisemiddleware.util.UniquePhoneException;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.Status;
+
+/**
+ * <p>Holds the application level meters that are not covered by the HTTP server and datasource binders: JTA
+ * transaction outcomes, the service level exceptions raised by the validators and optimistic locking conflicts.</p>
+ *
+ * <p>Every meter is registered once, up front, so that recording on the request path is a plain counter increment
+ * with no tag lookups or allocation.</p>
+ *
+ * @see MonitoredInterceptor
+ */
+@ApplicationScoped
+public class ServiceMetrics {
+
+    static final String TRANSACTIONS = "jta.transactions";
+    static final String EXCEPTIONS = "service.exceptions";
+    static final String CONFLICTS = "persistence.conflicts";
+
+    private final Counter commits;
+    private final Counter rollbacks;
+
+    private final Counter customerNotExist;
+    private final Counter hotelNotExist;
+    private final Counter uniqueEmail;
+    private final Counter uniquePhone;
+
+    private final Counter conflictsRetried;
+    private final Counter conflictsExhausted;
+
+    @Inject
+    public ServiceMetrics(MeterRegistry registry) {
+        commits = transactionCounter(registry, "committed");
+        rollbacks = transactionCounter(registry, "rolled_back");
+
+        customerNotExist = exceptionCounter(registry, CustomerNotExist.class);
+        hotelNotExist = exceptionCounter(registry, HotelNotExist.class);
+        uniqueEmail = exceptionCounter(registry, UniqueEmailException.class);
+        uniquePhone = exceptionCounter(registry, UniquePhoneException.class);
+
+        conflictsRetried = conflictCounter(registry, "retried");
+        conflictsExhausted = conflictCounter(registry, "exhausted");
+    }
+
+    /**
+     * <p>Records the outcome of a completed JTA transaction.</p>
+     *
+     * @param status The {@link Status} passed to {@link javax.transaction.Synchronization#afterCompletion(int)}
+     */
+    void recordCompletion(int status) {
+        if (status == Status.STATUS_COMMITTED) {
+            commits.increment();
+        } else if (status == Status.STATUS_ROLLEDBACK) {
+            rollbacks.increment();
+        }
+    }
+
+    /**
+     * <p>Records a service level exception. Exceptions that are not part of the domain error model are ignored, they
+     * surface through the HTTP status code metrics instead.</p>
+     *
+     * @param e The exception thrown by a Service/Control bean
+     */
+    void recordFailure(Throwable e) {
+        if (e instanceof CustomerNotExist) {
+            customerNotExist.increment();
+        } else if (e instanceof HotelNotExist) {
+            hotelNotExist.increment();
+        } else if (e instanceof UniqueEmailException) {
+            uniqueEmail.increment();
+        } else if (e instanceof UniquePhoneException) {
+            uniquePhone.increment();
+        }
+    }
+
+    /**
+     * <p>Records an optimistic locking conflict seen by the retry interceptor.</p>
+     *
+     * @param retried True if the write was attempted again, false if the attempts were exhausted
+     */
+    public void recordConflict(boolean retried) {
+        if (retried) {
+            conflictsRetried.increment();
+        } else {
+            conflictsExhausted.increment();
+        }
+    }
+
+    private static Counter transactionCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder(TRANSACTIONS)
+                .description("Completed JTA transactions by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter exceptionCounter(MeterRegistry registry, Class<? extends Exception> type) {
+        return Counter.builder(EXCEPTIONS)
+                .description("Service level exceptions raised whilst processing requests")
+                .tag("exception", type.getSimpleName())
+                .register(registry);
+    }
+
+    private static Counter conflictCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder(CONFLICTS)
+                .description("Optimistic locking conflicts on transactional writes by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
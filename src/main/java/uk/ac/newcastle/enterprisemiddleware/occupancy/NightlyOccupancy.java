@@ -0,0 +1,90 @@
+package uk.ac.newcastle.enterprisemiddleware.occupancy;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * <p>The number of Bookings a Hotel has for one night, the night starting on {@code night}.</p>
+ *
+ * <p>A Booking from check in to check out counts on every night from its check in date up to, not including, its check
+ * out date. Only nights with at least one Booking have a row. The counters are kept up to date by
+ * {@link OccupancyRepository} in the transaction of every booking write, and can be rebuilt from the bookings.</p>
+ */
+@Entity
+@IdClass(NightlyOccupancy.Key.class)
+@Table(name = "hotel_occupancy")
+public class NightlyOccupancy implements Serializable {
+
+    @Id
+    @Column(name = "hotel_id")
+    private Long hotelId;
+
+    @Id
+    @Column(name = "night")
+    private LocalDate night;
+
+    @Column(name = "booked", nullable = false)
+    private int booked;
+
+    public NightlyOccupancy() {
+    }
+
+    NightlyOccupancy(Long hotelId, LocalDate night, int booked) {
+        this.hotelId = hotelId;
+        this.night = night;
+        this.booked = booked;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public LocalDate getNight() {
+        return night;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public static class Key implements Serializable {
+
+        private Long hotelId;
+        private LocalDate night;
+
+        public Key() {
+        }
+
+        Key(Long hotelId, LocalDate night) {
+            this.hotelId = hotelId;
+            this.night = night;
+        }
+
+        Long getHotelId() {
+            return hotelId;
+        }
+
+        LocalDate getNight() {
+            return night;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(hotelId, key.hotelId) && Objects.equals(night, key.night);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hotelId, night);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package uk.ac.newcastle.enterprisemiddleware.occupancy;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>Counts the Bookings of every hotel night from a list of stays, splitting the list in halves down to
+ * {@value #THRESHOLD} stays and merging the halves' counts on the way back up.</p>
+ *
+ * <p>A stay is the {@code [hotelId, checkInDate, checkOutDate]} row of {@link OccupancyRepository#findAllStays()}.</p>
+ */
+class OccupancyCount extends RecursiveTask<Map<NightlyOccupancy.Key, Integer>> {
+
+    static final int THRESHOLD = 2048;
+
+    private final List<Object[]> stays;
+    private final int from;
+    private final int to;
+
+    OccupancyCount(List<Object[]> stays) {
+        this(stays, 0, stays.size());
+    }
+
+    private OccupancyCount(List<Object[]> stays, int from, int to) {
+        this.stays = stays;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected Map<NightlyOccupancy.Key, Integer> compute() {
+        if (to - from <= THRESHOLD) {
+            Map<NightlyOccupancy.Key, Integer> counts = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                Object[] stay = stays.get(i);
+                Long hotelId = (Long) stay[0];
+                LocalDate checkOut = (LocalDate) stay[2];
+                for (LocalDate night = (LocalDate) stay[1]; night.isBefore(checkOut); night = night.plusDays(1)) {
+                    counts.merge(new NightlyOccupancy.Key(hotelId, night), 1, Integer::sum);
+                }
+            }
+            return counts;
+        }
+        int middle = (from + to) >>> 1;
+        OccupancyCount left = new OccupancyCount(stays, from, middle);
+        left.fork();
+        Map<NightlyOccupancy.Key, Integer> counts = new OccupancyCount(stays, middle, to).compute();
+        Map<NightlyOccupancy.Key, Integer> other = left.join();
+        // Merge the smaller map into the larger one
+        if (other.size() > counts.size()) {
+            Map<NightlyOccupancy.Key, Integer> swap = counts;
+            counts = other;
+            other = swap;
+        }
+        for (Map.Entry<NightlyOccupancy.Key, Integer> count : other.entrySet()) {
+            counts.merge(count.getKey(), count.getValue(), Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.ac.newcastle.enterprisemiddleware.occupancy;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * <p>The occupancy of one Hotel, or of all the Hotels in a location, over the nights from {@code from} up to, not
+ * including, {@code to}.</p>
+ *
+ * <p>A Hotel is booked as a whole, so a night is occupied when it has a Booking, and the occupancy is the share of
+ * hotel nights that are: per night in {@code nights}, and over the whole range at the top level.</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OccupancyReport {
+
+    private final Long hotelId;
+    private final String location;
+    private final long hotels;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long occupiedNights;
+    private final double occupancy;
+    private final List<Night> nights;
+
+    OccupancyReport(Long hotelId, String location, long hotels, LocalDate from, LocalDate to, List<Night> nights) {
+        this.hotelId = hotelId;
+        this.location = location;
+        this.hotels = hotels;
+        this.from = from;
+        this.to = to;
+        this.nights = nights;
+        long occupied = 0;
+        for (Night night : nights) {
+            occupied += night.occupied;
+        }
+        this.occupiedNights = occupied;
+        this.occupancy = ratio(occupied, hotels * nights.size());
+    }
+
+    static double ratio(long occupied, long available) {
+        return available == 0 ? 0 : (double) occupied / available;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public long getHotels() {
+        return hotels;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public long getOccupiedNights() {
+        return occupiedNights;
+    }
+
+    public double getOccupancy() {
+        return occupancy;
+    }
+
+    public List<Night> getNights() {
+        return nights;
+    }
+
+    public static class Night {
+
+        private final LocalDate night;
+        private final long occupied;
+        private final long bookings;
+        private final double occupancy;
+
+        Night(LocalDate night, long occupied, long bookings, long hotels) {
+            this.night = night;
+            this.occupied = occupied;
+            this.bookings = bookings;
+            this.occupancy = ratio(occupied, hotels);
+        }
+
+        public LocalDate getNight() {
+            return night;
+        }
+
+        /**
+         * @return The number of Hotels with a Booking that night
+         */
+        public long getOccupied() {
+            return occupied;
+        }
+
+        /**
+         * @return The number of Bookings that night, more than {@link #getOccupied()} only if a Hotel was double booked
+         */
+        public long getBookings() {
+            return bookings;
+        }
+
+        public double getOccupancy() {
+            return occupancy;
+        }
+    }
+}
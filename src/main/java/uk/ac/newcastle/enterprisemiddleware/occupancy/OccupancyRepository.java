@@ -0,0 +1,180 @@
+package uk.ac.newcastle.enterprisemiddleware.occupancy;
+
+import uk.ac.newcastle.enterprisemiddleware.datasource.EntityManagerRouter;
+import uk.ac.newcastle.enterprisemiddleware.datasource.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Maintains and reads the {@link NightlyOccupancy} rollup.</p>
+ *
+ * <p>{@link #book} and {@link #release} are called by the booking, hotel and customer repositories next to the write
+ * they account for, so the rollup commits or rolls back with it. A stay costs one query for the nights that already
+ * have a row, an insert per missing night, and one bulk update for the whole stay.</p>
+ */
+@RequestScoped
+@Traced("repository")
+public class OccupancyRepository {
+
+    private static final int BATCH = 1000;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    EntityManagerRouter router;
+
+    /**
+     * <p>Counts a stay at a Hotel.</p>
+     *
+     * @param hotelId The Hotel booked
+     * @param checkIn The first night
+     * @param checkOut The day after the last night
+     */
+    public void book(Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+        Set<LocalDate> counted = new HashSet<>(em.createQuery("SELECT o.night FROM NightlyOccupancy o"
+                        + " WHERE o.hotelId = :hotelId AND o.night >= :checkIn AND o.night < :checkOut", LocalDate.class)
+                .setParameter("hotelId", hotelId)
+                .setParameter("checkIn", checkIn)
+                .setParameter("checkOut", checkOut)
+                .getResultList());
+        for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+            if (!counted.contains(night)) {
+                em.persist(new NightlyOccupancy(hotelId, night, 0));
+            }
+        }
+        // The bulk update only sees rows that have reached the database
+        em.flush();
+        adjust(hotelId, checkIn, checkOut, 1);
+    }
+
+    /**
+     * <p>Stops counting a stay at a Hotel, dropping the nights that are left without a Booking.</p>
+     *
+     * @param hotelId The Hotel booked
+     * @param checkIn The first night
+     * @param checkOut The day after the last night
+     */
+    public void release(Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+        adjust(hotelId, checkIn, checkOut, -1);
+        em.createQuery("DELETE FROM NightlyOccupancy o"
+                        + " WHERE o.hotelId = :hotelId AND o.night >= :checkIn AND o.night < :checkOut AND o.booked <= 0")
+                .setParameter("hotelId", hotelId)
+                .setParameter("checkIn", checkIn)
+                .setParameter("checkOut", checkOut)
+                .executeUpdate();
+    }
+
+    /**
+     * <p>Drops every night of a Hotel, whose Bookings are deleted with it.</p>
+     *
+     * @param hotelId The Hotel deleted
+     */
+    public void releaseHotel(Long hotelId) {
+        em.createQuery("DELETE FROM NightlyOccupancy o WHERE o.hotelId = :hotelId")
+                .setParameter("hotelId", hotelId)
+                .executeUpdate();
+    }
+
+    /**
+     * <p>Stops counting a set of stays with two statements, whatever their number: every night of the Hotels involved
+     * is decremented by the number of the stays covering it, then the nights left without a Booking are dropped. Call
+     * it before the rows are deleted, as it reads the stays from their table.</p>
+     *
+     * @param table {@code bookings} or {@code bookings_archive}
+     * @param ids The ids of the stays
+     */
+    public void releaseAll(String table, List<Long> ids) {
+        em.createNativeQuery("UPDATE hotel_occupancy o SET booked = booked - (SELECT COUNT(*) FROM " + table + " b"
+                        + " WHERE b.id IN (:ids) AND b.hotel_id = o.hotel_id"
+                        + " AND b.check_in_date <= o.night AND b.check_out_date > o.night)"
+                        + " WHERE o.hotel_id IN (SELECT hotel_id FROM " + table + " WHERE id IN (:ids))")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        em.createNativeQuery("DELETE FROM hotel_occupancy"
+                        + " WHERE booked <= 0 AND hotel_id IN (SELECT hotel_id FROM " + table + " WHERE id IN (:ids))")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    private void adjust(Long hotelId, LocalDate checkIn, LocalDate checkOut, int delta) {
+        em.createQuery("UPDATE NightlyOccupancy o SET o.booked = o.booked + :delta"
+                        + " WHERE o.hotelId = :hotelId AND o.night >= :checkIn AND o.night < :checkOut")
+                .setParameter("delta", delta)
+                .setParameter("hotelId", hotelId)
+                .setParameter("checkIn", checkIn)
+                .setParameter("checkOut", checkOut)
+                .executeUpdate();
+    }
+
+    @ReadOnly
+    public List<NightlyOccupancy> findByHotel(Long hotelId, LocalDate from, LocalDate to) {
+        return router.current().createQuery("SELECT o FROM NightlyOccupancy o"
+                        + " WHERE o.hotelId = :hotelId AND o.night >= :from AND o.night < :to", NightlyOccupancy.class)
+                .setParameter("hotelId", hotelId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    /**
+     * @return For every night of the range with a Booking at a Hotel in the location: the night, the number of Hotels
+     * booked and the number of Bookings
+     */
+    @ReadOnly
+    public List<Object[]> findByLocation(String location, LocalDate from, LocalDate to) {
+        return router.current().createQuery("SELECT o.night, COUNT(o), SUM(o.booked)"
+                        + " FROM NightlyOccupancy o, Hotel h WHERE h.id = o.hotelId AND h.location = :location"
+                        + " AND o.night >= :from AND o.night < :to GROUP BY o.night", Object[].class)
+                .setParameter("location", location)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    @ReadOnly
+    public long countHotels(String location) {
+        return router.current().createQuery("SELECT COUNT(h) FROM Hotel h WHERE h.location = :location", Long.class)
+                .setParameter("location", location)
+                .getSingleResult();
+    }
+
+    /**
+     * @return The hotel id, check in and check out date of every Booking, archived ones included, read from the primary
+     */
+    public List<Object[]> findAllStays() {
+        List<Object[]> stays = new ArrayList<>(em.createQuery(
+                "SELECT b.hotel.id, b.checkInDate, b.checkOutDate FROM Booking b", Object[].class).getResultList());
+        stays.addAll(em.createQuery(
+                "SELECT a.hotel.id, a.checkInDate, a.checkOutDate FROM ArchivedBooking a", Object[].class).getResultList());
+        return stays;
+    }
+
+    /**
+     * <p>Replaces the whole rollup, inserting in batches so the persistence context stays small.</p>
+     *
+     * @param counts The number of Bookings of every booked night
+     */
+    public void replaceAll(Map<NightlyOccupancy.Key, Integer> counts) {
+        em.createQuery("DELETE FROM NightlyOccupancy").executeUpdate();
+        int pending = 0;
+        for (Map.Entry<NightlyOccupancy.Key, Integer> count : counts.entrySet()) {
+            em.persist(new NightlyOccupancy(count.getKey().getHotelId(), count.getKey().getNight(), count.getValue()));
+            if (++pending == BATCH) {
+                em.flush();
+                em.clear();
+                pending = 0;
+            }
+        }
+        em.flush();
+    }
+}
@@ -0,0 +1,86 @@
+package uk.ac.newcastle.enterprisemiddleware.occupancy;
+
+import uk.ac.newcastle.enterprisemiddleware.cache.TrackedTable;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+import uk.ac.newcastle.enterprisemiddleware.metrics.Monitored;
+import uk.ac.newcastle.enterprisemiddleware.tracing.Traced;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Builds occupancy reports from the {@link NightlyOccupancy} rollup, and rebuilds the rollup from the bookings.</p>
+ *
+ * <p>A report reads only the rollup rows of its range, however many Bookings there are.</p>
+ */
+@Dependent
+@Monitored
+@Traced("service")
+public class OccupancyService {
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    OccupancyRepository crud;
+
+    @Inject
+    Event<TrackedTable> changes;
+
+    public OccupancyReport forHotel(Long hotelId, LocalDate from, LocalDate to) {
+        Map<LocalDate, Integer> booked = new HashMap<>();
+        for (NightlyOccupancy occupancy : crud.findByHotel(hotelId, from, to)) {
+            booked.put(occupancy.getNight(), occupancy.getBooked());
+        }
+        List<OccupancyReport.Night> nights = new ArrayList<>();
+        for (LocalDate night = from; night.isBefore(to); night = night.plusDays(1)) {
+            int bookings = booked.getOrDefault(night, 0);
+            nights.add(new OccupancyReport.Night(night, bookings > 0 ? 1 : 0, bookings, 1));
+        }
+        return new OccupancyReport(hotelId, null, 1, from, to, nights);
+    }
+
+    public OccupancyReport forLocation(String location, LocalDate from, LocalDate to) {
+        long hotels = crud.countHotels(location);
+        Map<LocalDate, Object[]> booked = new HashMap<>();
+        for (Object[] row : crud.findByLocation(location, from, to)) {
+            booked.put((LocalDate) row[0], row);
+        }
+        List<OccupancyReport.Night> nights = new ArrayList<>();
+        for (LocalDate night = from; night.isBefore(to); night = night.plusDays(1)) {
+            Object[] row = booked.get(night);
+            nights.add(row == null ? new OccupancyReport.Night(night, 0, 0, hotels)
+                    : new OccupancyReport.Night(night, ((Number) row[1]).longValue(), ((Number) row[2]).longValue(), hotels));
+        }
+        return new OccupancyReport(null, location, hotels, from, to, nights);
+    }
+
+    /**
+     * <p>Recounts every hotel night from the bookings, on the common fork/join pool, and replaces the rollup with the
+     * result. Must run in a transaction; a booking committed while it runs may be missed, so run it when bookings are
+     * quiet.</p>
+     *
+     * @return The number of booked hotel nights
+     */
+    public int rebuild() {
+        long start = System.nanoTime();
+        List<Object[]> stays = crud.findAllStays();
+        Map<NightlyOccupancy.Key, Integer> counts = ForkJoinPool.commonPool().invoke(new OccupancyCount(stays));
+        crud.replaceAll(counts);
+        // The rollup is derived from the bookings, so reports tagged with their stamp must be revalidated
+        changes.fire(TrackedTable.BOOKINGS);
+        log.info("occupancy rebuilt", "bookings", stays.size(), "nights", counts.size(),
+                "millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return counts.size();
+    }
+}
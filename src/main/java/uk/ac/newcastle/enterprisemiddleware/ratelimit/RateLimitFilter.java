@@ -0,0 +1,70 @@
+package uk.ac.newcastle.enterprisemiddleware.ratelimit;
+
+import io.vertx.core.http.HttpServerRequest;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.util.ErrorMessage;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Implements {@link RateLimited}.</p>
+ *
+ * <p>A client is identified by its {@code X-API-Key} header when the key is one of {@code rate-limit.api-keys}, and
+ * otherwise by its IP address (behind a proxy, set {@code quarkus.http.proxy.proxy-address-forwarding} so that is the
+ * caller's address). Unknown keys are ignored, or a client could get a fresh bucket per request by making keys up. The
+ * check runs after
+ * matching and before the request body is read, so a request turned away costs no deserialisation, no transaction and
+ * no database connection.</p>
+ */
+@Provider
+@RateLimited("")
+@Priority(Priorities.AUTHORIZATION)
+public class RateLimitFilter implements ContainerRequestFilter {
+
+    public static final String API_KEY = "X-API-Key";
+
+    @Inject
+    RateLimiter limiter;
+
+    @ConfigProperty(name = "rate-limit.api-keys")
+    Optional<Set<String>> apiKeys;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Context
+    HttpServerRequest http;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        RateLimited binding = resourceInfo.getResourceMethod().getAnnotation(RateLimited.class);
+        if (binding == null) {
+            binding = resourceInfo.getResourceClass().getAnnotation(RateLimited.class);
+        }
+        String apiKey = request.getHeaderString(API_KEY);
+        boolean known = apiKey != null && apiKeys.map(keys -> keys.contains(apiKey)).orElse(false);
+        String client = known ? "key:" + apiKey : "ip:" + http.remoteAddress().host();
+        long wait = limiter.acquire(binding.value(), client);
+        if (wait > 0) {
+            long second = TimeUnit.SECONDS.toNanos(1);
+            request.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, (wait + second - 1) / second)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .entity(new ErrorMessage("Too many requests, retry later"))
+                    .build());
+        }
+    }
+}
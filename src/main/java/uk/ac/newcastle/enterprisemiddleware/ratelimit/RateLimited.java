@@ -0,0 +1,24 @@
+package uk.ac.newcastle.enterprisemiddleware.ratelimit;
+
+import javax.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Limits the rate at which each client may call a resource method, answering 429 Too Many Requests with a
+ * {@code Retry-After} header once it is exceeded.</p>
+ *
+ * <p>The value names the route, whose limit is configured as {@code rate-limit.routes.<route>.rate} (requests per
+ * second) and {@code rate-limit.routes.<route>.burst}. Methods naming the same route share their clients' buckets.</p>
+ *
+ * @see RateLimitFilter
+ */
+@NameBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    String value();
+}
@@ -0,0 +1,100 @@
+package uk.ac.newcastle.enterprisemiddleware.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Holds a {@link RouteLimiter} per {@link RateLimited} route, created on first use from the route's configuration:
+ * <pre>
+ * rate-limit.routes.bookings.rate=5
+ * rate-limit.routes.bookings.burst=20
+ * </pre>
+ * A route without its own settings gets {@code rate-limit.default-rate} and {@code rate-limit.default-burst}.</p>
+ *
+ * <p>Requests turned away are counted as {@code rate_limit.rejected} and the clients tracked are published as
+ * {@code rate_limit.clients}, both tagged with the route.</p>
+ */
+@ApplicationScoped
+public class RateLimiter {
+
+    private static final String ROUTES = "rate-limit.routes.";
+
+    @Inject
+    Config config;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "rate-limit.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "rate-limit.default-rate", defaultValue = "10")
+    double defaultRate;
+
+    @ConfigProperty(name = "rate-limit.default-burst", defaultValue = "20")
+    int defaultBurst;
+
+    @ConfigProperty(name = "rate-limit.max-clients", defaultValue = "100000")
+    long maxClients;
+
+    @ConfigProperty(name = "rate-limit.idle-timeout", defaultValue = "10m")
+    Duration idleTimeout;
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Takes a token from a client's bucket for a route.</p>
+     *
+     * @param route The route name
+     * @param client The client key
+     * @return 0 if the request may go ahead, otherwise the nanoseconds until the client may try again
+     */
+    public long acquire(String route, String client) {
+        if (!enabled) {
+            return 0;
+        }
+        Route limit = routes.get(route);
+        if (limit == null) {
+            limit = routes.computeIfAbsent(route, this::create);
+        }
+        long wait = limit.limiter.acquire(client);
+        if (wait > 0) {
+            limit.rejected.increment();
+        }
+        return wait;
+    }
+
+    private Route create(String route) {
+        double rate = config.getOptionalValue(ROUTES + route + ".rate", Double.class).orElse(defaultRate);
+        int burst = config.getOptionalValue(ROUTES + route + ".burst", Integer.class).orElse(defaultBurst);
+        RouteLimiter limiter = new RouteLimiter(route, rate, burst, maxClients, idleTimeout);
+        Counter rejected = Counter.builder("rate_limit.rejected")
+                .description("Requests turned away with 429 Too Many Requests")
+                .tag("route", route)
+                .register(registry);
+        Gauge.builder("rate_limit.clients", limiter, RouteLimiter::clients)
+                .description("Clients with a token bucket")
+                .tag("route", route)
+                .register(registry);
+        return new Route(limiter, rejected);
+    }
+
+    private static final class Route {
+        final RouteLimiter limiter;
+        final Counter rejected;
+
+        Route(RouteLimiter limiter, Counter rejected) {
+            this.limiter = limiter;
+            this.rejected = rejected;
+        }
+    }
+}
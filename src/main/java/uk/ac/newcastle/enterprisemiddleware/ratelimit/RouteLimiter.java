@@ -0,0 +1,70 @@
+package uk.ac.newcastle.enterprisemiddleware.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The buckets of the clients of one route.</p>
+ *
+ * <p>Buckets are held in a Caffeine cache bounded to {@code maxClients}, and dropped once their client has been idle
+ * for {@code idleTimeout}, or for the time a bucket takes to refill if that is longer: a bucket idle that long is
+ * full, so dropping it changes nothing for its client. A flood of new clients evicts the least useful buckets instead
+ * of growing the heap; the clients evicted start again with a full bucket.</p>
+ */
+public final class RouteLimiter {
+
+    private final String route;
+    private final long interval;
+    private final long tolerance;
+    private final Cache<String, TokenBucket> buckets;
+
+    /**
+     * @param route The route name
+     * @param rate The sustained requests per second a client is allowed
+     * @param burst The requests a client may make at once after being idle
+     * @param maxClients The most clients to keep a bucket for
+     * @param idleTimeout How long an idle client's bucket is kept
+     */
+    public RouteLimiter(String route, double rate, int burst, long maxClients, Duration idleTimeout) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit of " + route + " must have a positive rate and burst");
+        }
+        this.route = route;
+        this.interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / rate));
+        this.tolerance = interval * (burst - 1);
+        long refill = tolerance + interval;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Math.max(idleTimeout.toNanos(), refill), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    public String route() {
+        return route;
+    }
+
+    /**
+     * <p>Takes a token from a client's bucket.</p>
+     *
+     * @param client The client key
+     * @return 0 if the request may go ahead, otherwise the nanoseconds until the client may try again
+     */
+    public long acquire(String client) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.getIfPresent(client);
+        if (bucket == null) {
+            bucket = buckets.get(client, key -> new TokenBucket(now));
+        }
+        return bucket.tryAcquire(now, interval, tolerance);
+    }
+
+    /**
+     * @return The approximate number of clients with a bucket
+     */
+    public long clients() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,43 @@
+package uk.ac.newcastle.enterprisemiddleware.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>The token bucket of one client, kept as the single timestamp at which it will be full again (the "theoretical
+ * arrival time" of the generic cell rate algorithm), so that taking a token is one compare-and-set and no thread ever
+ * holds a lock.</p>
+ *
+ * <p>A bucket refills one token every {@code interval} nanoseconds and holds up to {@code burst} tokens. A request is
+ * let through if the bucket would be full again no later than {@code (burst - 1) * interval} from now, and takes a
+ * token by moving that time on by one interval.</p>
+ */
+final class TokenBucket {
+
+    private final AtomicLong full;
+
+    TokenBucket(long now) {
+        this.full = new AtomicLong(now);
+    }
+
+    /**
+     * <p>Takes a token if there is one.</p>
+     *
+     * @param now The current {@link System#nanoTime()}
+     * @param interval The nanoseconds it takes to refill a token
+     * @param tolerance The nanoseconds of refill a full bucket holds beyond one token, {@code (burst - 1) * interval}
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(long now, long interval, long tolerance) {
+        while (true) {
+            long current = full.get();
+            long start = current - now > 0 ? current : now;
+            long wait = start - tolerance - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (full.compareAndSet(current, start + interval)) {
+                return 0;
+            }
+        }
+    }
+}
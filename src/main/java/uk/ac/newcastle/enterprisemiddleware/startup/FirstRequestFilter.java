@@ -0,0 +1,24 @@
+package uk.ac.newcastle.enterprisemiddleware.startup;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * <p>Tells the {@link Warmup} when the first response to a client, rather than to the warm-up itself, goes out.</p>
+ */
+@Provider
+public class FirstRequestFilter implements ContainerResponseFilter {
+
+    @Inject
+    Warmup warmup;
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (request.getHeaderString(Warmup.HEADER) == null) {
+            warmup.requestServed();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package uk.ac.newcastle.enterprisemiddleware.startup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.LaunchMode;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>Warms a new instance up before it takes traffic: once the application has started, a background thread sends
+ * {@code warmup.iterations} rounds of GET requests to each of {@code warmup.paths} on the instance itself, and
+ * {@link WarmupReadiness} reports the instance as not ready until it is done.</p>
+ *
+ * <p>The requests go through the whole stack, so they load and link the classes of the REST layer, Jackson,
+ * Hibernate and the JDBC driver, give the JIT compiler its first profiles, open the pool's connections and fill the
+ * response cache, none of which then falls on the first real clients. The warm-up gives up after
+ * {@code warmup.timeout}, leaving the instance ready anyway rather than out of rotation for good.</p>
+ *
+ * <p>The paths should be bounded reads, such as lookups by id: they run the same code as the list endpoints, but
+ * their cost does not grow with the database, so a new instance does not read whole tables from a shared database
+ * while it is starting. An id that does not exist still warms everything but the row mapping, as a 404 is not a
+ * failure. The defaults also take in a list filtered by name, which goes through the response cache and its
+ * compression even when nothing matches, and an availability check, which warms the parsing of dates and the lookup
+ * of the Hotel, and the overlap query too once Hotel 1 exists.</p>
+ *
+ * <p>The seconds from JVM start to ready, and to the first response to a real client, are published as the
+ * {@code startup.time_to_ready} and {@code startup.time_to_first_request} gauges. Each round of the warm-up is
+ * timed, and the end of the first round within 10% of the fastest is published as
+ * {@code startup.time_to_peak_throughput}: how long the instance took to reach the speed the JIT compiler settles
+ * at. Comparing the gauges with and without the AppCDS archive shows what it saves.</p>
+ */
+@ApplicationScoped
+public class Warmup {
+
+    /** Marks the warm-up's own requests, so they are not counted as the first request. */
+    public static final String HEADER = "X-Warmup";
+
+    /** How much slower than the fastest round a round may be and still count as peak throughput. */
+    private static final double PEAK_MARGIN = 1.1;
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "warmup.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "warmup.paths", defaultValue = "/hotels/1,/hotels?name=warmup,"
+            + "/hotels/1/availability?checkInDate=2030-01-01&checkOutDate=2030-01-02,/customers/1,/bookings/1")
+    List<String> paths;
+
+    @ConfigProperty(name = "warmup.iterations", defaultValue = "20")
+    int iterations;
+
+    @ConfigProperty(name = "warmup.timeout", defaultValue = "60s")
+    Duration timeout;
+
+    @ConfigProperty(name = "quarkus.http.port", defaultValue = "8080")
+    int port;
+
+    @ConfigProperty(name = "quarkus.http.test-port", defaultValue = "8081")
+    int testPort;
+
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final AtomicBoolean served = new AtomicBoolean();
+    private volatile long readyAt;
+    private volatile long firstRequestAt;
+    private volatile long peakAt;
+
+    void onStart(@Observes StartupEvent event) {
+        Gauge.builder("startup.time_to_ready", this, warmup -> warmup.sinceStart(warmup.readyAt))
+                .description("Seconds from JVM start until the instance reported ready")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("startup.time_to_first_request", this, warmup -> warmup.sinceStart(warmup.firstRequestAt))
+                .description("Seconds from JVM start until the first response to a client")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("startup.time_to_peak_throughput", this, warmup -> warmup.sinceStart(warmup.peakAt))
+                .description("Seconds from JVM start until the warm-up's requests ran at their peak rate")
+                .baseUnit("seconds")
+                .register(registry);
+        if (!enabled) {
+            readyAt = System.currentTimeMillis();
+            return;
+        }
+        Thread thread = new Thread(this::run, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return true once the warm-up is over, or if it is disabled
+     */
+    public boolean isDone() {
+        return readyAt != 0;
+    }
+
+    void requestServed() {
+        if (!served.get() && served.compareAndSet(false, true)) {
+            firstRequestAt = System.currentTimeMillis();
+        }
+    }
+
+    private double sinceStart(long at) {
+        return at == 0 ? Double.NaN : (at - jvmStart) / 1000.0;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        String base = "http://localhost:" + (LaunchMode.current() == LaunchMode.TEST ? testPort : port);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        int sent = 0;
+        int failed = 0;
+        try {
+            // StartupEvent comes before the HTTP server listens
+            while (!send(client, base + paths.get(0))) {
+                if (System.nanoTime() - deadline > 0) {
+                    return;
+                }
+                Thread.sleep(50);
+            }
+            long[] durations = new long[iterations];
+            long[] ends = new long[iterations];
+            int rounds = 0;
+            while (rounds < iterations) {
+                if (System.nanoTime() - deadline > 0) {
+                    log.warn("warmup timed out", "requests", sent);
+                    break;
+                }
+                long roundStart = System.nanoTime();
+                for (String path : paths) {
+                    sent++;
+                    if (!send(client, base + path)) {
+                        failed++;
+                    }
+                }
+                durations[rounds] = System.nanoTime() - roundStart;
+                ends[rounds++] = System.currentTimeMillis();
+            }
+            int peak = peakRound(durations, rounds);
+            if (peak >= 0) {
+                peakAt = ends[peak];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            readyAt = System.currentTimeMillis();
+            log.info("warmup done", "requests", sent, "failed", failed,
+                    "millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @return The first round within {@link #PEAK_MARGIN} of the fastest one, or -1 if there were none
+     */
+    static int peakRound(long[] durations, int rounds) {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            fastest = Math.min(fastest, durations[i]);
+        }
+        for (int i = 0; i < rounds; i++) {
+            if (durations[i] <= fastest * PEAK_MARGIN) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean send(HttpClient client, String uri) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .header(HEADER, "true")
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
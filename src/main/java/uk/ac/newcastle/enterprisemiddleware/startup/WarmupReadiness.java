@@ -0,0 +1,25 @@
+package uk.ac.newcastle.enterprisemiddleware.startup;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * <p>Keeps {@code /q/health/ready} down until the {@link Warmup} is done, so a load balancer or Kubernetes only sends
+ * traffic to a new instance once it is warm.</p>
+ */
+@Readiness
+@ApplicationScoped
+public class WarmupReadiness implements HealthCheck {
+
+    @Inject
+    Warmup warmup;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("warmup").status(warmup.isDone()).build();
+    }
+}
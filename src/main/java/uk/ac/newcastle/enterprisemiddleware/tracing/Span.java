@@ -0,0 +1,69 @@
+package uk.ac.newcastle.enterprisemiddleware.tracing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A single timed invocation within a {@link Trace}.</p>
+ *
+ * <p>Spans are created and finished on the request thread by {@link TracingInterceptor} and are only read once the
+ * owning trace has been handed to the {@link TraceBuffer}.</p>
+ */
+public class Span {
+
+    private final int id;
+    private final int parentId;
+    private final SpanSite site;
+    private final long startNanos;
+    private long durationNanos = -1;
+    private String error;
+
+    Span(int id, int parentId, SpanSite site, long startNanos) {
+        this.id = id;
+        this.parentId = parentId;
+        this.site = site;
+        this.startNanos = startNanos;
+    }
+
+    void end(long endNanos) {
+        durationNanos = endNanos - startNanos;
+    }
+
+    void fail(Throwable e) {
+        error = e.getClass().getSimpleName();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The id of the enclosing span, or 0 for the root span
+     */
+    public int getParentId() {
+        return parentId;
+    }
+
+    public String getLayer() {
+        return site.getLayer();
+    }
+
+    public String getName() {
+        return site.getName();
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(durationNanos);
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,24 @@
+package uk.ac.newcastle.enterprisemiddleware.tracing;
+
+/**
+ * <p>The static description of a traced method (its layer and display name), resolved once per method so that
+ * starting a span does not build strings.</p>
+ */
+class SpanSite {
+
+    private final String layer;
+    private final String name;
+
+    SpanSite(String layer, String name) {
+        this.layer = layer;
+        this.name = name;
+    }
+
+    String getLayer() {
+        return layer;
+    }
+
+    String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,69 @@
+package uk.ac.newcastle.enterprisemiddleware.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>All of the spans recorded for one request, starting with the outermost traced invocation.</p>
+ *
+ * <p>The number of spans kept per trace is bounded so that a request which loops over a traced bean cannot grow a
+ * trace without limit; the overflow is counted instead.</p>
+ */
+public class Trace {
+
+    static final int MAX_SPANS = 256;
+
+    private final long traceId;
+    private final long startEpochMillis;
+    private final List<Span> spans = new ArrayList<>();
+    private int droppedSpans;
+    private int nextSpanId;
+
+    Trace(long traceId, long startEpochMillis) {
+        this.traceId = traceId;
+        this.startEpochMillis = startEpochMillis;
+    }
+
+    Span start(Span parent, SpanSite site) {
+        Span span = new Span(++nextSpanId, parent == null ? 0 : parent.getId(), site, System.nanoTime());
+        if (spans.size() < MAX_SPANS) {
+            spans.add(span);
+        } else {
+            droppedSpans++;
+        }
+        return span;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * @return The name of the root span, normally the REST resource method that handled the request
+     */
+    public String getName() {
+        return spans.get(0).getName();
+    }
+
+    long getDurationNanos() {
+        return spans.get(0).getDurationNanos();
+    }
+
+    public long getDurationMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(getDurationNanos());
+    }
+
+    public List<Span> getSpans() {
+        return Collections.unmodifiableList(spans);
+    }
+
+    public int getDroppedSpans() {
+        return droppedSpans;
+    }
+}
@@ -0,0 +1,130 @@
+package uk.ac.newcastle.enterprisemiddleware.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Bounded, in-memory ring buffer of the most recently completed {@link Trace}s.</p>
+ *
+ * <p>Recording a trace is a single slot write; the oldest trace is overwritten once the buffer is full. When
+ * {@code tracing.export.file} is set, completed traces are additionally appended to that file as JSON lines by a
+ * background thread. Export is best effort: if the exporter falls behind, traces are dropped rather than slowing down
+ * requests.</p>
+ *
+ * @see TraceRestService
+ */
+@ApplicationScoped
+public class TraceBuffer {
+
+    @ConfigProperty(name = "tracing.buffer-size", defaultValue = "1024")
+    int size;
+
+    @ConfigProperty(name = "tracing.export.file")
+    Optional<String> exportFile;
+
+    @Inject
+    @Named("logger")
+    StructuredLogger log;
+
+    @Inject
+    ObjectMapper mapper;
+
+    private AtomicReferenceArray<Trace> traces;
+    private final AtomicLong cursor = new AtomicLong();
+
+    private ThreadPoolExecutor exporter;
+    private Writer exportWriter;
+
+    @PostConstruct
+    void init() {
+        traces = new AtomicReferenceArray<>(size);
+        if (exportFile.isPresent()) {
+            try {
+                exportWriter = Files.newBufferedWriter(Paths.get(exportFile.get()), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                log.warn("Unable to open trace export file", "file", exportFile.get(), e);
+                return;
+            }
+            exporter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(size),
+                    r -> {
+                        Thread t = new Thread(r, "trace-exporter");
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.DiscardPolicy());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (exporter != null) {
+            exporter.shutdown();
+            try {
+                exporter.awaitTermination(5, TimeUnit.SECONDS);
+                exportWriter.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.warn("Unable to close trace export file", e);
+            }
+        }
+    }
+
+    void record(Trace trace) {
+        int slot = (int) (cursor.getAndIncrement() % traces.length());
+        traces.set(slot, trace);
+        if (exporter != null) {
+            exporter.execute(() -> export(trace));
+        }
+    }
+
+    /**
+     * <p>Returns the slowest traces currently held in the buffer.</p>
+     *
+     * @param limit The maximum number of traces to return
+     * @return Up to limit traces, slowest first
+     */
+    public List<Trace> slowest(int limit) {
+        List<Trace> snapshot = new ArrayList<>(traces.length());
+        for (int i = 0; i < traces.length(); i++) {
+            Trace trace = traces.get(i);
+            if (trace != null) {
+                snapshot.add(trace);
+            }
+        }
+        snapshot.sort(Comparator.comparingLong(Trace::getDurationNanos).reversed());
+        return snapshot.size() > limit ? new ArrayList<>(snapshot.subList(0, limit)) : snapshot;
+    }
+
+    private void export(Trace trace) {
+        try {
+            exportWriter.write(mapper.writeValueAsString(trace));
+            exportWriter.write('\n');
+            exportWriter.flush();
+        } catch (IOException e) {
+            log.debug("Unable to export trace", "traceId", trace.getTraceId(), "error", e.getMessage());
+        }
+    }
+}
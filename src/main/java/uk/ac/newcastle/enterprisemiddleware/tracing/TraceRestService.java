@@ -0,0 +1,39 @@
+package uk.ac.newcastle.enterprisemiddleware.tracing;
+
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import uk.ac.newcastle.enterprisemiddleware.concurrency.Unlimited;
+
+import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * <p>Exposes the in-memory {@link TraceBuffer} so that slow requests can be inspected without an external
+ * collector.</p>
+ *
+ * <p>Example: <pre>GET /q/traces?limit=10</pre></p>
+ */
+@Path("/q/traces")
+@Unlimited
+@Produces(MediaType.APPLICATION_JSON)
+public class TraceRestService {
+
+    @Inject
+    TraceBuffer buffer;
+
+    @GET
+    @Operation(summary = "Fetch the slowest recent traces",
+            description = "Returns the slowest traces held in the in-memory buffer, slowest first.")
+    public Response retrieveSlowestTraces(
+            @Parameter(description = "Maximum number of traces to return")
+            @QueryParam("limit") @DefaultValue("20")
+            int limit) {
+        return Response.ok(buffer.slowest(Math.max(limit, 0))).build();
+    }
+}
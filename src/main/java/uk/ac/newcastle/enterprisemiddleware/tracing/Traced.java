@@ -0,0 +1,25 @@
+package uk.ac.newcastle.enterprisemiddleware.tracing;
+
+import javax.enterprise.util.Nonbinding;
+import javax.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Interceptor binding which records a {@link Span} for every invocation of the annotated bean (or method).</p>
+ *
+ * <p>The value names the architectural layer the span belongs to, e.g. "rest", "service", "validator", "repository"
+ * or "area-client", so that the time spent in a request can be broken down by layer.</p>
+ *
+ * @see TracingInterceptor
+ */
+@InterceptorBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Traced {
+
+    @Nonbinding
+    String value() default "";
+}
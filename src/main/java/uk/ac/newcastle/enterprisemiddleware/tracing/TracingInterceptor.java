@@ -0,0 +1,80 @@
+package uk.ac.newcastle.enterprisemiddleware.tracing;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Records a {@link Span} around every invocation of a {@link Traced} bean.</p>
+ *
+ * <p>The current span is held in a thread local, so nested traced invocations (REST resource, service, validator,
+ * repository, REST client) become children of the enclosing span without any changes to method signatures. When the
+ * outermost span finishes the whole {@link Trace} is handed to the {@link TraceBuffer}.</p>
+ */
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 100)
+public class TracingInterceptor {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Trace> CURRENT_TRACE = new ThreadLocal<>();
+    private static final AtomicLong TRACE_IDS = new AtomicLong();
+    private static final ConcurrentMap<Method, SpanSite> SITES = new ConcurrentHashMap<>();
+
+    @Inject
+    TraceBuffer buffer;
+
+    @AroundInvoke
+    Object trace(InvocationContext ctx) throws Exception {
+        Span parent = CURRENT.get();
+        Trace trace;
+        if (parent == null) {
+            trace = new Trace(TRACE_IDS.incrementAndGet(), System.currentTimeMillis());
+            CURRENT_TRACE.set(trace);
+        } else {
+            trace = CURRENT_TRACE.get();
+        }
+
+        Span span = trace.start(parent, site(ctx.getMethod()));
+        CURRENT.set(span);
+        try {
+            return ctx.proceed();
+        } catch (Exception e) {
+            span.fail(e);
+            throw e;
+        } finally {
+            span.end(System.nanoTime());
+            if (parent == null) {
+                CURRENT.remove();
+                CURRENT_TRACE.remove();
+                buffer.record(trace);
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+
+    private static SpanSite site(Method method) {
+        SpanSite site = SITES.get(method);
+        if (site == null) {
+            site = SITES.computeIfAbsent(method, TracingInterceptor::resolveSite);
+        }
+        return site;
+    }
+
+    private static SpanSite resolveSite(Method method) {
+        Class<?> type = method.getDeclaringClass();
+        Traced traced = method.getAnnotation(Traced.class);
+        if (traced == null) {
+            traced = type.getAnnotation(Traced.class);
+        }
+        String layer = traced == null ? "" : traced.value();
+        return new SpanSite(layer, type.getSimpleName() + "." + method.getName());
+    }
+}
@@ -1,8 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.util;
 
-import javax.validation.ValidationException;
-
-public class CustomerNotExist extends ValidationException {
+public class CustomerNotExist extends DomainValidationException {
     public CustomerNotExist(String message) {
         super(message);
     }
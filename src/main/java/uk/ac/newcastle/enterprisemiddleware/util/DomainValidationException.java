@@ -0,0 +1,31 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.validation.ValidationException;
+
+/**
+ * <p>Base class for the expected, domain level validation failures (unknown customer or hotel, duplicate email or
+ * phone number).</p>
+ *
+ * <p>These are a normal part of the traffic and are always translated into a 4xx response by the REST layer, so the
+ * stack trace is never looked at. Capturing it is by far the most expensive part of throwing an exception, so it is
+ * skipped. Subclasses remain {@link ValidationException}s, so existing catch clauses are unaffected.</p>
+ */
+public abstract class DomainValidationException extends ValidationException {
+
+    protected DomainValidationException(String message) {
+        super(message);
+    }
+
+    protected DomainValidationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    protected DomainValidationException(Throwable cause) {
+        super(cause);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,71 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import java.net.IDN;
+import java.util.regex.Pattern;
+
+/**
+ * <p>The {@code @Email} check used by {@link Violations}.</p>
+ *
+ * <p>It accepts the same addresses as Hibernate Validator's own check: the address is split at the last {@code @},
+ * the local part is at most 64 characters of dot-separated atoms or quoted strings, and the domain is a host name
+ * without a trailing dot, or a bracketed IPv4 or IPv6 literal, no longer than 255 characters once converted to
+ * ASCII.</p>
+ */
+final class EmailAddresses {
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_PART_LENGTH = 255;
+
+    private static final String LOCAL_PART_ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]";
+    private static final String LOCAL_PART_INSIDE_QUOTES_ATOM =
+            "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")";
+    private static final String LOCAL_PART_WORD =
+            "(?:" + LOCAL_PART_ATOM + "+|\"" + LOCAL_PART_INSIDE_QUOTES_ATOM + "+\")";
+    private static final Pattern LOCAL_PART =
+            Pattern.compile(LOCAL_PART_WORD + "(?:\\." + LOCAL_PART_WORD + ")*", Pattern.CASE_INSENSITIVE);
+
+    private static final String DOMAIN_CHARS_WITHOUT_DASH = "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]";
+    private static final String DOMAIN_LABEL = "(?:" + DOMAIN_CHARS_WITHOUT_DASH + "-*)*" + DOMAIN_CHARS_WITHOUT_DASH + "+";
+    private static final String HOST_NAME = DOMAIN_LABEL + "+(?:\\." + DOMAIN_LABEL + "+)*";
+    private static final String IP_V4 = "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}";
+    private static final String H16 = "[0-9a-f]{1,4}";
+    private static final String IP_V6 = "(?:" + H16 + ":){7}" + H16
+            + "|(?:" + H16 + ":){1,7}:"
+            + "|(?:" + H16 + ":){1,6}:" + H16
+            + "|(?:" + H16 + ":){1,5}(?::" + H16 + "){1,2}"
+            + "|(?:" + H16 + ":){1,4}(?::" + H16 + "){1,3}"
+            + "|(?:" + H16 + ":){1,3}(?::" + H16 + "){1,4}"
+            + "|(?:" + H16 + ":){1,2}(?::" + H16 + "){1,5}"
+            + "|" + H16 + ":(?::" + H16 + "){1,6}"
+            + "|:(?:(?::" + H16 + "){1,7}|:)";
+    private static final Pattern DOMAIN = Pattern.compile(
+            HOST_NAME + "|\\[" + IP_V4 + "\\]|\\[IPv6:(?:" + IP_V6 + ")\\]", Pattern.CASE_INSENSITIVE);
+
+    private EmailAddresses() {
+    }
+
+    /** Null and empty are valid, as for every Bean Validation constraint but {@code @NotNull} and friends. */
+    static boolean isValid(CharSequence value) {
+        if (value == null || value.length() == 0) {
+            return true;
+        }
+        String address = value.toString();
+        int at = address.lastIndexOf('@');
+        if (at < 0) {
+            return false;
+        }
+        String localPart = address.substring(0, at);
+        String domain = address.substring(at + 1);
+        if (localPart.length() > MAX_LOCAL_PART_LENGTH || !LOCAL_PART.matcher(localPart).matches()) {
+            return false;
+        }
+        if (domain.endsWith(".") || !DOMAIN.matcher(domain).matches()) {
+            return false;
+        }
+        try {
+            return IDN.toASCII(domain).length() <= MAX_DOMAIN_PART_LENGTH;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
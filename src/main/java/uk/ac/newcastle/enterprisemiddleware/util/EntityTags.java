@@ -0,0 +1,137 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import uk.ac.newcastle.enterprisemiddleware.compression.ContentCoding;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * <p>Maps entity {@code @Version} numbers and table stamps to HTTP entity tags and back.</p>
+ *
+ * <p>A PUT response is tagged with the strong, quoted version number, e.g. {@code "3"}; a conditional GET of an entity
+ * with the version followed by the table stamp, e.g. {@code "3;kz3x1c-12"}; a conditional GET of anything else with
+ * the stamp alone. An {@code If-Match} header is turned into the version the client expects to overwrite:
+ * {@code null} when there is no header or it is {@code *}, so the update is unconditional, and {@link #UNMATCHED} for
+ * anything that cannot name a version (a weak tag, a list of tags, garbage), so the update fails its precondition as
+ * RFC 7232 requires.</p>
+ */
+public final class EntityTags {
+
+    /**
+     * <p>An expected version that no entity ever has, versions start at zero.</p>
+     */
+    public static final long UNMATCHED = -1L;
+
+    /**
+     * <p>{@code Cache-Control: no-cache}: clients may store a response but must revalidate it before each use.</p>
+     */
+    public static final CacheControl REVALIDATE = CacheControl.valueOf("no-cache");
+
+    private static final char STAMP_SEPARATOR = ';';
+
+    private static final char CODING_SEPARATOR = '+';
+
+    private EntityTags() {
+    }
+
+    public static EntityTag of(Long version) {
+        return new EntityTag(String.valueOf(version));
+    }
+
+    public static EntityTag of(String stamp) {
+        return new EntityTag(stamp);
+    }
+
+    public static EntityTag of(Long version, String stamp) {
+        return new EntityTag(String.valueOf(version) + STAMP_SEPARATOR + stamp);
+    }
+
+    /**
+     * <p>Distinguishes the tag of a compressed body from that of the same body sent as it is, as strong tags must:
+     * {@code "kz3x1c-12"} becomes {@code "kz3x1c-12+gzip"}.</p>
+     *
+     * @param tag The tag of the uncompressed body
+     * @param coding The {@code Content-Encoding} token of the body sent
+     * @return The tag of the compressed body
+     */
+    public static EntityTag withCoding(EntityTag tag, String coding) {
+        return new EntityTag(tag.getValue() + CODING_SEPARATOR + coding, tag.isWeak());
+    }
+
+    /**
+     * <p>Resolves the version an update is conditional on.</p>
+     *
+     * @param ifMatch The raw {@code If-Match} header value, or null
+     * @return The expected version, or null if the update is unconditional
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return UNMATCHED;
+        }
+        int end = tag.indexOf(STAMP_SEPARATOR);
+        try {
+            return Long.valueOf(tag.substring(1, end < 0 ? tag.length() - 1 : end));
+        } catch (NumberFormatException e) {
+            return UNMATCHED;
+        }
+    }
+
+    /**
+     * <p>Looks for a tag carrying the given stamp in an {@code If-None-Match} header, using the weak comparison that
+     * header calls for. A tag of a compressed body (see {@link #withCoding(EntityTag, String)}) carries the stamp as
+     * well: the client holds the same content, in the coding the tag names.</p>
+     *
+     * @param ifNoneMatch The raw {@code If-None-Match} header value, or null
+     * @param stamp The current stamp of the resource's tables
+     * @return The opaque value of the matching tag, or null if none matches
+     */
+    public static String matchingStamp(String ifNoneMatch, String stamp) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        int start = 0;
+        while (start < ifNoneMatch.length()) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = ifNoneMatch.length();
+            }
+            String tag = ifNoneMatch.substring(start, end).trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() > 2 && tag.charAt(0) == '"' && tag.charAt(tag.length() - 1) == '"') {
+                String value = tag.substring(1, tag.length() - 1);
+                int separator = value.indexOf(STAMP_SEPARATOR);
+                if (value.regionMatches(separator + 1, stamp, 0, stamp.length())
+                        && isCoding(value, separator + 1 + stamp.length())) {
+                    return value;
+                }
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static boolean isCoding(String value, int start) {
+        if (start == value.length()) {
+            return true;
+        }
+        if (value.charAt(start) != CODING_SEPARATOR) {
+            return false;
+        }
+        for (ContentCoding coding : ContentCoding.values()) {
+            if (value.length() - start - 1 == coding.token().length()
+                    && value.startsWith(coding.token(), start + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,7 +3,7 @@ package uk.ac.newcastle.enterprisemiddleware.util;
 
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -18,7 +18,7 @@ public class ErrorMessage {
 
     public ErrorMessage(String error) {
         this.error = error;
-        this.reasons = new HashMap<>();
+        this.reasons = Collections.emptyMap();
     }
 
     public ErrorMessage(String error, Map<String, String> reasons) {
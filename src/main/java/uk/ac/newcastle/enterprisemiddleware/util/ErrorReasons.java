@@ -0,0 +1,54 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.validation.ConstraintViolation;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>The fixed "reasons" maps returned to API clients for the common domain failures.</p>
+ *
+ * <p>They are immutable and shared, so rejecting a duplicate email or an unknown customer does not allocate a fresh
+ * map on every request. Only constraint violations, whose content depends on the request, build a new map.</p>
+ */
+public final class ErrorReasons {
+
+    public static final Map<String, String> UNIQUE_EMAIL =
+            Collections.singletonMap("email", "That email is already used, please use a unique email");
+
+    public static final Map<String, String> UNIQUE_PHONE =
+            Collections.singletonMap("phone", "That phone is already used, please use a unique phone");
+
+    public static final Map<String, String> CUSTOMER_NOT_EXIST =
+            Collections.singletonMap("customer", "That Customer Not Exist,can not create ");
+
+    public static final Map<String, String> HOTEL_NOT_EXIST =
+            Collections.singletonMap("hotel", "That Hotel Not Exist,can not create ");
+
+    public static final Map<String, String> INVALID_AREA_CODE =
+            Collections.singletonMap("area_code", "The telephone area code provided is not recognised, please provide another");
+
+    public static final Map<String, String> STALE_VERSION =
+            Collections.singletonMap("version", "The resource has been modified since it was read, fetch it again and retry");
+
+    public static final Map<String, String> CONCURRENT_UPDATE =
+            Collections.singletonMap("version", "The resource is being modified concurrently, please retry");
+
+    private ErrorReasons() {
+    }
+
+    /**
+     * <p>Builds the reasons map for a set of bean validation failures, keyed by property path.</p>
+     *
+     * @param violations The violations reported by the validator
+     * @return A map of property path to message
+     */
+    public static Map<String, String> of(Set<? extends ConstraintViolation<?>> violations) {
+        Map<String, String> reasons = new HashMap<>(violations.size() * 2);
+        for (ConstraintViolation<?> violation : violations) {
+            reasons.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return reasons;
+    }
+}
@@ -1,8 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.util;
 
-import javax.validation.ValidationException;
-
-public class HotelNotExist extends ValidationException {
+public class HotelNotExist extends DomainValidationException {
     public HotelNotExist(String message) {
         super(message);
     }
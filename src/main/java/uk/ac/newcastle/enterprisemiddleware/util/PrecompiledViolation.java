@@ -0,0 +1,96 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Path;
+import javax.validation.ValidationException;
+import javax.validation.metadata.ConstraintDescriptor;
+
+/**
+ * <p>A {@link ConstraintViolation} reported by one of the precompiled entity constraint checks (see {@link Violations}).</p>
+ *
+ * <p>It carries the same message, message template, property path and invalid value that Hibernate Validator would
+ * report for the property, which is everything the REST layer reads. There is no constraint descriptor, as the
+ * annotation metadata is never looked up.</p>
+ *
+ * @param <T> The type of the validated entity
+ */
+public final class PrecompiledViolation<T> implements ConstraintViolation<T> {
+
+    private final String message;
+    private final String messageTemplate;
+    private final T rootBean;
+    private final Path propertyPath;
+    private final Object invalidValue;
+
+    PrecompiledViolation(String message, String messageTemplate, T rootBean, String property, Object invalidValue) {
+        this.message = message;
+        this.messageTemplate = messageTemplate;
+        this.rootBean = rootBean;
+        this.propertyPath = new PropertyPath(property);
+        this.invalidValue = invalidValue;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String getMessageTemplate() {
+        return messageTemplate;
+    }
+
+    @Override
+    public T getRootBean() {
+        return rootBean;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<T> getRootBeanClass() {
+        return (Class<T>) rootBean.getClass();
+    }
+
+    @Override
+    public Object getLeafBean() {
+        return rootBean;
+    }
+
+    @Override
+    public Object[] getExecutableParameters() {
+        return null;
+    }
+
+    @Override
+    public Object getExecutableReturnValue() {
+        return null;
+    }
+
+    @Override
+    public Path getPropertyPath() {
+        return propertyPath;
+    }
+
+    @Override
+    public Object getInvalidValue() {
+        return invalidValue;
+    }
+
+    @Override
+    public ConstraintDescriptor<?> getConstraintDescriptor() {
+        return null;
+    }
+
+    @Override
+    public <U> U unwrap(Class<U> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        throw new ValidationException("Type " + type.getName() + " not supported for unwrapping.");
+    }
+
+    @Override
+    public String toString() {
+        return "PrecompiledViolation{propertyPath=" + propertyPath + ", message='" + message + "'}";
+    }
+}
@@ -0,0 +1,98 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.validation.ElementKind;
+import javax.validation.Path;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * <p>The {@link Path} of a {@link PrecompiledViolation}: a single property node on the root bean, which is all the
+ * precompiled entity constraints ever report.</p>
+ *
+ * <p>It prints as the bare property name, the same as Hibernate Validator's path for a property constraint.</p>
+ */
+final class PropertyPath implements Path {
+
+    private final Property node;
+
+    PropertyPath(String property) {
+        this.node = new Property(property);
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return Collections.<Node>singletonList(node).iterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PropertyPath && node.name.equals(((PropertyPath) o).node.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return node.name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return node.name;
+    }
+
+    private static final class Property implements Path.PropertyNode {
+
+        private final String name;
+
+        Property(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isInIterable() {
+            return false;
+        }
+
+        @Override
+        public Integer getIndex() {
+            return null;
+        }
+
+        @Override
+        public Object getKey() {
+            return null;
+        }
+
+        @Override
+        public ElementKind getKind() {
+            return ElementKind.PROPERTY;
+        }
+
+        @Override
+        public Class<?> getContainerClass() {
+            return null;
+        }
+
+        @Override
+        public Integer getTypeArgumentIndex() {
+            return null;
+        }
+
+        @Override
+        public <T extends Node> T as(Class<T> nodeType) {
+            if (nodeType.isInstance(this)) {
+                return nodeType.cast(this);
+            }
+            throw new ClassCastException("Type " + nodeType.getName() + " is not supported by a property node.");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
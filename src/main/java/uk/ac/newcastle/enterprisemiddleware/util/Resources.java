@@ -1,9 +1,11 @@
 package uk.ac.newcastle.enterprisemiddleware.util;
 
+import uk.ac.newcastle.enterprisemiddleware.logging.AsyncLogAppender;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.inject.Named;
-import java.util.logging.Logger;
 
 /**
  * This class uses CDI to alias Java EE resources, such as the persistence context, to CDI beans
@@ -25,8 +27,8 @@ public class Resources {
 
     @Produces
     @Named("logger")
-    public Logger produceLog(InjectionPoint injectionPoint) {
-        return Logger.getLogger(injectionPoint.getMember().getDeclaringClass().getName());
+    public StructuredLogger produceLog(InjectionPoint injectionPoint, AsyncLogAppender appender) {
+        return appender.logger(injectionPoint.getMember().getDeclaringClass().getName());
     }
 //
 //    @Produces
@@ -2,9 +2,15 @@ package uk.ac.newcastle.enterprisemiddleware.util;
 
 import javax.ws.rs.core.Response;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
+/**
+ * <p>Carries an HTTP status and a map of reasons from a REST resource to {@link RestServiceExceptionMapper}.</p>
+ *
+ * <p>The exception only exists to be translated into a response, so no stack trace is captured. Where it wraps an
+ * unexpected failure, the cause still carries its own trace and that is what the mapper logs.</p>
+ */
 public class RestServiceException extends RuntimeException implements
         Serializable {
 
@@ -16,19 +22,19 @@ public class RestServiceException extends RuntimeException implements
 
     public RestServiceException() {
         super(defaultMsg);
-        this.reasons = new HashMap<>();
+        this.reasons = Collections.emptyMap();
         this.status = Response.Status.INTERNAL_SERVER_ERROR;
     }
 
     public RestServiceException(String msg) {
         super(msg);
-        this.reasons = new HashMap<>();
+        this.reasons = Collections.emptyMap();
         this.status = Response.Status.INTERNAL_SERVER_ERROR;
     }
 
     public RestServiceException(String msg, Response.Status status) {
         super(msg);
-        this.reasons = new HashMap<>();
+        this.reasons = Collections.emptyMap();
         this.status = status;
     }
 
@@ -40,19 +46,19 @@ public class RestServiceException extends RuntimeException implements
 
     public RestServiceException(Exception e) {
         super(defaultMsg, e);
-        this.reasons = new HashMap<>();
+        this.reasons = Collections.emptyMap();
         this.status = Response.Status.INTERNAL_SERVER_ERROR;
     }
 
     public RestServiceException(String msg, Exception e) {
         super(msg, e);
-        this.reasons = new HashMap<>();
+        this.reasons = Collections.emptyMap();
         this.status = Response.Status.INTERNAL_SERVER_ERROR;
     }
 
     public RestServiceException(String msg, Response.Status status, Exception e) {
         super(msg, e);
-        this.reasons = new HashMap<>();
+        this.reasons = Collections.emptyMap();
         this.status = status;
     }
 
@@ -69,4 +75,9 @@ public class RestServiceException extends RuntimeException implements
     public Response.Status getStatus() {
         return status;
     }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
 }
@@ -1,5 +1,10 @@
 package uk.ac.newcastle.enterprisemiddleware.util;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.logging.LogRateLimiter;
+import uk.ac.newcastle.enterprisemiddleware.logging.StructuredLogger;
+
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.core.Context;
@@ -7,12 +12,17 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
-import java.util.logging.Logger;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>Handler object to convert {@link RestServiceException} exception into an actual {@link Response} containing JSON
  * so we can get a nice friendly error message, easily parsable by our API clients.</p>
  *
+ * <p>Client errors (4xx) are expected traffic and are only logged at debug level, without a stack trace. Server
+ * errors (5xx) are logged with the stack trace of their cause, limited to {@code logging.error-rate-limit} events per
+ * second so that a failing dependency cannot flood the log; suppressed events are counted and reported with the next
+ * one that is logged.</p>
+ *
  * @author hugofirth
  */
 @Provider
@@ -20,18 +30,36 @@ public class RestServiceExceptionMapper implements ExceptionMapper<RestServiceEx
 
     @Inject
     @Named("logger")
-    Logger log;
+    StructuredLogger log;
+
+    @ConfigProperty(name = "logging.error-rate-limit", defaultValue = "10")
+    int errorsPerSecond;
 
     @Context
     HttpHeaders headers;
 
+    private LogRateLimiter errorLimiter;
+
+    @PostConstruct
+    void init() {
+        errorLimiter = new LogRateLimiter(errorsPerSecond, TimeUnit.SECONDS.toNanos(1));
+    }
+
     @Override
     public Response toResponse(final RestServiceException e) {
 
-        log.severe("Mapping RestServiceException with status + \"" + e.getStatus() + "\", message: \"" + e.getMessage()
-                + "\" and stack trace:" + System.getProperty("line.separator") + e);
+        Response.Status status = e.getStatus();
+        if (status.getFamily() == Response.Status.Family.SERVER_ERROR) {
+            if (errorLimiter.tryAcquire()) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Request failed", "status", status, "message", e.getMessage(),
+                        "suppressed", errorLimiter.drainSuppressed(), cause);
+            }
+        } else {
+            log.debug("Request rejected", "status", status, "message", e.getMessage());
+        }
 
-        Response.ResponseBuilder builder = Response.status(e.getStatus()).entity(new ErrorMessage(e.getMessage(), e.getReasons()));
+        Response.ResponseBuilder builder = Response.status(status).entity(new ErrorMessage(e.getMessage(), e.getReasons()));
         return builder.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+/**
+ * <p>Thrown by a repository when an update names a version, taken from the client's {@code If-Match} header, that is
+ * no longer the current version of the entity.</p>
+ *
+ * <p>This is the client's own precondition failing, so the REST layer answers it with 412 Precondition Failed and it
+ * is never retried. A conflict detected by Hibernate at flush time, where the client did not ask for a particular
+ * version, is reported as a {@link javax.persistence.OptimisticLockException} instead.</p>
+ */
+public class StaleVersionException extends DomainValidationException {
+
+    private final Long currentVersion;
+
+    public StaleVersionException(String message, Long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * <p>Checks an expected version against the current one.</p>
+     *
+     * @param entity A description of the entity, used in the message
+     * @param expected The version the caller expects to overwrite, or null for an unconditional update
+     * @param current The version currently stored
+     */
+    public static void check(String entity, Long expected, Long current) {
+        if (expected != null && !expected.equals(current)) {
+            throw new StaleVersionException(entity + " is at version " + current + ", not " + expected, current);
+        }
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
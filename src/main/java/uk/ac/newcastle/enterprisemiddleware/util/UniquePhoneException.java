@@ -1,8 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.util;
 
-import javax.validation.ValidationException;
-
-public class UniquePhoneException extends ValidationException {
+public class UniquePhoneException extends DomainValidationException {
     public UniquePhoneException(String message) {
         super(message);
     }
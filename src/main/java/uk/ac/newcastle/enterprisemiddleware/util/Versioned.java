@@ -0,0 +1,11 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+/**
+ * <p>An entity with an optimistic locking version, which is used to build its entity tag.</p>
+ *
+ * @see EntityTags
+ */
+public interface Versioned {
+
+    Long getVersion();
+}
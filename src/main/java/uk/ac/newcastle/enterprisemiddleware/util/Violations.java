@@ -0,0 +1,104 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.validation.ConstraintViolation;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Collects the violations found by a precompiled constraint check, such as
+ * {@link uk.ac.newcastle.enterprisemiddleware.customer.CustomerConstraints}.</p>
+ *
+ * <p>Each method is the hand-compiled equivalent of one Bean Validation constraint, with the same null handling and,
+ * when no message is given, the same default message as Hibernate Validator's English bundle. Nothing is allocated
+ * until a constraint fails, and {@link #result()} returns the shared empty set for a valid entity.</p>
+ *
+ * @param <T> The type of the validated entity
+ */
+public final class Violations<T> {
+
+    private final T root;
+    private Set<ConstraintViolation<T>> violations;
+
+    public Violations(T root) {
+        this.root = root;
+    }
+
+    /** {@code @NotNull} */
+    public void notNull(String property, Object value) {
+        if (value == null) {
+            add(property, "must not be null", "{javax.validation.constraints.NotNull.message}", null);
+        }
+    }
+
+    /** {@code @NotEmpty}; null is a violation. */
+    public void notEmpty(String property, CharSequence value) {
+        if (value == null || value.length() == 0) {
+            add(property, "must not be empty", "{javax.validation.constraints.NotEmpty.message}", value);
+        }
+    }
+
+    /** {@code @NotBlank}; null is a violation. */
+    public void notBlank(String property, CharSequence value, String message) {
+        if (value == null || value.toString().trim().isEmpty()) {
+            add(property, message, message, value);
+        }
+    }
+
+    /** {@code @Size} with the default message; null is valid. */
+    public void size(String property, CharSequence value, int min, int max) {
+        if (value != null && (value.length() < min || value.length() > max)) {
+            add(property, "size must be between " + min + " and " + max,
+                    "{javax.validation.constraints.Size.message}", value);
+        }
+    }
+
+    /** {@code @Size} with a custom message; null is valid. */
+    public void size(String property, CharSequence value, int min, int max, String message) {
+        if (value != null && (value.length() < min || value.length() > max)) {
+            add(property, message, message, value);
+        }
+    }
+
+    /** {@code @Pattern} with the default message; null is valid. */
+    public void pattern(String property, CharSequence value, Pattern pattern) {
+        if (value != null && !pattern.matcher(value).matches()) {
+            add(property, "must match \"" + pattern.pattern() + "\"",
+                    "{javax.validation.constraints.Pattern.message}", value);
+        }
+    }
+
+    /** {@code @Pattern} with a custom message; null is valid. */
+    public void pattern(String property, CharSequence value, Pattern pattern, String message) {
+        if (value != null && !pattern.matcher(value).matches()) {
+            add(property, message, message, value);
+        }
+    }
+
+    /** {@code @Email} with a custom message; null and empty are valid. See {@link EmailAddresses}. */
+    public void email(String property, CharSequence value, String message) {
+        if (value != null && !EmailAddresses.isValid(value)) {
+            add(property, message, message, value);
+        }
+    }
+
+    /** {@code @Past} for a {@link Date} with a custom message; null is valid. */
+    public void past(String property, Date value, String message) {
+        if (value != null && value.getTime() >= System.currentTimeMillis()) {
+            add(property, message, message, value);
+        }
+    }
+
+    public Set<ConstraintViolation<T>> result() {
+        return violations == null ? Collections.emptySet() : violations;
+    }
+
+    private void add(String property, String message, String template, Object invalidValue) {
+        if (violations == null) {
+            violations = new LinkedHashSet<>(4);
+        }
+        violations.add(new PrecompiledViolation<>(message, template, root, property, invalidValue));
+    }
+}
@@ -0,0 +1,216 @@
+package uk.ac.newcastle.enterprisemiddleware.area;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A local stand-in for the area-api that {@link AreaService} calls, serving {@code GET /areas} and
+ * {@code GET /areas/{id}} from an embedded HTTP server so that tests and load runs do not depend on the network.</p>
+ *
+ * <p>Use it with {@code @QuarkusTestResource(value = AreaApiStub.class, restrictToAnnotatedClass = true)}; it points
+ * {@code quarkus.rest-client.area-api.url} at itself. Behaviour is set with {@code initArgs}, each of which can be
+ * overridden by a system property {@code area-stub.<name>} (e.g. {@code -Darea-stub.error-rate=0.05}):</p>
+ * <ul>
+ *     <li>{@code latency} - added before each response: {@code none} (default), {@code fixed:<ms>},
+ *     {@code uniform:<min ms>-<max ms>} or {@code lognormal:<median ms>,<p99 ms>}</li>
+ *     <li>{@code error-rate} - fraction of requests answered with 503 (default 0)</li>
+ *     <li>{@code dataset-size} - number of area codes known, from 201 upwards; others are 404 (default all 720 that
+ *     Contact's phone number pattern accepts, {@code [2-9][0-8][0-9]})</li>
+ *     <li>{@code seed} - seed for the latency and error draws, so that runs are repeatable (default 42)</li>
+ * </ul>
+ *
+ * <p>The first few codes carry their real US state, so 201 is always New Jersey; the rest are named "State &lt;id&gt;".</p>
+ */
+public class AreaApiStub implements QuarkusTestResourceLifecycleManager {
+
+    private static final String[][] KNOWN_AREAS = {
+            {"201", "New Jersey", "NJ"}, {"202", "District of Columbia", "DC"}, {"203", "Connecticut", "CT"},
+            {"205", "Alabama", "AL"}, {"206", "Washington", "WA"}, {"207", "Maine", "ME"}, {"208", "Idaho", "ID"},
+            {"209", "California", "CA"}, {"210", "Texas", "TX"}, {"212", "New York", "NY"},
+            {"213", "California", "CA"}, {"214", "Texas", "TX"}, {"215", "Pennsylvania", "PA"},
+            {"216", "Ohio", "OH"}, {"217", "Illinois", "IL"}, {"218", "Minnesota", "MN"}
+    };
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Latency latency;
+    private double errorRate;
+    private int datasetSize;
+    private SplittableRandom random;
+    private Map<Integer, String> areas;
+    private String allAreasJson;
+
+    @Override
+    public void init(Map<String, String> initArgs) {
+        latency = Latency.parse(arg(initArgs, "latency", "none"));
+        errorRate = Double.parseDouble(arg(initArgs, "error-rate", "0"));
+        datasetSize = Integer.parseInt(arg(initArgs, "dataset-size", "720"));
+        random = new SplittableRandom(Long.parseLong(arg(initArgs, "seed", "42")));
+    }
+
+    @Override
+    public Map<String, String> start() {
+        areas = buildAreas(datasetSize);
+        allAreasJson = "[" + String.join(",", areas.values()) + "]";
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the area-api stub", e);
+        }
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/areas", this::handle);
+        server.start();
+        return Map.of("quarkus.rest-client.area-api.url", "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            long delayMicros;
+            boolean fail;
+            synchronized (random) {
+                delayMicros = latency.nextMicros(random);
+                fail = errorRate > 0 && random.nextDouble() < errorRate;
+            }
+            if (delayMicros > 0) {
+                TimeUnit.MICROSECONDS.sleep(delayMicros);
+            }
+
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, null);
+            } else if (fail) {
+                respond(exchange, 503, null);
+            } else {
+                String path = exchange.getRequestURI().getPath();
+                if (path.equals("/areas") || path.equals("/areas/")) {
+                    respond(exchange, 200, allAreasJson);
+                } else {
+                    String area = lookup(path.substring("/areas/".length()));
+                    respond(exchange, area == null ? 404 : 200, area);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String lookup(String id) {
+        try {
+            return areas.get(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<Integer, String> buildAreas(int size) {
+        Map<Integer, String> areas = new TreeMap<>();
+        for (String[] known : KNOWN_AREAS) {
+            if (areas.size() < size) {
+                areas.put(Integer.parseInt(known[0]), json(Integer.parseInt(known[0]), known[1], known[2]));
+            }
+        }
+        // Area codes as accepted by Contact's phone number pattern: [2-9][0-8][0-9]
+        for (int id = 200; id <= 989 && areas.size() < size; id++) {
+            if (id / 10 % 10 != 9 && !areas.containsKey(id)) {
+                areas.put(id, json(id, "State " + id, "S" + id));
+            }
+        }
+        return areas;
+    }
+
+    private static String json(int id, String state, String abbr) {
+        return "{\"id\":" + id + ",\"state\":\"" + state + "\",\"abbr\":\"" + abbr + "\"}";
+    }
+
+    private static String arg(Map<String, String> initArgs, String name, String defaultValue) {
+        String value = System.getProperty("area-stub." + name);
+        if (value == null) {
+            value = initArgs.get(name);
+        }
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * <p>A response delay distribution.</p>
+     */
+    interface Latency {
+
+        long nextMicros(SplittableRandom random);
+
+        static Latency parse(String spec) {
+            String[] kind = spec.trim().split(":", 2);
+            switch (kind[0]) {
+                case "none":
+                    return random -> 0;
+                case "fixed": {
+                    long micros = millisToMicros(kind[1]);
+                    return random -> micros;
+                }
+                case "uniform": {
+                    String[] bounds = kind[1].split("-");
+                    long min = millisToMicros(bounds[0]);
+                    long max = millisToMicros(bounds[1]);
+                    return random -> min + (max > min ? random.nextLong(max - min + 1) : 0);
+                }
+                case "lognormal": {
+                    // Parameterised by median and p99: mu = ln(median), sigma = ln(p99 / median) / z(0.99)
+                    String[] params = kind[1].split(",");
+                    double median = Double.parseDouble(params[0]);
+                    double p99 = Double.parseDouble(params[1]);
+                    double mu = Math.log(median * 1000);
+                    double sigma = Math.log(p99 / median) / 2.3263;
+                    return random -> (long) Math.exp(mu + sigma * gaussian(random));
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        }
+
+        private static long millisToMicros(String millis) {
+            return (long) (Double.parseDouble(millis.trim()) * 1000);
+        }
+
+        private static double gaussian(SplittableRandom random) {
+            // Box-Muller; SplittableRandom has no nextGaussian
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.LocalDate;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createBooking;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createCustomer;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class BookingArchiveTest {
+
+    @Inject
+    BookingArchiver archiver;
+
+    @Test
+    public void testPastStaysAreArchivedAndReadBackWithHistory() {
+        long hotelId = createHotel("Archived", "Oldtown", "05550000801");
+        long customerId = createCustomer("Past", "80000000001");
+        long pastId = createBooking(customerId, hotelId, "2020-05-01", "2020-05-03");
+        long futureId = createBooking(customerId, hotelId, "2033-05-01", "2033-05-03");
+
+        assertTrue(archiver.archive(LocalDate.now()) >= 1);
+
+        given().when().get("/bookings/" + pastId).then().statusCode(404);
+        given().
+                queryParam("includeHistory", true).
+        when().
+                get("/bookings/" + pastId).
+        then().
+                statusCode(200).
+                body("id", equalTo((int) pastId)).
+                body("checkOutDate", equalTo("2020-05-03")).
+                body("hotel.id", equalTo((int) hotelId));
+
+        given().when().get("/bookings/customerId/" + customerId).then().statusCode(200)
+                .body("", hasSize(1))
+                .body("[0].id", equalTo((int) futureId));
+        given().
+                queryParam("includeHistory", true).
+                queryParam("fields", "id,checkInDate").
+        when().
+                get("/bookings/customerId/" + customerId).
+        then().
+                statusCode(200).
+                body("", hasSize(2)).
+                body("[1].id", equalTo((int) pastId));
+
+        // Archived bookings are history, and are out of reach of writes
+        given().when().delete("/bookings/" + pastId);
+        given().queryParam("includeHistory", true).when().get("/bookings/" + pastId).then().statusCode(200);
+    }
+}
@@ -0,0 +1,148 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createBooking;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createCustomer;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class BookingChangeFeedTest {
+
+    @TestHTTPResource("/bookings/changes")
+    URL changesUrl;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void testCommittedChangesAreStreamedAndReplayed() throws Exception {
+        Subscription live = subscribe(null);
+        try {
+            long id = createBooking(createCustomer("Feed", "60000000001"), createHotel("Streamed", "Feedham", "05550000601"),
+                    "2031-01-01", "2031-01-03");
+            Event created = live.next();
+            assertEquals("created", created.name);
+            assertTrue(created.data.contains("\"bookingId\":" + id), created.data);
+
+            given().when().delete("/bookings/" + id).then().statusCode(204);
+            Event deleted = live.next();
+            assertEquals("deleted", deleted.name);
+
+            Subscription resumed = subscribe(created.id);
+            try {
+                Event replayed = resumed.next();
+                assertEquals(deleted.id, replayed.id);
+                assertEquals("deleted", replayed.name);
+            } finally {
+                resumed.close();
+            }
+        } finally {
+            live.close();
+        }
+    }
+
+    @Test
+    public void testBookingsPurgedWithTheirHotelArePublished() throws Exception {
+        Subscription live = subscribe(null);
+        try {
+            long id = createBooking(createCustomer("Feed", "60000000002"), createHotel("Streamed", "Feedham", "05550000602"),
+                    "2031-01-01", "2031-01-03");
+            assertEquals("created", live.next().name);
+            Number hotelId = given().when().get("/bookings/" + id).then().statusCode(200).extract().path("hotel.id");
+
+            given().when().delete("/hotels/" + hotelId).then().statusCode(204);
+            Event deleted = live.next();
+            assertEquals("deleted", deleted.name);
+            assertTrue(deleted.data.contains("\"bookingId\":" + id), deleted.data);
+        } finally {
+            live.close();
+        }
+    }
+
+    @Test
+    public void testUnknownLastEventIdIsReset() throws Exception {
+        Subscription resumed = subscribe("0-1");
+        try {
+            assertEquals(BookingChangeFeed.RESET, resumed.next().name);
+        } finally {
+            resumed.close();
+        }
+    }
+
+    private Subscription subscribe(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(changesUrl.toString()))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = client.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        return new Subscription(response.body());
+    }
+
+    private static final class Event {
+        String id;
+        String name;
+        String data = "";
+    }
+
+    /**
+     * <p>Parses an event stream on a background thread.</p>
+     */
+    private static final class Subscription {
+        private final Stream<String> lines;
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+        Subscription(Stream<String> lines) {
+            this.lines = lines;
+            CompletableFuture.runAsync(() -> {
+                Event event = new Event();
+                for (String line : (Iterable<String>) lines::iterator) {
+                    if (line.isEmpty()) {
+                        if (event.name != null) {
+                            events.add(event);
+                        }
+                        event = new Event();
+                    } else if (line.startsWith("id:")) {
+                        event.id = line.substring(3).trim();
+                    } else if (line.startsWith("event:")) {
+                        event.name = line.substring(6).trim();
+                    } else if (line.startsWith("data:")) {
+                        event.data += line.substring(5).trim();
+                    }
+                }
+            });
+        }
+
+        Event next() throws InterruptedException {
+            Event event = events.poll(Duration.ofSeconds(10).toMillis(), TimeUnit.MILLISECONDS);
+            assertNotNull(event, "No event within 10s");
+            return event;
+        }
+
+        void close() {
+            lines.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class ConditionalGetTest {
+
+    @Test
+    public void testCollectionIsNotModifiedUntilATableChanges() {
+        String etag = given().
+        when().
+                get("/hotels").
+        then().
+                statusCode(200).
+                header("ETag", notNullValue()).
+                header("Cache-Control", "no-cache").
+                extract().header("ETag");
+
+        given().
+                header("If-None-Match", etag).
+        when().
+                get("/hotels").
+        then().
+                statusCode(304).
+                header("ETag", equalTo(etag));
+
+        createHotel("Polled", "Newcastle", "05550000101");
+
+        given().
+                header("If-None-Match", etag).
+        when().
+                get("/hotels").
+        then().
+                statusCode(200).
+                header("ETag", not(equalTo(etag)));
+    }
+
+    @Test
+    public void testEntityTagCarriesTheVersionForIfMatch() {
+        long id = createHotel("Polled", "Newcastle", "05550000102");
+
+        String etag = given().
+        when().
+                get("/hotels/" + id).
+        then().
+                statusCode(200).
+                header("ETag", startsWith("\"0;")).
+                extract().header("ETag");
+
+        given().
+                header("If-None-Match", etag).
+        when().
+                get("/hotels/" + id).
+        then().
+                statusCode(304);
+
+        given().
+                contentType(ContentType.JSON).
+                header("If-Match", etag).
+                body("{\"id\":" + id + ",\"name\":\"Renamed\",\"location\":\"Newcastle\",\"phoneNumber\":\"05550000102\",\"postalCode\":\"NE17RU\"}").
+        when().
+                put("/hotels/" + id).
+        then().
+                statusCode(200).
+                header("ETag", equalTo("\"1\""));
+
+        given().
+                header("If-None-Match", etag).
+        when().
+                get("/hotels/" + id).
+        then().
+                statusCode(200).
+                header("ETag", startsWith("\"1;"));
+    }
+}
@@ -0,0 +1,70 @@
+package uk.ac.newcastle.enterprisemiddleware.cache;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class ResponseCacheTest {
+
+    private static final String ROUTE = "/hotels/byLocation/Cachetown";
+
+    @Test
+    public void testCachedResponsesFollowHotelWrites() {
+        when().get(ROUTE).then().statusCode(200).body("$", hasSize(0));
+
+        Number id = given().
+                contentType(ContentType.JSON).
+                body(hotelJson(null, "Cached")).
+        when().
+                post("/hotels").
+        then().
+                statusCode(201).
+                extract().path("id");
+
+        String first = when().get(ROUTE).then().
+                statusCode(200).
+                contentType(ContentType.JSON).
+                body("$", hasSize(1)).
+                body("[0].name", equalTo("Cached")).
+                extract().asString();
+        String second = when().get(ROUTE).then().statusCode(200).extract().asString();
+        assertEquals(first, second);
+
+        given().
+                contentType(ContentType.JSON).
+                body(hotelJson(id, "Renamed")).
+        when().
+                put("/hotels/" + id).
+        then().
+                statusCode(200);
+
+        when().get(ROUTE).then().statusCode(200).body("[0].name", equalTo("Renamed"));
+    }
+
+    @Test
+    public void testRequestValuesCannotForgeAnotherRoute() {
+        given().contentType(ContentType.JSON).body(hotelJson(null, "Forged").replace("05550000201", "05550000202").replace("Cachetown", "Forgeton"))
+                .when().post("/hotels").then().statusCode(201);
+
+        given().queryParam("name", "Forged").queryParam("fields", "id").
+        when().get("/hotels").then().statusCode(200).body("$", hasSize(1));
+        // Would share the route /hotels?name=Forged&fields=id if the name were not escaped
+        given().queryParam("name", "Forged&fields=id").
+        when().get("/hotels").then().statusCode(200).body("$", hasSize(0));
+    }
+
+    private static String hotelJson(Number id, String name) {
+        return "{" + (id == null ? "" : "\"id\":" + id + ",") + "\"name\":\"" + name
+                + "\",\"location\":\"Cachetown\",\"phoneNumber\":\"05550000201\",\"postalCode\":\"CT12AB\"}";
+    }
+}
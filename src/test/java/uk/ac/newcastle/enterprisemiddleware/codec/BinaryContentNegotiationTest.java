@@ -0,0 +1,96 @@
+package uk.ac.newcastle.enterprisemiddleware.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class BinaryContentNegotiationTest {
+
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    @Test
+    public void testRepresentationsCarryTheSameEntity() throws IOException {
+        Number id = given().
+                contentType(ContentType.JSON).
+                body("{\"name\":\"Binary\",\"location\":\"Bytetown\",\"phoneNumber\":\"05550000401\",\"postalCode\":\"BT12AB\"}").
+        when().
+                post("/hotels").
+        then().
+                statusCode(201).
+                extract().path("id");
+
+        byte[] jsonBytes = get("/hotels/" + id, "application/json");
+        byte[] cborBytes = get("/hotels/" + id, BinaryMediaType.APPLICATION_CBOR);
+        byte[] smileBytes = get("/hotels/" + id, BinaryMediaType.APPLICATION_SMILE);
+        JsonNode json = new ObjectMapper().readTree(jsonBytes);
+        assertEquals(json, cbor.readTree(cborBytes));
+        assertEquals(json, smile.readTree(smileBytes));
+        // Fewer bytes on the wire is what the binary representations are for
+        assertTrue(cborBytes.length < jsonBytes.length, cborBytes.length + " bytes of CBOR, " + jsonBytes.length + " of JSON");
+        assertTrue(smileBytes.length < jsonBytes.length, smileBytes.length + " bytes of Smile, " + jsonBytes.length + " of JSON");
+
+        // Cached routes keep one entry per representation
+        JsonNode list = new ObjectMapper().readTree(get("/hotels/byLocation/Bytetown", "application/json"));
+        assertEquals(list, cbor.readTree(get("/hotels/byLocation/Bytetown", BinaryMediaType.APPLICATION_CBOR)));
+        assertEquals(list, new ObjectMapper().readTree(get("/hotels/byLocation/Bytetown", "application/json")));
+    }
+
+    @Test
+    public void testBinaryRequestBodiesAreAccepted() throws IOException {
+        byte[] body = cbor.writeValueAsBytes(cbor.createObjectNode()
+                .put("name", "Cbor")
+                .put("location", "Bytetown")
+                .put("phoneNumber", "05550000402")
+                .put("postalCode", "BT12AC"));
+        given().
+                contentType(BinaryMediaType.APPLICATION_CBOR).
+                body(body).
+        when().
+                post("/hotels").
+        then().
+                statusCode(201).
+                body("name", equalTo("Cbor"));
+    }
+
+    @Test
+    public void testEntityTagsDifferByRepresentation() {
+        String json = given().accept(ContentType.JSON).when().get("/hotels").then().statusCode(200)
+                .header("Vary", "Accept").extract().header("ETag");
+        given().
+                accept(BinaryMediaType.APPLICATION_SMILE).
+                header("If-None-Match", json).
+        when().
+                get("/hotels").
+        then().
+                statusCode(200).
+                header("ETag", not(equalTo(json)));
+    }
+
+    private static byte[] get(String path, String accept) {
+        return given().
+                accept(accept).
+        when().
+                get(path).
+        then().
+                statusCode(200).
+                contentType(accept).
+                extract().asByteArray();
+    }
+}
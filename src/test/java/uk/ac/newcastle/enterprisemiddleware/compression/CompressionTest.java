@@ -0,0 +1,95 @@
+package uk.ac.newcastle.enterprisemiddleware.compression;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class CompressionTest {
+
+    @Test
+    public void testLargeCachedBodiesAreServedPrecompressed() {
+        for (int i = 0; i < 12; i++) {
+            given().
+                    contentType(ContentType.JSON).
+                    body("{\"name\":\"Squeezed\",\"location\":\"Zipton\",\"phoneNumber\":\"055500005" + String.format("%02d", i)
+                            + "\",\"postalCode\":\"ZT12AB\"}").
+            when().
+                    post("/hotels").
+            then().
+                    statusCode(201);
+        }
+
+        String gzipTag = given().
+                header("Accept-Encoding", "gzip").
+        when().
+                get("/hotels?name=Squeezed").
+        then().
+                statusCode(200).
+                header("Content-Encoding", "gzip").
+                header("ETag", endsWith("+gzip\"")).
+                body("$", hasSize(12)).
+                extract().header("ETag");
+
+        // Without its content decoders REST-assured sends the Accept-Encoding as given
+        given().
+                config(RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders())).
+                header("Accept-Encoding", "identity").
+        when().
+                get("/hotels?name=Squeezed").
+        then().
+                statusCode(200).
+                header("Content-Encoding", nullValue()).
+                header("ETag", not(endsWith("+gzip\""))).
+                body("[0].location", equalTo("Zipton"));
+
+        given().
+                header("Accept-Encoding", "gzip").
+                header("If-None-Match", gzipTag).
+        when().
+                get("/hotels?name=Squeezed").
+        then().
+                statusCode(304).
+                header("ETag", equalTo(gzipTag)).
+                header("Vary", containsString("Accept-Encoding"));
+    }
+
+    @Test
+    public void testSmallBodiesAreNotCompressed() {
+        given().
+                header("Accept-Encoding", "gzip").
+        when().
+                get("/hotels/byLocation/Nowhere").
+        then().
+                statusCode(200).
+                header("Content-Encoding", nullValue());
+    }
+
+    @Test
+    public void testNegotiation() {
+        EnumSet<ContentCoding> both = EnumSet.allOf(ContentCoding.class);
+        assertEquals(ContentCoding.BROTLI, ContentCoding.negotiate("gzip, br", both));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip, br;q=0.5", both));
+        assertNull(ContentCoding.negotiate("br", EnumSet.of(ContentCoding.GZIP)));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("*;q=0.1, br;q=0", both));
+        assertNull(ContentCoding.negotiate("identity", both));
+        assertNull(ContentCoding.negotiate(null, both));
+    }
+}
@@ -0,0 +1,73 @@
+package uk.ac.newcastle.enterprisemiddleware.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Checks how the {@link AdaptiveLimit} admits, sheds and adapts, without a running application.</p>
+ */
+class AdaptiveLimitTest {
+
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    public void testReadsAreShedBeforeWrites() {
+        AdaptiveLimit limit = new AdaptiveLimit(8, 2, 100, THRESHOLD, 0.5, 0.75);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limit.tryAcquire(false));
+        }
+        assertFalse(limit.tryAcquire(false));
+        assertTrue(limit.tryAcquire(true));
+        assertTrue(limit.tryAcquire(true));
+        assertFalse(limit.tryAcquire(true));
+        assertEquals(8, limit.inFlight());
+
+        limit.release(FAST);
+        assertEquals(7, limit.inFlight());
+        assertTrue(limit.tryAcquire(true));
+    }
+
+    @Test
+    public void testLimitBacksOffOnSlowRequestsAndGrowsBack() {
+        AdaptiveLimit limit = new AdaptiveLimit(16, 2, 100, THRESHOLD, 0.5, 0.75);
+
+        // A burst of slow completions backs off once
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limit.tryAcquire(true));
+        }
+        for (int i = 0; i < 4; i++) {
+            limit.release(SLOW);
+        }
+        assertEquals(8, limit.limit());
+
+        // Fast completions with the limit in use add about one per limit's worth of requests
+        for (int round = 0; round < 500; round++) {
+            int slots = limit.limit();
+            for (int i = 0; i < slots; i++) {
+                assertTrue(limit.tryAcquire(true));
+            }
+            for (int i = 0; i < slots; i++) {
+                limit.release(FAST);
+            }
+        }
+        assertEquals(100, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    public void testIdleCapacityDoesNotGrowTheLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 2, 100, THRESHOLD, 0.5, 0.75);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limit.tryAcquire(false));
+            limit.release(FAST);
+        }
+        assertEquals(10, limit.limit());
+    }
+}
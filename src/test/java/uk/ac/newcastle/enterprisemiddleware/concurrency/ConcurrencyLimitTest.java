@@ -0,0 +1,110 @@
+package uk.ac.newcastle.enterprisemiddleware.concurrency;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+/**
+ * <p>Runs the application with a fixed limit of two requests at once, one of which reads may use, and a resource
+ * whose requests hold their slot until the test lets them go.</p>
+ */
+@QuarkusTest
+@TestProfile(ConcurrencyLimitTest.TwoSlots.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class ConcurrencyLimitTest {
+
+    public static class TwoSlots implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "concurrency-limit.initial", "2",
+                    "concurrency-limit.min", "2",
+                    "concurrency-limit.max", "2",
+                    "concurrency-limit.read-share", "0.5",
+                    "concurrency-limit.latency-threshold", "PT1M");
+        }
+    }
+
+    @Path("/concurrency-test")
+    public static class Gate {
+
+        static final Semaphore entered = new Semaphore(0);
+        static volatile CountDownLatch open = new CountDownLatch(0);
+
+        @GET
+        @Path("/hold")
+        public String holdRead() throws InterruptedException {
+            return hold();
+        }
+
+        @POST
+        @Path("/hold")
+        public String holdWrite() throws InterruptedException {
+            return hold();
+        }
+
+        @GET
+        @Path("/fail")
+        public String fail() {
+            throw new IllegalStateException("Failed on purpose");
+        }
+
+        private static String hold() throws InterruptedException {
+            entered.release();
+            open.await(30, TimeUnit.SECONDS);
+            return "released";
+        }
+    }
+
+    @Test
+    public void testReadsAreShedWhileWritesAreAdmitted() throws Exception {
+        Gate.open = new CountDownLatch(1);
+        CompletableFuture<Integer> read = CompletableFuture.supplyAsync(
+                () -> given().when().get("/concurrency-test/hold").statusCode());
+        try {
+            assertTrue(Gate.entered.tryAcquire(30, TimeUnit.SECONDS));
+
+            // The read holds the reads' share of the limit
+            given().when().get("/hotels").then()
+                    .statusCode(503)
+                    .header("Retry-After", notNullValue())
+                    .body("error", notNullValue());
+            // but a write may still take the last slot, and gives it back when it is answered
+            createHotel("Admitted", "Slotham", "05550002001");
+            createHotel("Readmitted", "Slotham", "05550002002");
+        } finally {
+            Gate.open.countDown();
+        }
+        assertEquals(200, read.get(30, TimeUnit.SECONDS));
+        given().when().get("/hotels").then().statusCode(200);
+    }
+
+    @Test
+    public void testSlotsAreReleasedAfterErrors() {
+        // More failures than there are slots, so a slot kept by any of them would shed the read after
+        for (int i = 0; i < 4; i++) {
+            given().when().get("/concurrency-test/fail").then().statusCode(500);
+            given().when().get("/hotels/999999").then().statusCode(404);
+            given().when().get("/customers/999999/profile").then().statusCode(404);
+        }
+        given().when().get("/hotels").then().statusCode(200);
+    }
+}
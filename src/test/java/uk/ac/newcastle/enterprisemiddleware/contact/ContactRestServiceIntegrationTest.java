@@ -7,6 +7,7 @@ import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import org.junit.jupiter.api.*;
+import uk.ac.newcastle.enterprisemiddleware.area.AreaApiStub;
 
 import java.util.Calendar;
 
@@ -20,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 @TestHTTPEndpoint(ContactRestService.class)
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @QuarkusTestResource(H2DatabaseTestResource.class)
+@QuarkusTestResource(value = AreaApiStub.class, restrictToAnnotatedClass = true)
 class ContactRestServiceIntegrationTest {
 
     private static Contact contact;
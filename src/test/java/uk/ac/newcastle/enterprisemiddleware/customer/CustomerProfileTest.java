@@ -0,0 +1,104 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createBooking;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createCustomer;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class CustomerProfileTest {
+
+    @Test
+    public void testProfileFollowsBookingChanges() {
+        long hotelId = createHotel("Profiled", "Pagetown", "05550001001");
+        long customerId = createCustomer("Paige", "10000000001");
+        createBooking(customerId, hotelId, "2035-06-10", "2035-06-12");
+        long firstId = createBooking(customerId, hotelId, "2035-06-01", "2035-06-03");
+
+        given().
+        when().
+                get("/customers/" + customerId + "/profile").
+        then().
+                statusCode(200).
+                body("name", equalTo("Paige")).
+                body("bookings", hasSize(2)).
+                body("bookings[0].id", equalTo((int) firstId)).
+                body("bookings[0].hotel.name", equalTo("Profiled")).
+                body("bookings[1].checkInDate", equalTo("2035-06-10"));
+
+        // The cached profile is dropped when one of its bookings changes
+        given().contentType(ContentType.JSON)
+                .body("{\"id\":" + firstId + ",\"customer\":{\"id\":" + customerId + "},\"hotel\":{\"id\":" + hotelId
+                        + "},\"checkInDate\":\"2035-06-20\",\"checkOutDate\":\"2035-06-22\"}")
+                .when().put("/bookings/" + firstId).then().statusCode(200);
+        given().when().get("/customers/" + customerId + "/profile").then().statusCode(200)
+                .body("bookings", hasSize(2))
+                .body("bookings[1].id", equalTo((int) firstId));
+        createBooking(customerId, hotelId, "2035-07-01", "2035-07-02");
+        given().when().get("/customers/" + customerId + "/profile").then().statusCode(200)
+                .body("bookings", hasSize(3))
+                .body("bookings[2].checkInDate", equalTo("2035-07-01"));
+    }
+
+    @Test
+    public void testProfileOfCustomerWithoutBookings() {
+        long customerId = createCustomer("Newcomer", "10000000002");
+
+        given().when().get("/customers/" + customerId + "/profile").then().statusCode(200)
+                .body("id", equalTo((int) customerId))
+                .body("bookings", hasSize(0));
+        given().when().get("/customers/999999/profile").then().statusCode(404);
+    }
+
+    @Test
+    public void testMovedBookingLeavesThePreviousProfile() {
+        long hotelId = createHotel("Moved", "Pagetown", "05550001003");
+        long fromId = createCustomer("Giver", "10000000003");
+        long toId = createCustomer("Taker", "10000000004");
+        long bookingId = createBooking(fromId, hotelId, "2035-08-01", "2035-08-03");
+        given().when().get("/customers/" + fromId + "/profile").then().statusCode(200).body("bookings", hasSize(1));
+
+        given().contentType(ContentType.JSON)
+                .body("{\"id\":" + bookingId + ",\"customer\":{\"id\":" + toId + "},\"hotel\":{\"id\":" + hotelId
+                        + "},\"checkInDate\":\"2035-08-01\",\"checkOutDate\":\"2035-08-03\"}")
+                .when().put("/bookings/" + bookingId).then().statusCode(200);
+
+        given().when().get("/customers/" + fromId + "/profile").then().statusCode(200).body("bookings", hasSize(0));
+        given().when().get("/customers/" + toId + "/profile").then().statusCode(200).body("bookings", hasSize(1));
+    }
+
+    @Test
+    public void testProfileFollowsCustomerAndHotelUpdates() {
+        long hotelId = createHotel("Renamed", "Pagetown", "05550001005");
+        long customerId = createCustomer("Before", "10000000005");
+        createBooking(customerId, hotelId, "2035-09-01", "2035-09-03");
+        given().when().get("/customers/" + customerId + "/profile").then().statusCode(200)
+                .body("name", equalTo("Before"));
+
+        given().contentType(ContentType.JSON)
+                .body("{\"id\":" + customerId + ",\"name\":\"After\",\"email\":\"before10000000005@example.com\","
+                        + "\"phoneNumber\":\"10000000005\"}")
+                .when().put("/customers/" + customerId).then().statusCode(200);
+        given().when().get("/customers/" + customerId + "/profile").then().statusCode(200)
+                .body("name", equalTo("After"));
+
+        given().contentType(ContentType.JSON)
+                .body("{\"id\":" + hotelId + ",\"name\":\"Rebranded\",\"location\":\"Pagetown\","
+                        + "\"phoneNumber\":\"05550001005\",\"postalCode\":\"NE17RU\"}")
+                .when().put("/hotels/" + hotelId).then().statusCode(200);
+        given().when().get("/customers/" + customerId + "/profile").then().statusCode(200)
+                .body("bookings[0].hotel.name", equalTo("Rebranded"));
+
+        given().when().delete("/customers/" + customerId).then().statusCode(204);
+        given().when().get("/customers/" + customerId + "/profile").then().statusCode(404);
+    }
+}
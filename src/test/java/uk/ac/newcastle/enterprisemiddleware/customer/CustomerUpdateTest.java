@@ -0,0 +1,86 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createBooking;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createCustomer;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class CustomerUpdateTest {
+
+    @Test
+    public void testUpdatesCheckIfMatchAndKeepTheBookings() {
+        long hotelId = createHotel("Updated", "Editham", "05550001101");
+        long customerId = createCustomer("Edith", "11000000001");
+        long bookingId = createBooking(customerId, hotelId, "2036-01-01", "2036-01-03");
+
+        given().
+                contentType(ContentType.JSON).
+                header("If-Match", "\"0\"").
+                body(customerJson(customerId, "Edith", "11000000001")).
+        when().
+                put("/customers/" + customerId).
+        then().
+                statusCode(200).
+                header("ETag", equalTo("\"1\"")).
+                body("version", equalTo(1));
+
+        // The version named is no longer the stored one
+        given().
+                contentType(ContentType.JSON).
+                header("If-Match", "\"0\"").
+                body(customerJson(customerId, "Stale", "11000000001")).
+        when().
+                put("/customers/" + customerId).
+        then().
+                statusCode(412);
+
+        // Unconditional, and nothing changed: still a new version
+        given().
+                contentType(ContentType.JSON).
+                body(customerJson(customerId, "Edith", "11000000001")).
+        when().
+                put("/customers/" + customerId).
+        then().
+                statusCode(200).
+                header("ETag", equalTo("\"2\"")).
+                body("name", equalTo("Edith"));
+
+        given().
+                contentType(ContentType.JSON).
+                body(customerJson(customerId, "Edwina", "11000000001")).
+        when().
+                put("/customers/" + customerId).
+        then().
+                statusCode(200).
+                body("name", equalTo("Edwina")).
+                body("version", equalTo(3));
+
+        given().when().get("/bookings/" + bookingId).then().statusCode(200)
+                .body("customer.id", equalTo((int) customerId));
+    }
+
+    @Test
+    public void testUpdateOfMissingCustomerIsNotFound() {
+        given().
+                contentType(ContentType.JSON).
+                body(customerJson(999998, "Nobody", "11000000002")).
+        when().
+                put("/customers/999998").
+        then().
+                statusCode(404);
+    }
+
+    private static String customerJson(long id, String name, String phoneNumber) {
+        return "{\"id\":" + id + ",\"name\":\"" + name + "\",\"email\":\"edith" + phoneNumber
+                + "@example.com\",\"phoneNumber\":\"" + phoneNumber + "\"}";
+    }
+}
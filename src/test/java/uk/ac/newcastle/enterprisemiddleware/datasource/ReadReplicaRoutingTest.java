@@ -0,0 +1,112 @@
+package uk.ac.newcastle.enterprisemiddleware.datasource;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * <p>Runs the application with two separate H2 databases, the usual TCP one as primary and an in-memory one as the
+ * replica, and checks that GET endpoints read from the replica while writes, and the checks made inside them, use
+ * the primary.</p>
+ */
+@QuarkusTest
+@TestProfile(ReadReplicaRoutingTest.SeparateReplica.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    public static class SeparateReplica implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // Rows are written to the replica behind the application's back, so responses must not be cached
+            return Map.of(
+                    "quarkus.datasource.\"read\".jdbc.url", REPLICA_URL,
+                    "quarkus.hibernate-orm.\"read\".database.generation", "drop-and-create",
+                    "cache.max-staleness", "PT0S");
+        }
+    }
+
+    @Test
+    @Order(1)
+    public void testWritesGoToPrimaryAndReadsToReplica() {
+        given().
+                contentType(ContentType.JSON).
+                body("{\"name\":\"Primary\",\"location\":\"Newcastle\",\"phoneNumber\":\"01234567890\",\"postalCode\":\"NE17RU\"}").
+        when().
+                post("/hotels").
+        then().
+                statusCode(201);
+
+        // The replica has not seen the write
+        given().
+        when().
+                get("/hotels").
+        then().
+                statusCode(200).
+                body("$", hasSize(0));
+    }
+
+    @Test
+    @Order(2)
+    public void testReadsSeeReplicaRows() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL);
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO hotels (id, name, location, phoneNumber, postalCode) VALUES (?, ?, ?, ?, ?)")) {
+            insert.setLong(1, 1000);
+            insert.setString(2, "Replica");
+            insert.setString(3, "Durham");
+            insert.setString(4, "09876543210");
+            insert.setString(5, "DH13LE");
+            insert.executeUpdate();
+        }
+
+        given().
+        when().
+                get("/hotels").
+        then().
+                statusCode(200).
+                body("$", hasSize(1)).
+                body("[0].name", equalTo("Replica"));
+    }
+
+    @Test
+    @Order(3)
+    public void testChecksInsideWritesUsePrimary() {
+        // The phone number is only on the replica, so the uniqueness check inside the write must not see it
+        given().
+                contentType(ContentType.JSON).
+                body("{\"name\":\"Second\",\"location\":\"Durham\",\"phoneNumber\":\"09876543210\",\"postalCode\":\"DH13LE\"}").
+        when().
+                post("/hotels").
+        then().
+                statusCode(201);
+
+        // ... while the primary phone number is rejected, although the replica does not have it
+        given().
+                contentType(ContentType.JSON).
+                body("{\"name\":\"Third\",\"location\":\"Newcastle\",\"phoneNumber\":\"01234567890\",\"postalCode\":\"NE17RU\"}").
+        when().
+                post("/hotels").
+        then().
+                statusCode(409);
+    }
+}
@@ -0,0 +1,48 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class EventLogTest {
+
+    @Inject
+    EventLog events;
+
+    @Test
+    public void testCommittedWritesAreTailed() {
+        LogTail tail = events.tail(events.end());
+
+        Number id = given().
+                contentType(ContentType.JSON).
+                body("{\"name\":\"Outbox\",\"location\":\"Newcastle\",\"phoneNumber\":\"05550000301\",\"postalCode\":\"NE17RU\"}").
+        when().
+                post("/hotels").
+        then().
+                statusCode(201).
+                extract().path("id");
+        given().
+        when().
+                delete("/hotels/" + id).
+        then().
+                statusCode(204);
+
+        List<DomainEvent> read = tail.poll(100);
+        assertEquals(2, read.size());
+        assertEquals("hotel.created", read.get(0).getType());
+        assertEquals("hotel.deleted", read.get(1).getType());
+        assertTrue(new String(read.get(0).bytes(), StandardCharsets.UTF_8).contains("\"id\":" + id));
+    }
+}
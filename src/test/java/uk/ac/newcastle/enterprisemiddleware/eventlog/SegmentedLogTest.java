@@ -0,0 +1,72 @@
+package uk.ac.newcastle.enterprisemiddleware.eventlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRecoveryDropsTornWritesAndAbortsOpenUnitsOfWork() throws Exception {
+        long tornAt;
+        try (SegmentedLog log = SegmentedLog.open(directory, 4096, 4)) {
+            log.append(SegmentedLog.EVENT, 1, "test.committed", "{}".getBytes(StandardCharsets.UTF_8));
+            log.append(SegmentedLog.COMMIT, 1, "", new byte[0]);
+            log.append(SegmentedLog.EVENT, 2, "test.rolledBack", "{}".getBytes(StandardCharsets.UTF_8));
+            log.append(SegmentedLog.ABORT, 2, "", new byte[0]);
+            log.append(SegmentedLog.EVENT, 3, "test.interrupted", "{}".getBytes(StandardCharsets.UTF_8));
+            tornAt = log.end();
+        }
+        // A record whose length made it to disk but whose body did not
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(String.format("%020d.log", 0)).toFile(), "rw")) {
+            file.seek(tornAt);
+            file.writeInt(40);
+            file.writeInt(0xCAFE);
+            file.write(SegmentedLog.EVENT);
+        }
+
+        try (SegmentedLog log = SegmentedLog.open(directory, 4096, 4)) {
+            assertTrue(log.truncatedBytes() > 0, "The torn record is cleared");
+            assertEquals(1, log.abortedTransactions());
+            assertTrue(log.nextTransaction() > 3);
+
+            List<DomainEvent> read = log.tail(log.start()).poll(100);
+            assertEquals(1, read.size());
+            assertEquals("test.committed", read.get(0).getType());
+        }
+    }
+
+    @Test
+    public void testTailFollowsTheLogAcrossSegments() throws Exception {
+        try (SegmentedLog log = SegmentedLog.open(directory, 256, 3)) {
+            LogTail tail = log.tail(log.start());
+            byte[] payload = new byte[50];
+            List<DomainEvent> read = new ArrayList<>();
+            for (int i = 1; i <= 40; i++) {
+                log.append(SegmentedLog.EVENT, i, "test." + i, payload);
+                log.append(SegmentedLog.COMMIT, i, "", new byte[0]);
+                if (i % 5 == 0) {
+                    read.addAll(tail.poll(100));
+                }
+            }
+
+            assertEquals(40, read.size());
+            for (int i = 0; i < read.size(); i++) {
+                assertEquals("test." + (i + 1), read.get(i).getType());
+            }
+            assertEquals(3, log.segmentCount(), "Old segments are deleted");
+            assertEquals(log.end(), tail.checkpoint());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package uk.ac.newcastle.enterprisemiddleware.fieldset;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class SparseFieldsetTest {
+
+    @Test
+    public void testOnlyTheRequestedFieldsAreReturned() {
+        Number id = given().
+                contentType(ContentType.JSON).
+                body("{\"name\":\"Sparse\",\"location\":\"Fieldton\",\"phoneNumber\":\"05550000301\",\"postalCode\":\"FT12AB\"}").
+        when().
+                post("/hotels").
+        then().
+                statusCode(201).
+                extract().path("id");
+
+        Map<String, Object> hotel = given().
+                queryParam("fields", "name, id,name").
+        when().
+                get("/hotels/" + id).
+        then().
+                statusCode(200).
+                body("id", equalTo(id.intValue())).
+                body("name", equalTo("Sparse")).
+                extract().jsonPath().getMap("$");
+        assertEquals(2, hotel.size(), "Unrequested fields were returned: " + hotel);
+
+        given().
+                queryParam("fields", "postalCode").
+        when().
+                get("/hotels/byLocation/Fieldton").
+        then().
+                statusCode(200).
+                body("$", hasSize(1)).
+                body("[0].postalCode", equalTo("FT12AB")).
+                body("[0].name", equalTo(null));
+    }
+
+    @Test
+    public void testUnknownFieldsAreRejected() {
+        given().
+                queryParam("fields", "name,bookings").
+        when().
+                get("/hotels").
+        then().
+                statusCode(400);
+    }
+}
@@ -0,0 +1,65 @@
+package uk.ac.newcastle.enterprisemiddleware.hotel;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createBooking;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createCustomer;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class BulkDeleteTest {
+
+    @Test
+    public void testHotelBookingsArePurgedInChunks() {
+        long hotelId = createHotel("Purged", "Bulkton", "05550000901");
+        long customerId = createCustomer("Bulk", "90000000001");
+        long first = createBooking(customerId, hotelId, "2034-01-01", "2034-01-03");
+        createBooking(customerId, hotelId, "2034-02-01", "2034-02-03");
+        createBooking(customerId, hotelId, "2034-03-01", "2034-03-03");
+
+        // %test.bulk-delete.chunk-size=2
+        given().
+        when().
+                delete("/hotels/" + hotelId).
+        then().
+                statusCode(204).
+                header("Server-Timing", containsString("bookings;dur=")).
+                header("Server-Timing", containsString("desc=\"3 rows in 2 chunks\"")).
+                header("Server-Timing", containsString("hotel;dur="));
+
+        given().when().get("/bookings/" + first).then().statusCode(404);
+        given().when().get("/customers/email/bulk90000000001@example.com").then().statusCode(200);
+    }
+
+    @Test
+    public void testCustomerBookingsAreReleasedFromOccupancy() {
+        long hotelId = createHotel("Purged", "Bulkton", "05550000902");
+        long customerId = createCustomer("Bulk", "90000000002");
+        createBooking(customerId, hotelId, "2034-04-01", "2034-04-04");
+        createBooking(customerId, hotelId, "2034-04-05", "2034-04-06");
+
+        given().
+        when().
+                delete("/customers/" + customerId).
+        then().
+                statusCode(204).
+                header("Server-Timing", containsString("customer;dur="));
+
+        given().
+                queryParam("from", "2034-04-01").
+                queryParam("to", "2034-04-10").
+        when().
+                get("/hotels/" + hotelId + "/occupancy").
+        then().
+                statusCode(200).
+                body("occupiedNights", equalTo(0));
+        given().when().get("/hotels/" + hotelId).then().statusCode(200);
+    }
+}
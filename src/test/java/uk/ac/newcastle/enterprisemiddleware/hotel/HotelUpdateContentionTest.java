@@ -0,0 +1,147 @@
+package uk.ac.newcastle.enterprisemiddleware.hotel;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+/**
+ * <p>Many writers updating the same Hotel row at once.</p>
+ *
+ * <p>Every update that the API acknowledges must show up as exactly one version increment: nothing is silently
+ * overwritten, and nothing fails with a 500. Unconditional updates are expected to get through on the server side
+ * retry; conditional ones (with {@code If-Match}) that lose the race get a 412. The throughput and the outcome counts
+ * of each run are logged.</p>
+ */
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class HotelUpdateContentionTest {
+
+    private static final Logger LOG = Logger.getLogger(HotelUpdateContentionTest.class);
+
+    private static final int WRITERS = 8;
+    private static final int UPDATES_PER_WRITER = 25;
+
+    @TestHTTPResource("/")
+    URL baseUrl;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    public void testUnconditionalUpdatesAreNotLost() throws Exception {
+        long id = createHotel("Contended", "Newcastle", "05550000001");
+        long initialVersion = currentVersion(id);
+
+        Outcome outcome = run(id, "05550000001", false);
+
+        assertEquals(0, outcome.other.get(), "Unexpected statuses");
+        assertEquals(initialVersion + outcome.ok.get(), currentVersion(id),
+                "Every acknowledged update must be exactly one new version");
+        assertTrue(outcome.ok.get() > 0, "No update got through");
+    }
+
+    @Test
+    public void testConditionalUpdatesFailTheirPrecondition() throws Exception {
+        long id = createHotel("Contended", "Newcastle", "05550000002");
+        long initialVersion = currentVersion(id);
+
+        Outcome outcome = run(id, "05550000002", true);
+
+        assertEquals(0, outcome.other.get(), "Unexpected statuses");
+        assertEquals(initialVersion + outcome.ok.get(), currentVersion(id),
+                "Every acknowledged update must be exactly one new version");
+        assertTrue(outcome.ok.get() > 0, "No update got through");
+    }
+
+    private Outcome run(long id, String phoneNumber, boolean conditional) throws Exception {
+        Outcome outcome = new Outcome();
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                String name = "Writer" + (char) ('A' + w);
+                tasks.add(() -> {
+                    for (int i = 0; i < UPDATES_PER_WRITER; i++) {
+                        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "hotels/" + id))
+                                .timeout(Duration.ofSeconds(30))
+                                .header("Content-Type", "application/json")
+                                .PUT(HttpRequest.BodyPublishers.ofString(hotelJson(id, name, phoneNumber)));
+                        if (conditional) {
+                            request.header("If-Match", "\"" + currentVersion(id) + "\"");
+                        }
+                        outcome.record(client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+                    }
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> result : writers.invokeAll(tasks)) {
+                result.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            int total = WRITERS * UPDATES_PER_WRITER;
+            LOG.infof("%s updates, %d writers on one row: %.1f req/s, %d ok, %d 409, %d 412, %d other",
+                    conditional ? "conditional" : "unconditional", WRITERS, total * 1e9 / elapsed,
+                    outcome.ok.get(), outcome.conflict.get(), outcome.preconditionFailed.get(), outcome.other.get());
+        } finally {
+            writers.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private long currentVersion(long id) {
+        Number version = given().
+        when().
+                get("/hotels/" + id).
+        then().
+                statusCode(200).
+                extract().path("version");
+        return version.longValue();
+    }
+
+    private static String hotelJson(long id, String name, String phoneNumber) {
+        return "{\"id\":" + id + ",\"name\":\"" + name + "\",\"location\":\"Newcastle\",\"phoneNumber\":\""
+                + phoneNumber + "\",\"postalCode\":\"NE17RU\"}";
+    }
+
+    private static class Outcome {
+        final AtomicInteger ok = new AtomicInteger();
+        final AtomicInteger conflict = new AtomicInteger();
+        final AtomicInteger preconditionFailed = new AtomicInteger();
+        final AtomicInteger other = new AtomicInteger();
+
+        void record(int status) {
+            if (status == 200) {
+                ok.incrementAndGet();
+            } else if (status == 409) {
+                conflict.incrementAndGet();
+            } else if (status == 412) {
+                preconditionFailed.incrementAndGet();
+            } else {
+                other.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package uk.ac.newcastle.enterprisemiddleware.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Settings for {@link ServiceLoadTest}, read from system properties so that they can be given on the Maven command
+ * line, e.g. {@code mvn verify -Ploadtest -Dloadtest.rate=500 -Dloadtest.slo.p99=250}.</p>
+ *
+ * <ul>
+ *     <li>{@code loadtest.rate} - requests started per second, regardless of how quickly they complete</li>
+ *     <li>{@code loadtest.warmup} / {@code loadtest.duration} - seconds of warm up (not reported) and measured load</li>
+ *     <li>{@code loadtest.mix} - relative weights of the operations, e.g. {@code bookings=2,availability=3}</li>
+ *     <li>{@code loadtest.slo.p99} - the p99 response time limit in milliseconds for every operation, overridden per
+ *     operation with {@code loadtest.slo.p99.<operation>}</li>
+ *     <li>{@code loadtest.max-error-rate} - the fraction of requests allowed to fail with a 5xx or no response</li>
+ *     <li>{@code loadtest.seed.hotels} / {@code .customers} / {@code .bookings} - the data created before the run</li>
+ * </ul>
+ */
+final class LoadTestSettings {
+
+    static final String DEFAULT_MIX = "bookings=2,bookings-read=3,availability=3,guest-bookings=1,contacts=1";
+
+    final int rate;
+    final Duration warmup;
+    final Duration duration;
+    final Map<String, Integer> mix;
+    final long defaultP99Millis;
+    final double maxErrorRate;
+    final int hotels;
+    final int customers;
+    final int bookings;
+
+    private LoadTestSettings() {
+        rate = Integer.getInteger("loadtest.rate", 100);
+        warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 10));
+        duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 60));
+        mix = parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX));
+        defaultP99Millis = Long.getLong("loadtest.slo.p99", 500);
+        maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+        hotels = Integer.getInteger("loadtest.seed.hotels", 50);
+        customers = Integer.getInteger("loadtest.seed.customers", 200);
+        bookings = Integer.getInteger("loadtest.seed.bookings", 1000);
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+
+    long p99Millis(String operation) {
+        return Long.getLong("loadtest.slo.p99." + operation, defaultP99Millis);
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("loadtest.mix entries must be operation=weight, got: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(parts[0].trim(), weight);
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,151 @@
+package uk.ac.newcastle.enterprisemiddleware.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * <p>Drives an open workload: requests are started at a constant rate whether or not earlier ones have finished, the
+ * way independent users arrive at a real service.</p>
+ *
+ * <p>Every request has an intended start time on a fixed schedule, and its response time is measured from that
+ * time rather than from when it was actually sent. If the service (or this generator) stalls, the requests that
+ * should have been sent during the stall are charged for the wait, so the percentiles are corrected for coordinated
+ * omission. The time from actual send to response is kept separately as the service time.</p>
+ */
+final class OpenLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final HttpClient client;
+    private final Map<String, LongFunction<HttpRequest>> operations;
+    private final String[] schedule;
+
+    /**
+     * @param client The client used to send requests asynchronously
+     * @param operations Builds the request for each operation from the request sequence number
+     * @param mix The relative weight of each operation
+     */
+    OpenLoadGenerator(HttpClient client, Map<String, LongFunction<HttpRequest>> operations, Map<String, Integer> mix) {
+        this.client = client;
+        this.operations = operations;
+        List<String> slots = new ArrayList<>();
+        for (Map.Entry<String, Integer> weight : mix.entrySet()) {
+            if (!operations.containsKey(weight.getKey())) {
+                throw new IllegalArgumentException("Unknown load test operation: " + weight.getKey());
+            }
+            for (int i = 0; i < weight.getValue(); i++) {
+                slots.add(weight.getKey());
+            }
+        }
+        this.schedule = interleave(slots);
+    }
+
+    /**
+     * <p>Runs the load for the given duration and waits for every request to complete.</p>
+     *
+     * @param ratePerSecond Requests started per second
+     * @param duration How long to keep starting requests
+     * @param firstSequence The sequence number of the first request, so that separate runs do not reuse data
+     * @return The results per operation
+     */
+    Map<String, Result> run(int ratePerSecond, Duration duration, long firstSequence) throws Exception {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String operation : operations.keySet()) {
+            results.put(operation, new Result());
+        }
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = duration.getSeconds() * ratePerSecond;
+        List<CompletableFuture<?>> pending = new ArrayList<>((int) Math.min(total, Integer.MAX_VALUE));
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            long sequence = firstSequence + i;
+            String operation = schedule[(int) (sequence % schedule.length)];
+            Result result = results.get(operation);
+            HttpRequest request = operations.get(operation).apply(sequence);
+
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, failure) -> {
+                        long now = System.nanoTime();
+                        result.record(intended, sent, now, failure == null ? response.statusCode() : -1);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).get(2, TimeUnit.MINUTES);
+        return results;
+    }
+
+    /**
+     * <p>Spreads the weighted operations evenly over the schedule, so that a 1:3 mix alternates rather than
+     * running in blocks.</p>
+     */
+    private static String[] interleave(List<String> slots) {
+        String[] schedule = new String[slots.size()];
+        int stride = slots.size() > 1 ? largestCoprimeStride(slots.size()) : 1;
+        for (int i = 0; i < slots.size(); i++) {
+            schedule[(int) ((long) i * stride % slots.size())] = slots.get(i);
+        }
+        return schedule;
+    }
+
+    private static int largestCoprimeStride(int n) {
+        for (int stride = n / 2 + 1; stride < n; stride++) {
+            if (gcd(stride, n) == 1) {
+                return stride;
+            }
+        }
+        return 1;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * <p>Response time (from the intended start) and service time (from the actual send) of one operation, in
+     * microseconds, with the count of requests that failed with a 5xx or got no response at all.</p>
+     */
+    static final class Result {
+
+        final Histogram responseTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        void record(long intended, long sent, long completed, int status) {
+            responseTime.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(completed - intended), HIGHEST_TRACKABLE_MICROS));
+            serviceTime.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(completed - sent), HIGHEST_TRACKABLE_MICROS));
+            if (status < 0 || status >= 500) {
+                errors.incrementAndGet();
+            } else if (status >= 400) {
+                rejected.incrementAndGet();
+            }
+        }
+
+        long count() {
+            return responseTime.getTotalCount();
+        }
+    }
+}
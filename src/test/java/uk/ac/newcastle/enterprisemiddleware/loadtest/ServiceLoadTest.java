@@ -0,0 +1,224 @@
+package uk.ac.newcastle.enterprisemiddleware.loadtest;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.ResourceArg;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.HdrHistogram.Histogram;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.area.AreaApiStub;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Load test: boots the application against the local H2 database, seeds Hotels, Customers and Bookings through
+ * the REST API, then drives a constant arrival rate of mixed traffic (see {@link OpenLoadGenerator}) and fails if
+ * any operation's p99 response time exceeds its SLO or too many requests fail.</p>
+ *
+ * <p>Excluded from the normal test run; run it with {@code mvn verify -Ploadtest}. Settings are described in
+ * {@link LoadTestSettings}.</p>
+ *
+ * <p>Operations:</p>
+ * <ul>
+ *     <li>{@code bookings} - POST /bookings for a seeded Customer and Hotel (409 when the Hotel is taken)</li>
+ *     <li>{@code bookings-read} - GET /bookings/{id} for a seeded Booking</li>
+ *     <li>{@code availability} - GET /hotels/{id}/availability</li>
+ *     <li>{@code guest-bookings} - POST /guest-bookings with a new Customer</li>
+ *     <li>{@code contacts} - POST /contacts with a new Contact, which looks up its area code in the area-api</li>
+ * </ul>
+ *
+ * <p>The area-api is replaced by {@link AreaApiStub} with a log-normal latency (15 ms median, 120 ms p99), so the
+ * run is repeatable offline; change it with {@code -Darea-stub.latency=...} or {@code -Darea-stub.error-rate=...}.</p>
+ */
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+@QuarkusTestResource(value = AreaApiStub.class, restrictToAnnotatedClass = true,
+        initArgs = @ResourceArg(name = "latency", value = "lognormal:15,120"))
+class ServiceLoadTest {
+
+    private static final Logger LOG = Logger.getLogger(ServiceLoadTest.class);
+
+    private static final LocalDate SEED_START = LocalDate.of(2030, 1, 1);
+    private static final LocalDate LOAD_START = LocalDate.of(2035, 1, 1);
+
+    @TestHTTPResource("/")
+    URL baseUrl;
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    private final List<Long> hotelIds = new ArrayList<>();
+    private final List<Long> customerIds = new ArrayList<>();
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    private HttpClient client;
+
+    @Test
+    public void testLatencyWithinSlo() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            seed();
+
+            OpenLoadGenerator generator = new OpenLoadGenerator(client, operations(), settings.mix);
+            long warmupRequests = settings.warmup.getSeconds() * settings.rate;
+            generator.run(settings.rate, settings.warmup, 0);
+            Map<String, OpenLoadGenerator.Result> results = generator.run(settings.rate, settings.duration, warmupRequests);
+
+            report(results);
+            assertSlos(results);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, LongFunction<HttpRequest>> operations() {
+        Map<String, LongFunction<HttpRequest>> operations = new LinkedHashMap<>();
+        operations.put("bookings", seq -> post("bookings", bookingJson(
+                pick(customerIds, seq), pick(hotelIds, seq / customerIds.size()), LOAD_START.plusDays(seq % 3650), 1)));
+        operations.put("bookings-read", seq -> get("bookings/" + pick(bookingIds, seq)));
+        operations.put("availability", seq -> {
+            LocalDate checkIn = SEED_START.plusDays(seq % (2L * settings.bookings / settings.hotels + 1));
+            return get("hotels/" + pick(hotelIds, seq) + "/availability?checkInDate=" + checkIn
+                    + "&checkOutDate=" + checkIn.plusDays(2));
+        });
+        operations.put("guest-bookings", seq -> post("guest-bookings", "{\"customer\":" + customerJson("guest", seq)
+                + ",\"booking\":" + bookingJson(null, pick(hotelIds, seq), LOAD_START.plusYears(20).plusDays(seq % 3650), 1)
+                + "}"));
+        operations.put("contacts", seq -> post("contacts", "{\"firstName\":\"Load\",\"lastName\":\"Test\""
+                + ",\"email\":\"contact" + seq + "@loadtest.example.com\",\"phoneNumber\":\"(201) 555-"
+                + String.format("%04d", seq % 10000) + "\",\"birthDate\":\"1990-01-01\"}"));
+        return operations;
+    }
+
+    /**
+     * <p>Creates the Hotels and Customers, then gives each Hotel a run of back to back two night Bookings from
+     * {@link #SEED_START}, so that availability checks over that period hit both booked and free dates.</p>
+     */
+    private void seed() throws Exception {
+        for (int i = 0; i < settings.hotels; i++) {
+            hotelIds.add(create(post("hotels", "{\"name\":\"Hotel\",\"location\":\"Location" + (i % 10)
+                    + "\",\"phoneNumber\":\"" + String.format("0%010d", i) + "\",\"postalCode\":\"NE17RU\"}")));
+        }
+        for (int i = 0; i < settings.customers; i++) {
+            customerIds.add(create(post("customers", customerJson("seed", i))));
+        }
+        for (int i = 0; i < settings.bookings; i++) {
+            int slot = i / settings.hotels;
+            bookingIds.add(create(post("bookings", bookingJson(
+                    customerIds.get(i % settings.customers), hotelIds.get(i % settings.hotels),
+                    SEED_START.plusDays(slot * 2L), 2))));
+        }
+    }
+
+    private long create(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode(), "Seeding " + request.uri() + " failed: " + response.body());
+        String body = response.body();
+        int start = body.indexOf("\"id\":") + 5;
+        int end = start;
+        while (end < body.length() && Character.isDigit(body.charAt(end))) {
+            end++;
+        }
+        return Long.parseLong(body.substring(start, end));
+    }
+
+    private void report(Map<String, OpenLoadGenerator.Result> results) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Load test: %d req/s for %ds, mix %s%n", settings.rate, settings.duration.getSeconds(), settings.mix));
+        report.append(String.format("%-15s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "4xx", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99"));
+        for (Map.Entry<String, OpenLoadGenerator.Result> entry : results.entrySet()) {
+            OpenLoadGenerator.Result result = entry.getValue();
+            if (result.count() == 0) {
+                continue;
+            }
+            Histogram h = result.responseTime;
+            report.append(String.format("%-15s %8d %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(), result.count(),
+                    result.rejected.get(), result.errors.get(), millis(h.getValueAtPercentile(50)),
+                    millis(h.getValueAtPercentile(90)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()),
+                    millis(result.serviceTime.getValueAtPercentile(99))));
+        }
+        report.append("Response times are measured from each request's scheduled start (coordinated omission corrected);"
+                + " svc p99 is measured from the actual send.");
+        LOG.info(report);
+    }
+
+    private void assertSlos(Map<String, OpenLoadGenerator.Result> results) {
+        List<String> breaches = new ArrayList<>();
+        for (Map.Entry<String, OpenLoadGenerator.Result> entry : results.entrySet()) {
+            OpenLoadGenerator.Result result = entry.getValue();
+            if (result.count() == 0) {
+                continue;
+            }
+            double p99 = millis(result.responseTime.getValueAtPercentile(99));
+            long slo = settings.p99Millis(entry.getKey());
+            if (p99 > slo) {
+                breaches.add(String.format("%s p99 %.1f ms > %d ms", entry.getKey(), p99, slo));
+            }
+            double errorRate = (double) result.errors.get() / result.count();
+            if (errorRate > settings.maxErrorRate) {
+                breaches.add(String.format("%s error rate %.2f%% > %.2f%%", entry.getKey(), errorRate * 100,
+                        settings.maxErrorRate * 100));
+            }
+        }
+        assertTrue(breaches.isEmpty(), "SLOs breached: " + breaches);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String customerJson(String prefix, long seq) {
+        return "{\"name\":\"Load\",\"email\":\"" + prefix + seq + "@loadtest.example.com\",\"phoneNumber\":\""
+                + String.format("%s%010d", prefix.equals("seed") ? "1" : "2", seq) + "\"}";
+    }
+
+    private static String bookingJson(Long customerId, long hotelId, LocalDate checkIn, int nights) {
+        return "{" + (customerId == null ? "" : "\"customer\":{\"id\":" + customerId + "},")
+                + "\"hotel\":{\"id\":" + hotelId + "},\"checkInDate\":\"" + checkIn
+                + "\",\"checkOutDate\":\"" + checkIn.plusDays(nights) + "\"}";
+    }
+
+    private static long pick(List<Long> ids, long seq) {
+        return ids.get((int) (Math.floorMod(seq * 2654435761L, ids.size())));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,96 @@
+package uk.ac.newcastle.enterprisemiddleware.occupancy;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createBooking;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createCustomer;
+import static uk.ac.newcastle.enterprisemiddleware.util.Fixtures.createHotel;
+
+@QuarkusTest
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class OccupancyTest {
+
+    @Test
+    public void testRollupFollowsBookingWrites() {
+        long hotelId = createHotel("Rolled Up", "Occupancyville", "05550000701");
+        long customerId = createCustomer("Counted", "70000000001");
+        long bookingId = createBooking(customerId, hotelId, "2032-03-02", "2032-03-05");
+
+        given().
+                queryParam("from", "2032-03-01").
+                queryParam("to", "2032-03-11").
+        when().
+                get("/hotels/" + hotelId + "/occupancy").
+        then().
+                statusCode(200).
+                body("nights", hasSize(10)).
+                body("occupiedNights", equalTo(3)).
+                body("nights[0].occupied", equalTo(0)).
+                body("nights[1].occupied", equalTo(1)).
+                body("nights[4].occupied", equalTo(0));
+
+        given().contentType(ContentType.JSON)
+                .body("{\"id\":" + bookingId + ",\"customer\":{\"id\":" + customerId + "},\"hotel\":{\"id\":" + hotelId
+                        + "},\"checkInDate\":\"2032-03-08\",\"checkOutDate\":\"2032-03-10\"}")
+                .when().put("/bookings/" + bookingId).then().statusCode(200);
+
+        given().
+                queryParam("location", "Occupancyville").
+                queryParam("from", "2032-03-01").
+                queryParam("to", "2032-03-11").
+        when().
+                get("/hotels/occupancy").
+        then().
+                statusCode(200).
+                body("hotels", equalTo(1)).
+                body("occupiedNights", equalTo(2)).
+                body("nights[7].occupied", equalTo(1)).
+                body("nights[1].occupied", equalTo(0));
+
+        given().when().post("/hotels/occupancy/rebuild").then().statusCode(200);
+        given().
+                queryParam("from", "2032-03-01").
+                queryParam("to", "2032-03-11").
+        when().
+                get("/hotels/" + hotelId + "/occupancy").
+        then().
+                statusCode(200).
+                body("occupiedNights", equalTo(2));
+
+        given().when().delete("/bookings/" + bookingId).then().statusCode(204);
+        given().
+                queryParam("from", "2032-03-01").
+                queryParam("to", "2032-03-11").
+        when().
+                get("/hotels/" + hotelId + "/occupancy").
+        then().
+                statusCode(200).
+                body("occupiedNights", equalTo(0));
+    }
+
+    @Test
+    public void testInvalidRangesAreRejected() {
+        given().
+                queryParam("from", "2032-03-05").
+                queryParam("to", "2032-03-01").
+        when().
+                get("/hotels/occupancy?location=Occupancyville").
+        then().
+                statusCode(400);
+
+        given().
+                queryParam("from", "2032-01-01").
+                queryParam("to", "2034-01-01").
+        when().
+                get("/hotels/occupancy?location=Occupancyville").
+        then().
+                statusCode(400);
+    }
+}
@@ -0,0 +1,78 @@
+package uk.ac.newcastle.enterprisemiddleware.ratelimit;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+
+/**
+ * <p>Runs the application with rate limiting on, a limit of two bookings a minute per client, and the API keys
+ * partner-a and partner-b.</p>
+ */
+@QuarkusTest
+@TestProfile(RateLimitTest.TightLimit.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+class RateLimitTest {
+
+    public static class TightLimit implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "rate-limit.enabled", "true",
+                    "rate-limit.routes.bookings.rate", "0.0333",
+                    "rate-limit.routes.bookings.burst", "2",
+                    "rate-limit.api-keys", "partner-a,partner-b");
+        }
+    }
+
+    @Test
+    public void testClientOverItsLimitIsTurnedAway() {
+        for (int i = 0; i < 2; i++) {
+            postBooking("partner-a").then().statusCode(not(equalTo(429)));
+        }
+        postBooking("partner-a").then()
+                .statusCode(429)
+                .header("Retry-After", notNullValue())
+                .body("error", notNullValue());
+
+        // Other clients keep their own buckets
+        postBooking("partner-b").then().statusCode(not(equalTo(429)));
+        // and routes without a limit are not affected
+        given().when().get("/bookings").then().statusCode(200);
+    }
+
+    @Test
+    public void testMadeUpKeysShareTheAddressLimit() {
+        // partner-a and partner-b have buckets of their own, so the address's bucket is still full
+        for (int i = 0; i < 2; i++) {
+            postBooking(UUID.randomUUID().toString()).then().statusCode(not(equalTo(429)));
+        }
+        postBooking(UUID.randomUUID().toString()).then().statusCode(429);
+        // as does a client sending no key from the same address
+        postBooking(null).then().statusCode(429);
+    }
+
+    private Response postBooking(String apiKey) {
+        RequestSpecification request = given();
+        if (apiKey != null) {
+            request.header(RateLimitFilter.API_KEY, apiKey);
+        }
+        return request
+                .contentType(ContentType.JSON)
+                .body("{\"customer\":{\"id\":1},\"hotel\":{\"id\":1},\"checkInDate\":\"2036-01-01\",\"checkOutDate\":\"2036-01-02\"}")
+                .when().post("/bookings");
+    }
+}
@@ -0,0 +1,23 @@
+package uk.ac.newcastle.enterprisemiddleware.startup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WarmupTest {
+
+    @Test
+    public void testPeakIsFirstRoundNearTheFastest() {
+        long[] durations = {900, 400, 120, 105, 100, 130, 101};
+
+        // 105 is within 10% of the fastest round, 100
+        assertEquals(3, Warmup.peakRound(durations, durations.length));
+        // Only the rounds that ran count
+        assertEquals(2, Warmup.peakRound(durations, 3));
+    }
+
+    @Test
+    public void testNoRoundsHaveNoPeak() {
+        assertEquals(-1, Warmup.peakRound(new long[4], 0));
+    }
+}
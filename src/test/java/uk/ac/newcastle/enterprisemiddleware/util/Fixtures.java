@@ -0,0 +1,51 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import io.restassured.http.ContentType;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * <p>Creates the Hotels, Customers and Bookings a test needs through the REST API, failing the test unless each one
+ * is created.</p>
+ *
+ * <p>Tests share one database, so each test passes phone numbers of its own. A Customer's email address is made
+ * from the name and phone number, e.g. {@code paige10000000001@example.com}.</p>
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return The id of a new Hotel, with the postal code NE17RU
+     */
+    public static long createHotel(String name, String location, String phoneNumber) {
+        Number id = given().contentType(ContentType.JSON)
+                .body("{\"name\":\"" + name + "\",\"location\":\"" + location + "\",\"phoneNumber\":\"" + phoneNumber
+                        + "\",\"postalCode\":\"NE17RU\"}")
+                .when().post("/hotels").then().statusCode(201).extract().path("id");
+        return id.longValue();
+    }
+
+    /**
+     * @return The id of a new Customer, with the email address name + phoneNumber + "@example.com" in lower case
+     */
+    public static long createCustomer(String name, String phoneNumber) {
+        Number id = given().contentType(ContentType.JSON)
+                .body("{\"name\":\"" + name + "\",\"email\":\"" + name.toLowerCase() + phoneNumber
+                        + "@example.com\",\"phoneNumber\":\"" + phoneNumber + "\"}")
+                .when().post("/customers").then().statusCode(201).extract().path("id");
+        return id.longValue();
+    }
+
+    /**
+     * @return The id of a new Booking of the Hotel by the Customer, with dates in the format yyyy-MM-dd
+     */
+    public static long createBooking(long customerId, long hotelId, String checkIn, String checkOut) {
+        Number id = given().contentType(ContentType.JSON)
+                .body("{\"customer\":{\"id\":" + customerId + "},\"hotel\":{\"id\":" + hotelId
+                        + "},\"checkInDate\":\"" + checkIn + "\",\"checkOutDate\":\"" + checkOut + "\"}")
+                .when().post("/bookings").then().statusCode(201).extract().path("id");
+        return id.longValue();
+    }
+}
@@ -0,0 +1,151 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.hibernate.validator.HibernateValidator;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.contact.Contact;
+import uk.ac.newcastle.enterprisemiddleware.contact.ContactConstraints;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.customer.CustomerConstraints;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.hotel.HotelConstraints;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Checks that the precompiled entity constraints report exactly what Hibernate Validator reports for the
+ * annotations on the entity, for valid input and for each way a property can be invalid.</p>
+ */
+class PrecompiledConstraintsTest {
+
+    private static ValidatorFactory factory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setup() {
+        factory = Validation.byProvider(HibernateValidator.class)
+                .configure()
+                .defaultLocale(Locale.ENGLISH)
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+        validator = factory.getValidator();
+    }
+
+    @AfterAll
+    static void teardown() {
+        factory.close();
+    }
+
+    @Test
+    public void testEmailCheckMatchesBeanValidation() {
+        String[] emails = {"first.last@example.com", "a.@example.com", ".a@example.com", "a..b@example.com",
+                "\"quoted local\"@example.com", "a@b@example.com", "a@example.com.", "a@-example.com",
+                "a@example-.com", "a@ex--ample.com", "a@[127.0.0.1]", "a@[IPv6:2001:db8::1]", "a@[IPv6:not:an:ip]",
+                "jos\u00e9@\u00e9xample.com", "a b@example.com", "@example.com", "a@",
+                "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcdefghijklm@example.com"};
+
+        for (String email : emails) {
+            Customer customer = new Customer();
+            customer.setName("Smith");
+            customer.setEmail(email);
+            customer.setPhoneNumber("01234567890");
+            assertSame(validator.validate(customer), CustomerConstraints.validate(customer));
+        }
+    }
+
+    @Test
+    public void testCustomerConstraintsMatchBeanValidation() {
+        String[] names = {"Smith", null, "", "O'Neil-Jones", "Sm1th", "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyz"};
+        String[] emails = {"jane@example.com", null, "", "not-an-email", "a@b"};
+        String[] phones = {"01234567890", null, "", "0123", "0123456789a"};
+
+        for (String name : names) {
+            for (String email : emails) {
+                for (String phone : phones) {
+                    Customer customer = new Customer();
+                    customer.setName(name);
+                    customer.setEmail(email);
+                    customer.setPhoneNumber(phone);
+                    assertSame(validator.validate(customer), CustomerConstraints.validate(customer));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHotelConstraintsMatchBeanValidation() {
+        String[] names = {"Grand", null, "  ", "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyz"};
+        String[] phones = {"01234567890", null, "", "11234567890", "0123"};
+        String[] postalCodes = {"NE17RU", null, " ", "NE1 7R", "NE17R", "NE17RUX"};
+
+        for (String name : names) {
+            for (String phone : phones) {
+                for (String postalCode : postalCodes) {
+                    Hotel hotel = new Hotel(name, name == null ? null : "Newcastle", phone, postalCode);
+                    assertSame(validator.validate(hotel), HotelConstraints.validate(hotel));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testContactConstraintsMatchBeanValidation() {
+        String[] names = {"Jane", null, "", "J4ne", "abcdefghijklmnopqrstuvwxyz"};
+        String[] emails = {"jane@example.com", null, "not-an-email"};
+        String[] phones = {"(201) 123-4567", "(201)123-4567", null, "201-123-4567", "(101) 123-4567"};
+        long day = TimeUnit.DAYS.toMillis(1);
+        Date[] birthDates = {new Date(System.currentTimeMillis() - day), null,
+                new Date(System.currentTimeMillis() + day)};
+
+        for (String name : names) {
+            for (String email : emails) {
+                for (String phone : phones) {
+                    for (Date birthDate : birthDates) {
+                        Contact contact = new Contact();
+                        contact.setFirstName(name);
+                        contact.setLastName(name == null ? "Smith" : name);
+                        contact.setEmail(email);
+                        contact.setPhoneNumber(phone);
+                        contact.setBirthDate(birthDate);
+                        assertSame(validator.validate(contact), ContactConstraints.validate(contact));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testValidEntityHasNoViolations() {
+        Customer customer = new Customer();
+        customer.setName("Smith");
+        customer.setEmail("jane@example.com");
+        customer.setPhoneNumber("01234567890");
+        assertTrue(CustomerConstraints.validate(customer).isEmpty());
+    }
+
+    private static <T> void assertSame(Set<ConstraintViolation<T>> expected, Set<ConstraintViolation<T>> actual) {
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    private static <T> Set<String> describe(Set<ConstraintViolation<T>> violations) {
+        Set<String> described = new TreeSet<>();
+        for (ConstraintViolation<T> violation : violations) {
+            described.add(violation.getPropertyPath() + ": " + violation.getMessage()
+                    + " [" + violation.getMessageTemplate() + "]");
+        }
+        return described;
+    }
+}